@@ -0,0 +1,171 @@
+package com.imagehosting.common.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * 按字节数限制容量的LRU缓存
+ * 容量以缓存值的总字节数而不是条目数计算，超出上限时淘汰最久未访问的条目；线程安全
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class ByteSizeLruCache<K, V> {
+
+    /**
+     * 最大总字节数
+     */
+    private final long maxBytes;
+
+    /**
+     * 计算缓存值字节数的函数
+     */
+    private final ToLongFunction<V> weigher;
+
+    /**
+     * 条目被淘汰、替换或移除后的回调，可为空
+     */
+    private final BiConsumer<K, V> removalListener;
+
+    /**
+     * 按访问顺序排列的条目
+     */
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 当前总字节数
+     */
+    private long currentBytes;
+
+    /**
+     * 创建缓存
+     *
+     * @param maxBytes 最大总字节数
+     * @param weigher  计算缓存值字节数的函数
+     */
+    public ByteSizeLruCache(long maxBytes, ToLongFunction<V> weigher) {
+        this(maxBytes, weigher, null);
+    }
+
+    /**
+     * 创建缓存，条目被淘汰、替换或移除后回调，用于释放缓存值关联的外部资源
+     * 回调在锁外执行
+     *
+     * @param maxBytes        最大总字节数
+     * @param weigher         计算缓存值字节数的函数
+     * @param removalListener 条目移除后的回调
+     */
+    public ByteSizeLruCache(long maxBytes, ToLongFunction<V> weigher, BiConsumer<K, V> removalListener) {
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * 获取缓存值
+     *
+     * @param key 键
+     * @return 缓存值，不存在则返回null
+     */
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * 放入缓存值，单个值超过总容量时不缓存
+     *
+     * @param key   键
+     * @param value 值
+     * @return 是否已放入缓存
+     */
+    public boolean put(K key, V value) {
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxBytes) {
+            return false;
+        }
+        List<Map.Entry<K, V>> removed = new ArrayList<>();
+        synchronized (this) {
+            V old = entries.put(key, value);
+            if (old != null) {
+                currentBytes -= weigher.applyAsLong(old);
+                if (old != value) {
+                    removed.add(Map.entry(key, old));
+                }
+            }
+            currentBytes += weight;
+
+            Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<K, V> eldest = iterator.next();
+                currentBytes -= weigher.applyAsLong(eldest.getValue());
+                removed.add(Map.entry(eldest.getKey(), eldest.getValue()));
+                iterator.remove();
+            }
+        }
+        notifyRemoval(removed);
+        return true;
+    }
+
+    /**
+     * 移除缓存值
+     *
+     * @param key 键
+     */
+    public void remove(K key) {
+        V old;
+        synchronized (this) {
+            old = entries.remove(key);
+            if (old != null) {
+                currentBytes -= weigher.applyAsLong(old);
+            }
+        }
+        if (old != null) {
+            notifyRemoval(List.of(Map.entry(key, old)));
+        }
+    }
+
+    /**
+     * 移除所有键满足条件的缓存值
+     *
+     * @param filter 键的过滤条件
+     */
+    public void removeIf(Predicate<? super K> filter) {
+        List<Map.Entry<K, V>> removed = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, V> entry = iterator.next();
+                if (filter.test(entry.getKey())) {
+                    currentBytes -= weigher.applyAsLong(entry.getValue());
+                    removed.add(Map.entry(entry.getKey(), entry.getValue()));
+                    iterator.remove();
+                }
+            }
+        }
+        notifyRemoval(removed);
+    }
+
+    /**
+     * 当前总字节数
+     *
+     * @return 字节数
+     */
+    public synchronized long weightedSize() {
+        return currentBytes;
+    }
+
+    private void notifyRemoval(List<Map.Entry<K, V>> removed) {
+        if (removalListener == null) {
+            return;
+        }
+        for (Map.Entry<K, V> entry : removed) {
+            removalListener.accept(entry.getKey(), entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.imagehosting.common.util;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * HTTP条件请求与范围请求工具类
+ * 按RFC 9110计算If-None-Match、If-Modified-Since、If-Range和单个Range的处理结果
+ */
+public class ConditionalRequestUtil {
+
+    private ConditionalRequestUtil() {
+    }
+
+    /**
+     * 生成强ETag
+     *
+     * @param value 内容摘要
+     * @return 带引号的ETag
+     */
+    public static String strongEtag(String value) {
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * 格式化为HTTP日期
+     *
+     * @param epochMillis 时间戳（毫秒）
+     * @return HTTP日期字符串
+     */
+    public static String formatHttpDate(long epochMillis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC));
+    }
+
+    /**
+     * 解析HTTP日期
+     *
+     * @param value HTTP日期字符串
+     * @return 时间戳（毫秒），格式不正确时返回null
+     */
+    public static Long parseHttpDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 判断If-None-Match是否命中，使用弱比较
+     *
+     * @param ifNoneMatch If-None-Match请求头
+     * @param etag        当前ETag，可为空
+     * @return 是否命中
+     */
+    public static boolean matchesIfNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        if (ifNoneMatch.trim().equals("*")) {
+            return true;
+        }
+        String current = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            if (stripWeak(candidate.trim()).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断资源自If-Modified-Since之后是否未修改，HTTP日期只精确到秒
+     *
+     * @param ifModifiedSince If-Modified-Since请求头
+     * @param lastModified    最后修改时间（毫秒），可为空
+     * @return 是否未修改
+     */
+    public static boolean notModifiedSince(String ifModifiedSince, Long lastModified) {
+        Long since = parseHttpDate(ifModifiedSince);
+        return since != null && lastModified != null && lastModified / 1000 <= since / 1000;
+    }
+
+    /**
+     * 判断If-Range是否允许按Range返回部分内容
+     * ETag形式需强比较，日期形式需与Last-Modified完全一致
+     *
+     * @param ifRange      If-Range请求头，为空时返回true
+     * @param etag         当前ETag，可为空
+     * @param lastModified 当前Last-Modified（HTTP日期），可为空
+     * @return 是否允许返回部分内容
+     */
+    public static boolean matchesIfRange(String ifRange, String etag, String lastModified) {
+        if (ifRange == null || ifRange.isBlank()) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return etag != null && !etag.startsWith("W/") && value.equals(etag);
+        }
+        return lastModified != null && value.equals(lastModified);
+    }
+
+    /**
+     * 解析单个字节范围
+     * 多个范围或格式不正确时返回null，调用方应忽略Range返回完整内容
+     *
+     * @param range  Range请求头
+     * @param length 内容总长度
+     * @return 长度为2的数组，依次为起始和结束位置（含）；范围无法满足时返回空数组
+     */
+    public static long[] parseRange(String range, long length) {
+        if (range == null || !range.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        String spec = range.substring(6).trim();
+        if (spec.contains(",")) {
+            return null;
+        }
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // 后缀范围：最后N个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                if (start < 0 || (!last.isEmpty() && Long.parseLong(last) < start)) {
+                    return null;
+                }
+                if (start >= length) {
+                    return new long[0];
+                }
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -0,0 +1,54 @@
+package com.imagehosting.common.util;
+
+import com.imagehosting.common.exception.BusinessException;
+import com.imagehosting.common.result.ResultCode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 分页游标工具类
+ * 游标由排序方式、排序键和ID等若干字段组成，编码为URL安全的Base64字符串，对客户端不透明
+ */
+public class CursorUtil {
+
+    /**
+     * 字段分隔符
+     */
+    private static final String SEPARATOR = "|";
+
+    private CursorUtil() {
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param parts 游标字段，不能包含分隔符
+     * @return 游标字符串
+     */
+    public static String encode(String... parts) {
+        String raw = String.join(SEPARATOR, parts);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param cursor     游标字符串
+     * @param partCount  期望的字段数
+     * @return 游标字段
+     * @throws BusinessException 当游标格式不正确时抛出业务异常
+     */
+    public static String[] decode(String cursor, int partCount) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length == partCount) {
+                return parts;
+            }
+        } catch (IllegalArgumentException e) {
+            // 非Base64字符串，按格式错误处理
+        }
+        throw new BusinessException(ResultCode.PARAM_ERROR, "分页游标无效");
+    }
+}
@@ -0,0 +1,91 @@
+package com.imagehosting.common.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 摘要布隆过滤器
+ * 专用于MD5、SHA-256等分布均匀的十六进制摘要，直接取摘要中的两段64位值做双重哈希，无需再次计算哈希。
+ * 线程安全；判断为不存在时一定不存在，判断为存在时可能误判
+ */
+public class DigestBloomFilter {
+
+    /**
+     * 位数组
+     */
+    private final AtomicLongArray bits;
+
+    /**
+     * 位数组长度
+     */
+    private final long bitSize;
+
+    /**
+     * 哈希函数个数
+     */
+    private final int hashCount;
+
+    /**
+     * 创建布隆过滤器
+     *
+     * @param expectedInsertions 预计插入的元素数量
+     * @param falsePositiveRate  期望的误判率，如0.01
+     */
+    public DigestBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int words = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (m + 63) >>> 6));
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) m / n * ln2));
+    }
+
+    /**
+     * 添加摘要
+     *
+     * @param hexDigest 十六进制摘要，至少32个字符
+     * @throws IllegalArgumentException 摘要长度不足或不是十六进制时抛出
+     */
+    public void put(String hexDigest) {
+        long h1 = parse(hexDigest, 0);
+        long h2 = parse(hexDigest, 16);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitSize);
+            long mask = 1L << index;
+            int word = (int) (index >>> 6);
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * 判断摘要是否可能存在
+     *
+     * @param hexDigest 十六进制摘要，至少32个字符
+     * @return false表示一定不存在，true表示可能存在
+     * @throws IllegalArgumentException 摘要长度不足或不是十六进制时抛出
+     */
+    public boolean mightContain(String hexDigest) {
+        long h1 = parse(hexDigest, 0);
+        long h2 = parse(hexDigest, 16);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitSize);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parse(String hexDigest, int from) {
+        if (hexDigest == null || hexDigest.length() < 32) {
+            throw new IllegalArgumentException("摘要长度不足32个十六进制字符");
+        }
+        return Long.parseUnsignedLong(hexDigest, from, from + 16, 16);
+    }
+}
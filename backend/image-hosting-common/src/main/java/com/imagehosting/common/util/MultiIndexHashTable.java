@@ -0,0 +1,320 @@
+package com.imagehosting.common.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 64位哈希的多索引哈希表，用于按汉明距离查询相近的哈希
+ * 哈希分为4个16位分块，每个分块建一张以分块值为下标的桶表。由抽屉原理，距离不超过r的两个哈希
+ * 至少有一个分块的距离不超过 r/4，查询时只需在每个分块中枚举距离不超过 r/4 的分块值，
+ * 再对桶内的候选计算完整距离。条目存放在基本类型数组中，每个条目约占32字节，删除的位置留给后续写入复用。
+ * 线程安全，查询之间可并发
+ */
+public class MultiIndexHashTable {
+
+    /**
+     * 分块数
+     */
+    private static final int BLOCKS = 4;
+
+    /**
+     * 每个分块的位数
+     */
+    private static final int BLOCK_BITS = 16;
+
+    /**
+     * 每个分块的桶数
+     */
+    private static final int BUCKETS = 1 << BLOCK_BITS;
+
+    /**
+     * 支持的最大查询距离，距离越大需要枚举的分块值越多
+     */
+    public static final int MAX_DISTANCE = 15;
+
+    /**
+     * 条目的哈希
+     */
+    private long[] hashes = new long[1024];
+
+    /**
+     * 条目的外部ID，空位为-1
+     */
+    private long[] ids = new long[1024];
+
+    /**
+     * 条目的分组，如所属用户，查询时用于过滤
+     */
+    private long[] groups = new long[1024];
+
+    /**
+     * 已使用的位置数，包含空位
+     */
+    private int slotCount;
+
+    /**
+     * 可复用的空位
+     */
+    private int[] freeSlots = new int[16];
+
+    /**
+     * 空位数
+     */
+    private int freeCount;
+
+    /**
+     * 各分块的桶，下标为 分块序号 × BUCKETS + 分块值，桶内存放条目位置
+     */
+    private final int[][] buckets = new int[BLOCKS * BUCKETS][];
+
+    /**
+     * 各桶的条目数
+     */
+    private final int[] bucketSizes = new int[BLOCKS * BUCKETS];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 添加条目，相同ID和哈希的条目已存在时忽略
+     *
+     * @param id    外部ID，不能为负数
+     * @param group 分组
+     * @param hash  64位哈希
+     */
+    public void put(long id, long group, long hash) {
+        lock.writeLock().lock();
+        try {
+            if (find(id, hash) >= 0) {
+                return;
+            }
+            int slot;
+            if (freeCount > 0) {
+                slot = freeSlots[--freeCount];
+            } else {
+                if (slotCount == ids.length) {
+                    int capacity = slotCount + (slotCount >> 1);
+                    hashes = Arrays.copyOf(hashes, capacity);
+                    ids = Arrays.copyOf(ids, capacity);
+                    groups = Arrays.copyOf(groups, capacity);
+                }
+                slot = slotCount++;
+            }
+            hashes[slot] = hash;
+            ids[slot] = id;
+            groups[slot] = group;
+            for (int block = 0; block < BLOCKS; block++) {
+                addToBucket(bucketOf(block, blockValue(hash, block)), slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除条目
+     *
+     * @param id   外部ID
+     * @param hash 添加时的哈希
+     * @return 条目是否存在
+     */
+    public boolean remove(long id, long hash) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(id, hash);
+            if (slot < 0) {
+                return false;
+            }
+            for (int block = 0; block < BLOCKS; block++) {
+                removeFromBucket(bucketOf(block, blockValue(hash, block)), slot);
+            }
+            ids[slot] = -1;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount << 1);
+            }
+            freeSlots[freeCount++] = slot;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询汉明距离不超过maxDistance的条目
+     *
+     * @param hash        查询的哈希
+     * @param maxDistance 最大汉明距离，不超过MAX_DISTANCE
+     * @param filter      条目过滤条件，为null时不过滤
+     * @param limit       最多返回的条目数
+     * @return 匹配的条目，按距离升序排列
+     */
+    public List<Neighbor> search(long hash, int maxDistance, EntryFilter filter, int limit) {
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+            throw new IllegalArgumentException("maxDistance must be between 0 and " + MAX_DISTANCE);
+        }
+        int blockRadius = maxDistance / BLOCKS;
+        List<Neighbor> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int block = 0; block < BLOCKS; block++) {
+                probe(hash, maxDistance, filter, block, blockRadius, blockValue(hash, block), 0, blockRadius, result);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.sort(Comparator.comparingInt(Neighbor::getDistance).thenComparingLong(Neighbor::getId));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * 获取条目数
+     *
+     * @return 条目数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotCount - freeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 枚举与分块值距离不超过remaining的所有值并检查对应的桶
+     */
+    private void probe(long hash, int maxDistance, EntryFilter filter, int block, int blockRadius,
+                       int value, int fromBit, int remaining, List<Neighbor> result) {
+        collect(hash, maxDistance, filter, block, blockRadius, value, result);
+        if (remaining == 0) {
+            return;
+        }
+        for (int bit = fromBit; bit < BLOCK_BITS; bit++) {
+            probe(hash, maxDistance, filter, block, blockRadius, value ^ (1 << bit), bit + 1, remaining - 1, result);
+        }
+    }
+
+    private void collect(long hash, int maxDistance, EntryFilter filter, int block, int blockRadius,
+                         int value, List<Neighbor> result) {
+        int bucket = bucketOf(block, value);
+        int[] slots = buckets[bucket];
+        for (int i = 0; i < bucketSizes[bucket]; i++) {
+            int slot = slots[i];
+            long candidate = hashes[slot];
+            int distance = Long.bitCount(candidate ^ hash);
+            if (distance > maxDistance || isFoundInEarlierBlock(candidate, hash, block, blockRadius)) {
+                continue;
+            }
+            if (filter == null || filter.test(ids[slot], groups[slot])) {
+                result.add(new Neighbor(ids[slot], candidate, distance));
+            }
+        }
+    }
+
+    /**
+     * 条目在更靠前的分块中也在查询半径内时，已在那个分块中处理过，避免重复
+     */
+    private static boolean isFoundInEarlierBlock(long candidate, long hash, int block, int blockRadius) {
+        for (int earlier = 0; earlier < block; earlier++) {
+            if (Integer.bitCount(blockValue(candidate, earlier) ^ blockValue(hash, earlier)) <= blockRadius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int find(long id, long hash) {
+        int bucket = bucketOf(0, blockValue(hash, 0));
+        int[] slots = buckets[bucket];
+        for (int i = 0; i < bucketSizes[bucket]; i++) {
+            int slot = slots[i];
+            if (ids[slot] == id && hashes[slot] == hash) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void addToBucket(int bucket, int slot) {
+        int[] slots = buckets[bucket];
+        int size = bucketSizes[bucket];
+        if (slots == null) {
+            slots = new int[2];
+        } else if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size + (size >> 1) + 1);
+        }
+        slots[size] = slot;
+        buckets[bucket] = slots;
+        bucketSizes[bucket] = size + 1;
+    }
+
+    private void removeFromBucket(int bucket, int slot) {
+        int[] slots = buckets[bucket];
+        int size = bucketSizes[bucket];
+        for (int i = 0; i < size; i++) {
+            if (slots[i] == slot) {
+                // 桶内顺序无关，用最后一个元素填补
+                slots[i] = slots[size - 1];
+                bucketSizes[bucket] = size - 1;
+                return;
+            }
+        }
+    }
+
+    private static int blockValue(long hash, int block) {
+        return (int) (hash >>> (block * BLOCK_BITS)) & (BUCKETS - 1);
+    }
+
+    private static int bucketOf(int block, int value) {
+        return block * BUCKETS + value;
+    }
+
+    /**
+     * 条目过滤条件
+     */
+    @FunctionalInterface
+    public interface EntryFilter {
+
+        /**
+         * 判断条目是否保留
+         *
+         * @param id    外部ID
+         * @param group 分组
+         * @return 是否保留
+         */
+        boolean test(long id, long group);
+    }
+
+    /**
+     * 查询结果条目
+     */
+    public static final class Neighbor {
+
+        private final long id;
+
+        private final long hash;
+
+        private final int distance;
+
+        Neighbor(long id, long hash, int distance) {
+            this.id = id;
+            this.hash = hash;
+            this.distance = distance;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.imagehosting.common.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * 带频率准入策略的按字节数限制容量的缓存
+ * 淘汰顺序与LRU相同，但新条目需要腾出空间时，只有访问频率高于所有被淘汰条目才会被放入（TinyLFU），
+ * 一次性的批量扫描不会把热点条目挤出缓存。访问频率由Count-Min Sketch估算，并定期减半以适应热点变化；线程安全
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class TinyLfuCache<K, V> {
+
+    /**
+     * 最大总字节数
+     */
+    private final long maxBytes;
+
+    /**
+     * 计算缓存值字节数的函数
+     */
+    private final ToLongFunction<V> weigher;
+
+    /**
+     * 访问频率估算
+     */
+    private final FrequencySketch sketch;
+
+    /**
+     * 按访问顺序排列的条目
+     */
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 当前总字节数
+     */
+    private long currentBytes;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long rejectionCount;
+
+    /**
+     * 创建缓存
+     *
+     * @param maxBytes        最大总字节数
+     * @param expectedEntries 预计的条目数，决定频率统计的精度
+     * @param weigher         计算缓存值字节数的函数
+     */
+    public TinyLfuCache(long maxBytes, int expectedEntries, ToLongFunction<V> weigher) {
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch(expectedEntries);
+    }
+
+    /**
+     * 获取缓存值，无论是否命中都会记录一次访问
+     *
+     * @param key 键
+     * @return 缓存值，不存在则返回null
+     */
+    public synchronized V get(K key) {
+        sketch.increment(key);
+        V value = entries.get(key);
+        if (value != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return value;
+    }
+
+    /**
+     * 判断指定大小的新条目当前能否被放入缓存，不修改缓存
+     * 调用方可以据此避免为不会被缓存的条目读取数据
+     *
+     * @param key    键
+     * @param weight 字节数
+     * @return 是否会被放入
+     */
+    public synchronized boolean shouldAdmit(K key, long weight) {
+        return selectVictims(key, weight) != null;
+    }
+
+    /**
+     * 放入缓存值，空间不足且访问频率不高于被淘汰的条目时不缓存
+     *
+     * @param key   键
+     * @param value 值
+     * @return 是否已放入缓存
+     */
+    public synchronized boolean put(K key, V value) {
+        V old = entries.remove(key);
+        if (old != null) {
+            currentBytes -= weigher.applyAsLong(old);
+        }
+        long weight = weigher.applyAsLong(value);
+        List<K> victims = selectVictims(key, weight);
+        if (victims == null) {
+            rejectionCount++;
+            return false;
+        }
+        for (K victim : victims) {
+            currentBytes -= weigher.applyAsLong(entries.remove(victim));
+            evictionCount++;
+        }
+        entries.put(key, value);
+        currentBytes += weight;
+        return true;
+    }
+
+    /**
+     * 移除缓存值
+     *
+     * @param key 键
+     */
+    public synchronized void remove(K key) {
+        V old = entries.remove(key);
+        if (old != null) {
+            currentBytes -= weigher.applyAsLong(old);
+        }
+    }
+
+    /**
+     * 当前总字节数
+     *
+     * @return 字节数
+     */
+    public synchronized long weightedSize() {
+        return currentBytes;
+    }
+
+    /**
+     * 命中次数
+     *
+     * @return 次数
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * 未命中次数
+     *
+     * @return 次数
+     */
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * 因空间不足被淘汰的条目数
+     *
+     * @return 条目数
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 因访问频率不足未被放入的条目数
+     *
+     * @return 条目数
+     */
+    public synchronized long rejectionCount() {
+        return rejectionCount;
+    }
+
+    /**
+     * 按LRU顺序选出为放入新条目需要淘汰的条目
+     *
+     * @return 需要淘汰的键，不应放入时返回null
+     */
+    private List<K> selectVictims(K key, long weight) {
+        if (weight > maxBytes) {
+            return null;
+        }
+        List<K> victims = new ArrayList<>();
+        long freed = 0;
+        int candidateFrequency = sketch.frequency(key);
+        Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+        while (currentBytes - freed + weight > maxBytes && iterator.hasNext()) {
+            Map.Entry<K, V> eldest = iterator.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            if (sketch.frequency(eldest.getKey()) >= candidateFrequency) {
+                return null;
+            }
+            victims.add(eldest.getKey());
+            freed += weigher.applyAsLong(eldest.getValue());
+        }
+        return victims;
+    }
+
+    /**
+     * Count-Min Sketch访问频率估算
+     * 每个键映射到每行的一个计数器，估算值取各行最小值；计数器上限为15，
+     * 记录次数达到采样上限后所有计数器减半，使过去的热点逐渐冷却
+     */
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int width = Integer.highestOneBit(Math.max(16, expectedEntries - 1)) << 1;
+            this.table = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = width * 10;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                int index = indexOf(hash, i);
+                if (table[i][index] < MAX_COUNT) {
+                    table[i][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                frequency = Math.min(frequency, table[i][indexOf(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void reset() {
+            for (byte[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = (byte) (row[i] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+
+        private static int spread(int hash) {
+            int h = hash * 0x45D9F3B;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.imagehosting.common.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 三元组子串索引
+ * 文本按连续3个字符切分，每个三元组对应一个按内部文档号升序的int倒排表。
+ * 查询时对关键字所有三元组的倒排表求交集得到候选，再逐个校验是否包含关键字，结果与不区分大小写的
+ * LIKE '%关键字%' 一致；不足3个字符的关键字直接遍历文本校验。
+ * 内部文档号按写入顺序递增分配，倒排表只需追加；文档更新时重新分配文档号，旧文档号留下空洞，
+ * 空洞超过一半时整体重建。线程安全，所有操作串行执行
+ */
+public class TrigramIndex {
+
+    /**
+     * 三元组长度
+     */
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * 字段分隔符，跨字段的三元组不写入索引
+     */
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    /**
+     * 触发整体重建的最少文档号数量
+     */
+    private static final int COMPACT_MIN_DOCS = 1024;
+
+    /**
+     * 三元组到倒排表的映射，三元组的3个字符打包为一个long
+     */
+    private Map<Long, PostingList> postings = new HashMap<>();
+
+    /**
+     * 外部ID到内部文档号的映射
+     */
+    private Map<Long, Integer> docOf = new HashMap<>();
+
+    /**
+     * 内部文档号对应的外部ID
+     */
+    private long[] docIds = new long[16];
+
+    /**
+     * 内部文档号对应的小写文本，已删除的文档为null
+     */
+    private String[] docTexts = new String[16];
+
+    /**
+     * 已分配的文档号数量
+     */
+    private int docCount;
+
+    /**
+     * 写入或更新文档
+     *
+     * @param id     外部ID
+     * @param fields 参与匹配的字段，为null的字段忽略
+     */
+    public synchronized void put(long id, String... fields) {
+        removeDoc(id);
+        StringBuilder text = new StringBuilder();
+        for (String field : fields) {
+            if (field != null) {
+                if (text.length() > 0) {
+                    text.append(FIELD_SEPARATOR);
+                }
+                text.append(field.toLowerCase(Locale.ROOT));
+            }
+        }
+        addDoc(id, text.toString());
+    }
+
+    /**
+     * 删除文档
+     *
+     * @param id 外部ID
+     * @return 文档是否存在
+     */
+    public synchronized boolean remove(long id) {
+        boolean removed = removeDoc(id);
+        if (removed && docCount >= COMPACT_MIN_DOCS && docOf.size() < docCount / 2) {
+            compact();
+        }
+        return removed;
+    }
+
+    /**
+     * 查询包含关键字的文档
+     *
+     * @param keyword 关键字，不区分大小写
+     * @return 匹配的外部ID，升序排列
+     */
+    public synchronized long[] search(String keyword) {
+        String key = keyword.toLowerCase(Locale.ROOT);
+        long[] result = new long[16];
+        int count = 0;
+        if (key.length() < GRAM_LENGTH || key.indexOf(FIELD_SEPARATOR) >= 0) {
+            // 关键字过短，无法使用三元组，遍历全部文本
+            for (int doc = 0; doc < docCount; doc++) {
+                if (docTexts[doc] != null && docTexts[doc].contains(key)) {
+                    result = append(result, count++, docIds[doc]);
+                }
+            }
+        } else {
+            List<PostingList> lists = new ArrayList<>();
+            for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+                PostingList list = postings.get(gram(key, i));
+                if (list == null) {
+                    return new long[0];
+                }
+                lists.add(list);
+            }
+            // 从最短的倒排表开始，逐个在其他倒排表中二分查找
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            PostingList shortest = lists.get(0);
+            for (int i = 0; i < shortest.size; i++) {
+                int doc = shortest.values[i];
+                boolean matched = true;
+                for (int j = 1; j < lists.size() && matched; j++) {
+                    matched = lists.get(j).contains(doc);
+                }
+                // 三元组都出现不代表顺序相连，需校验原文
+                if (matched && docTexts[doc].contains(key)) {
+                    result = append(result, count++, docIds[doc]);
+                }
+            }
+        }
+        long[] ids = Arrays.copyOf(result, count);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * 获取文档数量
+     *
+     * @return 文档数量
+     */
+    public synchronized int size() {
+        return docOf.size();
+    }
+
+    /**
+     * 获取倒排表的总条目数，用于估算内存占用
+     *
+     * @return 倒排条目数
+     */
+    public synchronized long postingCount() {
+        long total = 0;
+        for (PostingList list : postings.values()) {
+            total += list.size;
+        }
+        return total;
+    }
+
+    private void addDoc(long id, String text) {
+        if (docCount == docIds.length) {
+            int capacity = docCount + (docCount >> 1);
+            docIds = Arrays.copyOf(docIds, capacity);
+            docTexts = Arrays.copyOf(docTexts, capacity);
+        }
+        int doc = docCount++;
+        docIds[doc] = id;
+        docTexts[doc] = text;
+        docOf.put(id, doc);
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            long gram = gram(text, i);
+            if (gram >= 0) {
+                postings.computeIfAbsent(gram, key -> new PostingList()).addLast(doc);
+            }
+        }
+    }
+
+    private boolean removeDoc(long id) {
+        Integer doc = docOf.remove(id);
+        if (doc == null) {
+            return false;
+        }
+        String text = docTexts[doc];
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            long gram = gram(text, i);
+            PostingList list = gram >= 0 ? postings.get(gram) : null;
+            if (list != null) {
+                list.remove(doc);
+                if (list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        docTexts[doc] = null;
+        return true;
+    }
+
+    /**
+     * 重新分配文档号，去掉已删除文档留下的空洞
+     */
+    private void compact() {
+        long[] oldIds = docIds;
+        String[] oldTexts = docTexts;
+        int oldCount = docCount;
+        postings = new HashMap<>();
+        docOf = new HashMap<>();
+        docIds = new long[Math.max(16, oldCount / 2)];
+        docTexts = new String[docIds.length];
+        docCount = 0;
+        for (int doc = 0; doc < oldCount; doc++) {
+            if (oldTexts[doc] != null) {
+                addDoc(oldIds[doc], oldTexts[doc]);
+            }
+        }
+    }
+
+    /**
+     * 把第i个字符开始的三元组打包为long，包含字段分隔符时返回-1
+     */
+    private static long gram(String text, int i) {
+        char c0 = text.charAt(i);
+        char c1 = text.charAt(i + 1);
+        char c2 = text.charAt(i + 2);
+        if (c0 == FIELD_SEPARATOR || c1 == FIELD_SEPARATOR || c2 == FIELD_SEPARATOR) {
+            return -1;
+        }
+        return ((long) c0 << 32) | ((long) c1 << 16) | c2;
+    }
+
+    private static long[] append(long[] array, int index, long value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, index << 1);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    /**
+     * 升序的int倒排表
+     */
+    private static final class PostingList {
+
+        private int[] values = new int[2];
+
+        private int size;
+
+        /**
+         * 追加文档号，文档号按分配顺序递增，同一文档重复的三元组只记录一次
+         */
+        void addLast(int doc) {
+            if (size > 0 && values[size - 1] == doc) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            values[size++] = doc;
+        }
+
+        boolean contains(int doc) {
+            return Arrays.binarySearch(values, 0, size, doc) >= 0;
+        }
+
+        void remove(int doc) {
+            int index = Arrays.binarySearch(values, 0, size, doc);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+}
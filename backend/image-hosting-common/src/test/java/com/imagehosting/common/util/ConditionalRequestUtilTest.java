@@ -0,0 +1,86 @@
+package com.imagehosting.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 条件请求与范围请求工具类测试
+ * 覆盖Range的各种写法（返回null表示忽略Range返回200，空数组表示416）以及ETag的强弱比较
+ */
+class ConditionalRequestUtilTest {
+
+    private static final long LENGTH = 100;
+
+    private static final String ETAG = ConditionalRequestUtil.strongEtag("abc");
+
+    private static final String LAST_MODIFIED = ConditionalRequestUtil.formatHttpDate(1_700_000_000_000L);
+
+    @Test
+    void parsesClosedRange() {
+        assertArrayEquals(new long[]{0, 9}, ConditionalRequestUtil.parseRange("bytes=0-9", LENGTH));
+        assertArrayEquals(new long[]{90, 99}, ConditionalRequestUtil.parseRange("bytes=90-200", LENGTH), "结束位置超出时截到末尾");
+    }
+
+    @Test
+    void parsesSuffixRange() {
+        assertArrayEquals(new long[]{90, 99}, ConditionalRequestUtil.parseRange("bytes=-10", LENGTH));
+        assertArrayEquals(new long[]{0, 99}, ConditionalRequestUtil.parseRange("bytes=-500", LENGTH), "后缀长于内容时返回全部");
+        assertArrayEquals(new long[0], ConditionalRequestUtil.parseRange("bytes=-0", LENGTH));
+        assertArrayEquals(new long[0], ConditionalRequestUtil.parseRange("bytes=-10", 0));
+    }
+
+    @Test
+    void parsesOpenRange() {
+        assertArrayEquals(new long[]{10, 99}, ConditionalRequestUtil.parseRange("bytes=10-", LENGTH));
+        assertArrayEquals(new long[]{99, 99}, ConditionalRequestUtil.parseRange("bytes=99-", LENGTH));
+    }
+
+    @Test
+    void unsatisfiableStartReturnsEmptyRange() {
+        assertArrayEquals(new long[0], ConditionalRequestUtil.parseRange("bytes=100-", LENGTH));
+        assertArrayEquals(new long[0], ConditionalRequestUtil.parseRange("bytes=150-200", LENGTH));
+    }
+
+    @Test
+    void multipleOrMalformedRangesFallBackToFullContent() {
+        assertNull(ConditionalRequestUtil.parseRange("bytes=0-9,20-29", LENGTH));
+        assertNull(ConditionalRequestUtil.parseRange("bytes=-5, 0-1", LENGTH));
+        assertNull(ConditionalRequestUtil.parseRange("bytes=9-0", LENGTH));
+        assertNull(ConditionalRequestUtil.parseRange("bytes=a-b", LENGTH));
+        assertNull(ConditionalRequestUtil.parseRange("items=0-9", LENGTH));
+        assertNull(ConditionalRequestUtil.parseRange(null, LENGTH));
+    }
+
+    @Test
+    void ifNoneMatchUsesWeakComparison() {
+        assertTrue(ConditionalRequestUtil.matchesIfNoneMatch("\"abc\"", ETAG));
+        assertTrue(ConditionalRequestUtil.matchesIfNoneMatch("W/\"abc\"", ETAG));
+        assertTrue(ConditionalRequestUtil.matchesIfNoneMatch("\"abc\"", "W/\"abc\""));
+        assertTrue(ConditionalRequestUtil.matchesIfNoneMatch("\"xyz\", W/\"abc\"", ETAG));
+        assertTrue(ConditionalRequestUtil.matchesIfNoneMatch("*", ETAG));
+        assertFalse(ConditionalRequestUtil.matchesIfNoneMatch("\"xyz\"", ETAG));
+        assertFalse(ConditionalRequestUtil.matchesIfNoneMatch("\"abc\"", null));
+        assertFalse(ConditionalRequestUtil.matchesIfNoneMatch(null, ETAG));
+    }
+
+    @Test
+    void ifRangeUsesStrongComparison() {
+        assertTrue(ConditionalRequestUtil.matchesIfRange(null, ETAG, LAST_MODIFIED));
+        assertTrue(ConditionalRequestUtil.matchesIfRange("\"abc\"", ETAG, LAST_MODIFIED));
+        assertFalse(ConditionalRequestUtil.matchesIfRange("W/\"abc\"", ETAG, LAST_MODIFIED), "弱ETag不能用于If-Range");
+        assertFalse(ConditionalRequestUtil.matchesIfRange("\"abc\"", "W/\"abc\"", LAST_MODIFIED), "当前ETag为弱ETag时不匹配");
+    }
+
+    @Test
+    void ifRangeMismatchIgnoresRange() {
+        assertFalse(ConditionalRequestUtil.matchesIfRange("\"xyz\"", ETAG, LAST_MODIFIED));
+        assertFalse(ConditionalRequestUtil.matchesIfRange("\"abc\"", null, LAST_MODIFIED));
+        assertTrue(ConditionalRequestUtil.matchesIfRange(LAST_MODIFIED, ETAG, LAST_MODIFIED));
+        assertFalse(ConditionalRequestUtil.matchesIfRange(ConditionalRequestUtil.formatHttpDate(1_700_000_001_000L), ETAG, LAST_MODIFIED));
+        assertFalse(ConditionalRequestUtil.matchesIfRange(LAST_MODIFIED, ETAG, null));
+    }
+}
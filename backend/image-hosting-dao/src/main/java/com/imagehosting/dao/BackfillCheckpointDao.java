@@ -0,0 +1,26 @@
+package com.imagehosting.dao;
+
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 回填任务进度数据访问接口
+ */
+public interface BackfillCheckpointDao {
+
+    /**
+     * 查询任务已处理的最大ID
+     *
+     * @param taskName 任务名称
+     * @return 已处理的最大ID，任务未开始时返回null
+     */
+    Long findLastId(@Param("taskName") String taskName);
+
+    /**
+     * 保存任务进度，记录不存在时插入
+     *
+     * @param taskName 任务名称
+     * @param lastId   已处理的最大ID
+     * @return 影响行数
+     */
+    int saveLastId(@Param("taskName") String taskName, @Param("lastId") Long lastId);
+}
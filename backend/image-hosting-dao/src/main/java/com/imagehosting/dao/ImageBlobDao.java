@@ -0,0 +1,69 @@
+package com.imagehosting.dao;
+
+import com.imagehosting.model.entity.ImageBlob;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 图片内容块数据访问接口
+ */
+public interface ImageBlobDao {
+
+    /**
+     * 插入内容块并持有一个引用，SHA-256已存在时只将其引用计数加一
+     *
+     * @param imageBlob 内容块
+     * @return 影响行数
+     */
+    int insertOrIncrementRef(ImageBlob imageBlob);
+
+    /**
+     * 根据SHA-256查询内容块
+     *
+     * @param sha256 SHA-256值
+     * @return 内容块，不存在则返回null
+     */
+    ImageBlob findBySha256(@Param("sha256") String sha256);
+
+    /**
+     * 根据ID查询内容块
+     *
+     * @param id 内容块ID
+     * @return 内容块，不存在则返回null
+     */
+    ImageBlob findById(@Param("id") Long id);
+
+    /**
+     * 对仍被引用的内容块加一个引用，引用计数为零（正在回收）时不修改
+     *
+     * @param id 内容块ID
+     * @return 影响行数，成功返回1
+     */
+    int incrementRefIfReferenced(@Param("id") Long id);
+
+    /**
+     * 按ID顺序分页查询内容块的SHA-256，用于构建摘要索引
+     *
+     * @param afterId 上一页最后一条的ID
+     * @param limit   每页数量
+     * @return 内容块列表（只包含id和sha256）
+     */
+    List<ImageBlob> findSha256After(@Param("afterId") Long afterId, @Param("limit") Integer limit);
+
+    /**
+     * 引用计数减一
+     *
+     * @param id 内容块ID
+     * @return 影响行数
+     */
+    int decrementRef(@Param("id") Long id);
+
+    /**
+     * 删除不再被引用的内容块，引用计数大于零时不删除
+     *
+     * @param id 内容块ID
+     * @return 影响行数，删除成功返回1
+     */
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
@@ -1,10 +1,13 @@
 package com.imagehosting.dao;
 
 import com.imagehosting.model.entity.Image;
+import com.imagehosting.model.dto.ImageQueryDTO;
 import com.imagehosting.model.dto.ImageStatDTO;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 图片数据访问接口
@@ -31,12 +34,88 @@ public interface ImageDao {
      */
     int update(Image image);
 
+    /**
+     * 回填异步上传处理结果
+     * 写入存储路径、内容块和元数据并将状态置为可用，只对处理中且未删除的图片生效
+     *
+     * @param image 包含处理结果的图片对象
+     * @return 影响行数，成功更新返回1
+     */
+    int updateProcessed(Image image);
+
+    /**
+     * 更新图片处理状态
+     *
+     * @param id     图片ID
+     * @param status 处理状态
+     * @return 影响行数
+     */
+    int updateStatus(@Param("id") Long id, @Param("status") Integer status);
+
+    /**
+     * 回填缩略图路径
+     * 只对未删除且尚未生成缩略图的图片生效，重复生成时不会覆盖已有路径
+     *
+     * @param id            图片ID
+     * @param thumbnailPath 缩略图存储路径
+     * @param previewPath   预览图存储路径
+     * @return 影响行数，成功更新返回1
+     */
+    int updateThumbnails(@Param("id") Long id, @Param("thumbnailPath") String thumbnailPath, @Param("previewPath") String previewPath);
+
+    /**
+     * 按ID顺序查询尚未生成缩略图的图片ID
+     * 用于缩略图回填，只返回可用且未删除的图片
+     *
+     * @param afterId 起始ID（不含）
+     * @param limit   最大数量
+     * @return 图片ID列表
+     */
+    List<Long> findIdsWithoutThumbnails(@Param("afterId") Long afterId, @Param("limit") Integer limit);
+
+    /**
+     * 回填感知哈希
+     *
+     * @param id    图片ID
+     * @param phash 64位感知哈希
+     * @return 影响行数，图片已删除时返回0
+     */
+    int updatePhash(@Param("id") Long id, @Param("phash") Long phash);
+
+    /**
+     * 按ID顺序查询尚未计算感知哈希的图片ID
+     * 用于感知哈希回填，只返回可用且未删除的图片
+     *
+     * @param afterId 起始ID（不含）
+     * @param limit   最大数量
+     * @return 图片ID列表
+     */
+    List<Long> findIdsWithoutPhash(@Param("afterId") Long afterId, @Param("limit") Integer limit);
+
+    /**
+     * 按ID顺序读取未删除图片的ID、用户ID和感知哈希
+     * 用于重建相似图片索引，只返回已计算感知哈希的图片
+     *
+     * @param afterId 起始ID（不含）
+     * @param limit   最大数量
+     * @return 图片列表，只填充上述字段
+     */
+    List<Image> findPhashEntries(@Param("afterId") Long afterId, @Param("limit") Integer limit);
+
+    /**
+     * 根据一组图片ID查询未删除的图片
+     *
+     * @param ids 图片ID列表，不能为空
+     * @return 图片列表，顺序不保证与ID列表一致
+     */
+    List<Image> findByIds(@Param("ids") List<Long> ids);
+
     /**
      * 删除图片（逻辑删除）
-     * 将图片标记为已删除状态，不实际删除数据
+     * 将图片标记为已删除状态，不实际删除数据；只更新未删除的记录，并发删除同一图片时只有一个能成功
      *
      * @param id 图片ID
-     * @return 影响行数，成功删除返回1
+     * @return 影响行数，成功删除返回1，图片已被删除时返回0
      */
     int delete(Long id);
 
@@ -59,12 +138,64 @@ public interface ImageDao {
      */
     Image findByUserIdAndMd5(@Param("userId") Long userId, @Param("md5") String md5);
 
+    /**
+     * 批量插入图片
+     * 使用单条多行INSERT写入，插入后回填各记录的自增ID
+     *
+     * @param images 图片实体列表
+     * @return 影响行数
+     */
+    int batchInsert(@Param("images") List<Image> images);
+
+    /**
+     * 根据用户ID和一组MD5查询未删除的图片
+     * 用于批量上传时一次性完成去重检查
+     *
+     * @param userId  用户ID
+     * @param md5List MD5列表
+     * @return 图片列表
+     */
+    List<Image> findByUserIdAndMd5List(@Param("userId") Long userId, @Param("md5List") List<String> md5List);
+
+    /**
+     * 根据用户ID和一组图片ID查询未删除的图片
+     * 不属于该用户或已删除的图片不会返回
+     *
+     * @param userId 用户ID
+     * @param ids    图片ID列表
+     * @return 图片列表，顺序不保证与ID列表一致
+     */
+    List<Image> findByUserIdAndIds(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+
+    /**
+     * 按ID顺序查询用户未删除的图片
+     * 用于删除用户前逐批清理其图片
+     *
+     * @param userId  用户ID
+     * @param afterId 起始ID（不含）
+     * @param limit   最大数量
+     * @return 图片列表
+     */
+    List<Image> findByUserIdAfterId(@Param("userId") Long userId, @Param("afterId") Long afterId, @Param("limit") Integer limit);
+
+    /**
+     * 按ID顺序读取未删除图片的ID、用户ID、名称和原始文件名
+     * 用于重建搜索索引
+     *
+     * @param afterId 起始ID（不含）
+     * @param limit   最大数量
+     * @return 图片列表，只填充上述字段
+     */
+    List<Image> findSearchEntries(@Param("afterId") Long afterId, @Param("limit") Integer limit);
+
     /**
      * 根据用户ID查询图片列表
      * 查询指定用户上传的所有图片，支持分页和排序
      *
      * @param userId    用户ID
      * @param keyword   关键字，可匹配图片名称等
+     * @param ids       搜索索引匹配的图片ID，不为null时代替关键字过滤
+     * @param filter    元数据筛选条件，可为null
      * @param offset    分页偏移量，从0开始
      * @param limit     每页记录数
      * @param sortField 排序字段
@@ -74,12 +205,40 @@ public interface ImageDao {
     List<Image> findByUserId(
             @Param("userId") Long userId,
             @Param("keyword") String keyword,
+            @Param("ids") List<Long> ids,
+            @Param("filter") ImageQueryDTO filter,
             @Param("offset") Integer offset,
             @Param("limit") Integer limit,
             @Param("sortField") String sortField,
             @Param("sortOrder") String sortOrder
     );
 
+    /**
+     * 按游标查询用户的图片列表
+     * 按(create_time, id)排序并从游标位置之后开始读取，使用(user_id, deleted, create_time, id)索引定位，
+     * 耗时与翻页深度无关
+     *
+     * @param userId     用户ID
+     * @param keyword    关键字，可匹配图片名称等
+     * @param ids        搜索索引匹配的图片ID，不为null时代替关键字过滤
+     * @param filter     元数据筛选条件，可为null
+     * @param cursorTime 游标位置的创建时间，为空时从头开始
+     * @param cursorId   游标位置的图片ID
+     * @param ascending  是否升序
+     * @param limit      读取记录数
+     * @return 图片列表
+     */
+    List<Image> findByUserIdAfterCursor(
+            @Param("userId") Long userId,
+            @Param("keyword") String keyword,
+            @Param("ids") List<Long> ids,
+            @Param("filter") ImageQueryDTO filter,
+            @Param("cursorTime") LocalDateTime cursorTime,
+            @Param("cursorId") Long cursorId,
+            @Param("ascending") boolean ascending,
+            @Param("limit") Integer limit
+    );
+
     /**
      * 根据用户ID统计图片数量
      * 统计指定用户上传的图片总数
@@ -91,13 +250,39 @@ public interface ImageDao {
     Long countByUserId(@Param("userId") Long userId, @Param("keyword") String keyword);
 
     /**
-     * 增加访问次数
-     * 图片被访问时，增加其访问计数器
+     * 统计用户的图片数量，最多统计到limit条
+     * 用于分页总数，结果过多时只确认超过上限而不完整扫描
      *
-     * @param id 图片ID
-     * @return 影响行数，成功更新返回1
+     * @param userId  用户ID
+     * @param keyword 关键字，可匹配图片名称等
+     * @param ids     搜索索引匹配的图片ID，不为null时代替关键字过滤
+     * @param filter  元数据筛选条件，可为null
+     * @param limit   统计上限
+     * @return 图片数量，不超过limit
+     */
+    Long countByUserIdUpTo(@Param("userId") Long userId, @Param("keyword") String keyword, @Param("ids") List<Long> ids,
+                           @Param("filter") ImageQueryDTO filter, @Param("limit") Integer limit);
+
+    /**
+     * 获取用户图片计数查询的执行计划，用于估算记录数
+     *
+     * @param userId  用户ID
+     * @param keyword 关键字
+     * @param ids     搜索索引匹配的图片ID，不为null时代替关键字过滤
+     * @param filter  元数据筛选条件，可为null
+     * @return EXPLAIN结果
+     */
+    List<Map<String, Object>> explainCountByUserId(@Param("userId") Long userId, @Param("keyword") String keyword,
+                                                   @Param("ids") List<Long> ids, @Param("filter") ImageQueryDTO filter);
+
+    /**
+     * 批量增加访问次数
+     * 将内存中累计的访问增量用一条UPDATE ... CASE语句写入多张图片
+     *
+     * @param deltas 图片ID到访问增量的映射
+     * @return 影响行数
      */
-    int incrementAccessCount(Long id);
+    int batchIncrementAccessCount(@Param("deltas") Map<Long, Long> deltas);
     
     /**
      * 查询所有图片列表（管理员用）
@@ -122,6 +307,23 @@ public interface ImageDao {
      * @return 图片数量
      */
     Long countAllImages(@Param("userId") Long userId);
+
+    /**
+     * 统计所有图片数量（管理员用），最多统计到limit条
+     *
+     * @param userId 用户ID（可选），为null时统计所有用户的图片
+     * @param limit  统计上限
+     * @return 图片数量，不超过limit
+     */
+    Long countAllImagesUpTo(@Param("userId") Long userId, @Param("limit") Integer limit);
+
+    /**
+     * 获取所有图片计数查询的执行计划，用于估算记录数
+     *
+     * @param userId 用户ID（可选）
+     * @return EXPLAIN结果
+     */
+    List<Map<String, Object>> explainCountAllImages(@Param("userId") Long userId);
     
     /**
      * 统计总存储空间大小
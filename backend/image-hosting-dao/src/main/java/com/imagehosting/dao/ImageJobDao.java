@@ -0,0 +1,88 @@
+package com.imagehosting.dao;
+
+import com.imagehosting.model.entity.ImageJob;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 图片后台任务数据访问接口
+ */
+public interface ImageJobDao {
+
+    /**
+     * 插入任务
+     *
+     * @param imageJob 任务
+     * @return 影响行数
+     */
+    int insert(ImageJob imageJob);
+
+    /**
+     * 查询可执行的任务：到期的待执行任务，以及租约已过期的执行中任务
+     *
+     * @param now   当前时间
+     * @param limit 最大数量
+     * @return 任务列表
+     */
+    List<ImageJob> findRunnable(@Param("now") LocalDateTime now, @Param("limit") Integer limit);
+
+    /**
+     * 领取任务，通过条件更新保证同一任务只会被一个节点领取，领取时执行次数加一
+     *
+     * @param id          任务ID
+     * @param lockedBy    执行节点
+     * @param lockedUntil 租约到期时间
+     * @param now         当前时间
+     * @return 影响行数，领取成功返回1
+     */
+    int claim(@Param("id") Long id, @Param("lockedBy") String lockedBy,
+              @Param("lockedUntil") LocalDateTime lockedUntil, @Param("now") LocalDateTime now);
+
+    /**
+     * 标记任务成功
+     * 只在任务仍由本次执行持有时更新，租约过期后被重新领取的任务不受影响
+     *
+     * @param id       任务ID
+     * @param workerId 领取任务的节点标识
+     * @param attempts 领取后的执行次数，用于区分同一节点的不同次执行
+     * @return 影响行数，任务已不由本次执行持有时返回0
+     */
+    int markSucceeded(@Param("id") Long id, @Param("workerId") String workerId, @Param("attempts") int attempts);
+
+    /**
+     * 标记任务待重试
+     * 只在任务仍由本次执行持有时更新
+     *
+     * @param id          任务ID
+     * @param workerId    领取任务的节点标识
+     * @param attempts    领取后的执行次数，用于区分同一节点的不同次执行
+     * @param nextRunTime 下次执行时间
+     * @param lastError   错误信息
+     * @return 影响行数，任务已不由本次执行持有时返回0
+     */
+    int markRetry(@Param("id") Long id, @Param("workerId") String workerId, @Param("attempts") int attempts,
+                  @Param("nextRunTime") LocalDateTime nextRunTime, @Param("lastError") String lastError);
+
+    /**
+     * 标记任务最终失败
+     * 只在任务仍由本次执行持有时更新
+     *
+     * @param id        任务ID
+     * @param workerId  领取任务的节点标识
+     * @param attempts  领取后的执行次数，用于区分同一节点的不同次执行
+     * @param lastError 错误信息
+     * @return 影响行数，任务已不由本次执行持有时返回0
+     */
+    int markFailed(@Param("id") Long id, @Param("workerId") String workerId, @Param("attempts") int attempts,
+                   @Param("lastError") String lastError);
+
+    /**
+     * 查询图片最近的一个任务
+     *
+     * @param imageId 图片ID
+     * @return 任务，不存在则返回null
+     */
+    ImageJob findLatestByImageId(@Param("imageId") Long imageId);
+}
@@ -34,6 +34,15 @@ public interface ProjectImageDao {
      */
     ProjectImage findByProjectIdAndImageId(@Param("projectId") Long projectId, @Param("imageId") Long imageId);
 
+    /**
+     * 查询给定图片中已关联到项目的图片ID
+     *
+     * @param projectId 项目ID
+     * @param imageIds  图片ID列表
+     * @return 已关联的图片ID列表
+     */
+    List<Long> findExistingImageIds(@Param("projectId") Long projectId, @Param("imageIds") List<Long> imageIds);
+
     /**
      * 根据项目ID查询项目图片关联列表
      *
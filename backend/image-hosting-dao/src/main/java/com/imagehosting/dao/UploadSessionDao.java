@@ -0,0 +1,81 @@
+package com.imagehosting.dao;
+
+import com.imagehosting.model.entity.UploadSession;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 上传会话DAO接口
+ */
+public interface UploadSessionDao {
+
+    /**
+     * 插入上传会话
+     *
+     * @param session 上传会话
+     * @return 影响行数
+     */
+    int insert(UploadSession session);
+
+    /**
+     * 根据会话标识查询
+     *
+     * @param uploadId 会话标识
+     * @return 上传会话，不存在则返回null
+     */
+    UploadSession findByUploadId(@Param("uploadId") String uploadId);
+
+    /**
+     * 占用会话用于完成上传：仅当会话处于上传中时改为处理中
+     * 并发的完成请求只有一个能占用成功
+     *
+     * @param id 会话ID
+     * @return 影响行数，为0表示会话已完成或正被其他请求处理
+     */
+    int claimForCompletion(@Param("id") Long id);
+
+    /**
+     * 完成上传失败时释放占用，会话回到上传中，客户端可以重试
+     *
+     * @param id 会话ID
+     * @return 影响行数
+     */
+    int releaseClaim(@Param("id") Long id);
+
+    /**
+     * 将已占用的会话标记为已完成
+     *
+     * @param id      会话ID
+     * @param imageId 生成的图片ID
+     * @return 影响行数
+     */
+    int markCompleted(@Param("id") Long id, @Param("imageId") Long imageId);
+
+    /**
+     * 延长会话过期时间
+     *
+     * @param id         会话ID
+     * @param expireTime 新的过期时间
+     * @return 影响行数
+     */
+    int updateExpireTime(@Param("id") Long id, @Param("expireTime") LocalDateTime expireTime);
+
+    /**
+     * 查询已过期的会话
+     *
+     * @param now   当前时间
+     * @param limit 最大返回数量
+     * @return 过期会话列表
+     */
+    List<UploadSession> findExpired(@Param("now") LocalDateTime now, @Param("limit") Integer limit);
+
+    /**
+     * 删除会话
+     *
+     * @param id 会话ID
+     * @return 影响行数
+     */
+    int delete(@Param("id") Long id);
+}
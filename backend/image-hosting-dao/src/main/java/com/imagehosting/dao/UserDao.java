@@ -4,6 +4,7 @@ import com.imagehosting.model.entity.User;
 import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 用户数据访问接口
@@ -104,6 +105,37 @@ public interface UserDao {
             @Param("status") Integer status
     );
 
+    /**
+     * 统计符合条件的用户数，最多统计到limit条
+     * 用于分页总数，结果过多时只确认超过上限而不完整扫描
+     *
+     * @param keyword  关键字，可匹配用户名、昵称、邮箱等
+     * @param roleType 角色类型，可为null表示不限制角色
+     * @param status   状态，可为null表示不限制状态
+     * @param limit    统计上限
+     * @return 符合条件的用户数，不超过limit
+     */
+    Long countUpTo(
+            @Param("keyword") String keyword,
+            @Param("roleType") Integer roleType,
+            @Param("status") Integer status,
+            @Param("limit") Integer limit
+    );
+
+    /**
+     * 获取用户计数查询的执行计划，用于估算记录数
+     *
+     * @param keyword  关键字
+     * @param roleType 角色类型
+     * @param status   状态
+     * @return EXPLAIN结果
+     */
+    List<Map<String, Object>> explainCount(
+            @Param("keyword") String keyword,
+            @Param("roleType") Integer roleType,
+            @Param("status") Integer status
+    );
+
     /**
      * 查询总用户数
      * 统计系统中的所有用户数量
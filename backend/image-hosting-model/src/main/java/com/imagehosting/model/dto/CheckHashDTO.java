@@ -0,0 +1,30 @@
+package com.imagehosting.model.dto;
+
+import lombok.Data;
+
+/**
+ * 按摘要检查图片是否已存在（秒传）DTO
+ */
+@Data
+public class CheckHashDTO {
+
+    /**
+     * 文件的SHA-256值（十六进制），用于跨用户复用已存储的内容
+     */
+    private String sha256;
+
+    /**
+     * 文件的MD5值（十六进制），用于检查本人是否已上传过
+     */
+    private String md5;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long size;
+
+    /**
+     * 原始文件名
+     */
+    private String fileName;
+}
@@ -0,0 +1,24 @@
+package com.imagehosting.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 计数结果DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountResultDTO {
+
+    /**
+     * 总数
+     */
+    private Long total;
+
+    /**
+     * 是否精确，为false时总数是根据执行计划估算的值
+     */
+    private Boolean exact;
+}
@@ -0,0 +1,38 @@
+package com.imagehosting.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 图片元数据DTO
+ * 由图片头部解析得到，不包含像素数据
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageMetadataDTO {
+
+    /**
+     * 图片宽度（存储方向，未按EXIF方向旋转）
+     */
+    private Integer width;
+
+    /**
+     * 图片高度（存储方向，未按EXIF方向旋转）
+     */
+    private Integer height;
+
+    /**
+     * 媒体类型，如image/jpeg、image/png等
+     */
+    private String mimeType;
+
+    /**
+     * EXIF方向（1-8），没有方向信息时为1
+     */
+    @Builder.Default
+    private Integer orientation = 1;
+}
@@ -4,6 +4,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
 
 /**
  * 图片查询DTO
@@ -32,7 +36,64 @@ public class ImageQueryDTO {
     private String keyword;
     
     /**
-     * 排序字段
+     * 媒体类型，如image/png，多个时匹配其中任意一个
+     */
+    private List<String> mimeTypes;
+
+    /**
+     * 最小文件大小（字节）
+     */
+    private Long minSize;
+
+    /**
+     * 最大文件大小（字节）
+     */
+    private Long maxSize;
+
+    /**
+     * 最小宽度（像素）
+     */
+    private Integer minWidth;
+
+    /**
+     * 最大宽度（像素）
+     */
+    private Integer maxWidth;
+
+    /**
+     * 最小高度（像素）
+     */
+    private Integer minHeight;
+
+    /**
+     * 最大高度（像素）
+     */
+    private Integer maxHeight;
+
+    /**
+     * 最小宽高比（宽/高）
+     */
+    private Double minAspectRatio;
+
+    /**
+     * 最大宽高比（宽/高）
+     */
+    private Double maxAspectRatio;
+
+    /**
+     * 上传日期起始（含）
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    /**
+     * 上传日期截止（含）
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    /**
+     * 排序字段（create_time、access_count、size、name）
      */
     @Builder.Default
     private String sortField = "create_time";
@@ -42,4 +103,15 @@ public class ImageQueryDTO {
      */
     @Builder.Default
     private String sortOrder = "desc";
+
+    /**
+     * 游标分页的游标，为空时从第一页开始，由上一页结果的nextCursor给出
+     */
+    private String cursor;
+
+    /**
+     * 是否统计总数，无限滚动等不需要总数的场景可设为false
+     */
+    @Builder.Default
+    private Boolean withTotal = true;
 } 
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.imagehosting.model.dto;
+
+import lombok.Data;
+
+/**
+ * 初始化上传DTO
+ * 分片上传和预签名直传共用
+ */
+@Data
+public class InitUploadDTO {
+
+    /**
+     * 原始文件名
+     */
+    private String fileName;
+
+    /**
+     * 媒体类型
+     */
+    private String contentType;
+
+    /**
+     * 文件总大小（字节）
+     */
+    private Long fileSize;
+
+    /**
+     * 分片大小（字节），为空时使用服务端默认值
+     */
+    private Integer chunkSize;
+
+    /**
+     * 文件内容的MD5（十六进制），预签名直传时必填；分片上传时可选，用于完成时跳过本人已有的重复图片
+     */
+    private String md5;
+}
@@ -0,0 +1,40 @@
+package com.imagehosting.model.dto;
+
+import lombok.Data;
+
+/**
+ * 图片下载请求中的条件请求头和签名参数DTO
+ */
+@Data
+public class ServeRequestDTO {
+
+    /**
+     * If-None-Match请求头
+     */
+    private String ifNoneMatch;
+
+    /**
+     * If-Modified-Since请求头
+     */
+    private String ifModifiedSince;
+
+    /**
+     * Range请求头
+     */
+    private String range;
+
+    /**
+     * If-Range请求头
+     */
+    private String ifRange;
+
+    /**
+     * 签名URL中的过期时间戳
+     */
+    private Long expires;
+
+    /**
+     * 签名URL中的签名
+     */
+    private String sign;
+}
@@ -42,4 +42,9 @@ public class UserQueryDTO {
      * 状态（0正常，1禁用）
      */
     private Integer status;
+
+    /**
+     * 是否统计总数，无限滚动等不需要总数的场景可设为false
+     */
+    private Boolean withTotal = true;
 } 
\ No newline at end of file
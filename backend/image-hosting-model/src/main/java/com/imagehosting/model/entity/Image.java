@@ -48,12 +48,30 @@ public class Image {
      */
     private String path;
     
+    /**
+     * 内容块ID
+     * 关联image_blob表，相同内容的图片共享同一个存储对象
+     */
+    private Long blobId;
+    
     /**
      * 访问URL
      * 图片的公开访问地址
      */
     private String url;
     
+    /**
+     * 缩略图存储路径
+     * 上传后生成的固定尺寸缩略图，尚未生成时为空
+     */
+    private String thumbnailPath;
+    
+    /**
+     * 预览图存储路径
+     * 上传后生成的固定尺寸预览图，尚未生成时为空
+     */
+    private String previewPath;
+    
     /**
      * MD5值
      * 图片文件的MD5哈希值，用于去重判断
@@ -89,6 +107,18 @@ public class Image {
      * 记录图片被访问的总次数
      */
     private Long accessCount;
+
+    /**
+     * 感知哈希
+     * 64位dHash，内容相近的图片汉明距离小，生成缩略图时计算
+     */
+    private Long phash;
+    
+    /**
+     * 处理状态
+     * 0-处理中（异步上传尚未完成），1-可用，2-处理失败
+     */
+    private Integer status;
     
     /**
      * 删除标志
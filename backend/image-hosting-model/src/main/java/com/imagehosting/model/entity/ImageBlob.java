@@ -0,0 +1,75 @@
+package com.imagehosting.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图片内容块实体类
+ * 按SHA-256对图片内容寻址，相同内容只存储一份，由多个图片记录通过引用计数共享
+ * 对应数据库中的image_blob表
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageBlob {
+
+    /**
+     * ID
+     */
+    private Long id;
+
+    /**
+     * SHA-256值，内容的唯一标识
+     */
+    private String sha256;
+
+    /**
+     * MD5值
+     */
+    private String md5;
+
+    /**
+     * 存储路径
+     */
+    private String path;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long size;
+
+    /**
+     * 图片宽度
+     */
+    private Integer width;
+
+    /**
+     * 图片高度
+     */
+    private Integer height;
+
+    /**
+     * 媒体类型
+     */
+    private String mimeType;
+
+    /**
+     * 引用计数，即引用该内容块的未删除图片数
+     */
+    private Integer refCount;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
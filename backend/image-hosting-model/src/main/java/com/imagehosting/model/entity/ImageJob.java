@@ -0,0 +1,85 @@
+package com.imagehosting.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图片后台任务实体类
+ * 持久化的上传后处理任务，由后台工作线程领取执行，失败后按退避策略重试
+ * 对应数据库中的image_job表
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageJob {
+
+    /**
+     * ID
+     */
+    private Long id;
+
+    /**
+     * 图片ID
+     */
+    private Long imageId;
+
+    /**
+     * 任务类型，决定由哪个处理器执行
+     */
+    private String jobType;
+
+    /**
+     * 任务参数
+     */
+    private String payload;
+
+    /**
+     * 状态：0-待执行，1-执行中，2-成功，3-失败
+     */
+    private Integer status;
+
+    /**
+     * 已执行次数
+     */
+    private Integer attempts;
+
+    /**
+     * 最大执行次数
+     */
+    private Integer maxAttempts;
+
+    /**
+     * 下次执行时间
+     */
+    private LocalDateTime nextRunTime;
+
+    /**
+     * 执行节点
+     */
+    private String lockedBy;
+
+    /**
+     * 执行租约到期时间，到期仍未完成的任务视为执行节点已崩溃，可被重新领取
+     */
+    private LocalDateTime lockedUntil;
+
+    /**
+     * 最近一次错误信息
+     */
+    private String lastError;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,99 @@
+package com.imagehosting.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 上传会话实体类
+ * 记录分片上传或预签名直传的进度信息，对应数据库中的upload_session表
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+
+    /**
+     * 主键ID
+     */
+    private Long id;
+
+    /**
+     * 上传会话标识，返回给客户端
+     */
+    private String uploadId;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 原始文件名
+     */
+    private String fileName;
+
+    /**
+     * 媒体类型
+     */
+    private String contentType;
+
+    /**
+     * 文件总大小（字节）
+     */
+    private Long fileSize;
+
+    /**
+     * 分片大小（字节），最后一片可以更小
+     */
+    private Integer chunkSize;
+
+    /**
+     * 分片总数
+     */
+    private Integer totalChunks;
+
+    /**
+     * 上传方式：0-分片上传，1-预签名直传
+     */
+    private Integer uploadType;
+
+    /**
+     * 预签名直传的存储路径，客户端直接上传到该路径
+     */
+    private String objectPath;
+
+    /**
+     * 客户端声明的文件MD5，预签名直传完成时用于校验，分片上传完成时用于跳过重复图片
+     */
+    private String fileMd5;
+
+    /**
+     * 状态：0-上传中，1-已完成，2-处理中（完成请求正在合并或校验）
+     */
+    private Integer status;
+
+    /**
+     * 完成后生成的图片ID
+     */
+    private Long imageId;
+
+    /**
+     * 过期时间，过期后会话和已上传分片会被清理
+     */
+    private LocalDateTime expireTime;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,46 @@
+package com.imagehosting.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量上传中单个文件的处理结果VO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchUploadItemVO {
+
+    /**
+     * 文件在本次请求中的序号
+     */
+    private Integer index;
+
+    /**
+     * 原始文件名
+     */
+    private String fileName;
+
+    /**
+     * 是否处理成功
+     */
+    private Boolean success;
+
+    /**
+     * 是否与已有图片重复（重复时返回已有图片）
+     */
+    private Boolean duplicate;
+
+    /**
+     * 上传结果，成功时有值
+     */
+    private ImageUploadVO image;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+}
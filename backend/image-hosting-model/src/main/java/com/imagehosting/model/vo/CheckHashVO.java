@@ -0,0 +1,26 @@
+package com.imagehosting.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 按摘要检查图片结果VO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckHashVO {
+
+    /**
+     * 内容是否已存在，存在时无需再上传文件
+     */
+    private Boolean exists;
+
+    /**
+     * 已存在时返回的图片信息
+     */
+    private ImageUploadVO image;
+}
@@ -0,0 +1,39 @@
+package com.imagehosting.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果VO
+ * 不返回总数和页码，客户端用nextCursor请求下一页
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageVO<T> {
+
+    /**
+     * 数据列表
+     */
+    private List<T> list;
+
+    /**
+     * 每页大小
+     */
+    private Integer size;
+
+    /**
+     * 下一页的游标，没有更多数据时为空
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private Boolean hasMore;
+}
@@ -0,0 +1,26 @@
+package com.imagehosting.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 衍生图片（缩放后的图片）VO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DerivativeImageVO {
+
+    /**
+     * 图片数据
+     */
+    private byte[] data;
+
+    /**
+     * 媒体类型
+     */
+    private String contentType;
+}
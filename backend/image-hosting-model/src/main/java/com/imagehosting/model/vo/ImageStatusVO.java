@@ -0,0 +1,46 @@
+package com.imagehosting.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 图片处理状态VO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageStatusVO {
+
+    /**
+     * 图片ID
+     */
+    private Long imageId;
+
+    /**
+     * 处理状态（0处理中，1可用，2处理失败）
+     */
+    private Integer status;
+
+    /**
+     * 后台任务已执行次数
+     */
+    private Integer attempts;
+
+    /**
+     * 后台任务最大执行次数
+     */
+    private Integer maxAttempts;
+
+    /**
+     * 最近一次错误信息
+     */
+    private String lastError;
+
+    /**
+     * 访问URL，可用时有值
+     */
+    private String url;
+}
@@ -43,4 +43,9 @@ public class ImageUploadVO {
      * 图片高度
      */
     private Integer height;
+    
+    /**
+     * 处理状态（0处理中，1可用，2处理失败）
+     */
+    private Integer status;
 } 
\ No newline at end of file
@@ -36,6 +36,16 @@ public class ImageVO {
      */
     private String url;
     
+    /**
+     * 缩略图URL，尚未生成时为空
+     */
+    private String thumbnailUrl;
+    
+    /**
+     * 预览图URL，尚未生成时为空
+     */
+    private String previewUrl;
+    
     /**
      * 图片大小（字节）
      */
@@ -61,6 +71,11 @@ public class ImageVO {
      */
     private Long accessCount;
     
+    /**
+     * 处理状态（0处理中，1可用，2处理失败）
+     */
+    private Integer status;
+    
     /**
      * 创建时间
      */
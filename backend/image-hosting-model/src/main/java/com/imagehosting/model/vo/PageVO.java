@@ -17,9 +17,15 @@ import java.util.List;
 public class PageVO<T> {
     
     /**
-     * 总记录数
+     * 总记录数，未统计时为空
      */
     private Long total;
+
+    /**
+     * 总记录数是否精确，为false时total是估算值
+     */
+    @Builder.Default
+    private Boolean exact = true;
     
     /**
      * 数据列表
@@ -37,7 +43,7 @@ public class PageVO<T> {
     private Integer size;
     
     /**
-     * 总页数
+     * 总页数，未统计总数时为空
      */
     private Integer totalPages;
     
@@ -59,4 +65,25 @@ public class PageVO<T> {
                 .totalPages((int) Math.ceil((double) total / size))
                 .build();
     }
+
+    /**
+     * 创建分页结果，总记录数可能是估算值或未统计
+     *
+     * @param list  数据列表
+     * @param total 总记录数，为null时不返回总数和总页数
+     * @param exact 总记录数是否精确
+     * @param page  当前页码
+     * @param size  每页大小
+     * @return 分页结果
+     */
+    public static <T> PageVO<T> of(List<T> list, Long total, boolean exact, Integer page, Integer size) {
+        return PageVO.<T>builder()
+                .list(list)
+                .total(total)
+                .exact(exact)
+                .page(page)
+                .size(size)
+                .totalPages(total != null ? (int) Math.ceil((double) total / size) : null)
+                .build();
+    }
 } 
\ No newline at end of file
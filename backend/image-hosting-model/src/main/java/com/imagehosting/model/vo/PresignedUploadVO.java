@@ -0,0 +1,45 @@
+package com.imagehosting.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 预签名直传VO
+ * 客户端按给出的方法、地址和请求头把文件内容直接上传到存储，完成后再通知服务端
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadVO {
+
+    /**
+     * 上传会话标识，完成上传时使用
+     */
+    private String uploadId;
+
+    /**
+     * HTTP方法
+     */
+    private String method;
+
+    /**
+     * 预签名上传地址
+     */
+    private String uploadUrl;
+
+    /**
+     * 上传时必须携带的请求头
+     */
+    private Map<String, String> headers;
+
+    /**
+     * 过期时间，过期后上传地址失效
+     */
+    private LocalDateTime expireTime;
+}
@@ -0,0 +1,42 @@
+package com.imagehosting.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 代理图片VO
+ * 远程图片已缓存到本地，包含写响应头所需的信息和本地缓存文件
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProxyImageVO {
+
+    /**
+     * 媒体类型
+     */
+    private String contentType;
+
+    /**
+     * 内容长度（字节）
+     */
+    private Long contentLength;
+
+    /**
+     * 上游返回的ETag
+     */
+    private String etag;
+
+    /**
+     * 上游返回的Last-Modified
+     */
+    private String lastModified;
+
+    /**
+     * 本地缓存文件路径
+     */
+    private String cacheFile;
+}
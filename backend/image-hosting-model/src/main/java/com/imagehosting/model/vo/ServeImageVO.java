@@ -0,0 +1,67 @@
+package com.imagehosting.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 图片下载响应VO
+ * 包含响应状态、响应头以及需要传输的内容区间
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ServeImageVO {
+
+    /**
+     * HTTP状态码：200完整内容，206部分内容，304未修改，416范围无法满足
+     */
+    private Integer status;
+
+    /**
+     * 媒体类型
+     */
+    private String contentType;
+
+    /**
+     * 本次响应的内容长度（字节）
+     */
+    private Long contentLength;
+
+    /**
+     * ETag响应头
+     */
+    private String etag;
+
+    /**
+     * Last-Modified响应头
+     */
+    private String lastModified;
+
+    /**
+     * Content-Range响应头，仅206和416时有值
+     */
+    private String contentRange;
+
+    /**
+     * 内容起始位置
+     */
+    private Long position;
+
+    /**
+     * 存储路径，从存储服务读取时有值
+     */
+    private String storagePath;
+
+    /**
+     * 存储文件的总大小（字节），从存储服务读取时有值
+     */
+    private Long fileSize;
+
+    /**
+     * 本地缓存文件路径，从代理缓存读取时有值
+     */
+    private String cacheFile;
+}
@@ -0,0 +1,24 @@
+package com.imagehosting.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 相似图片分组VO
+ * 组内图片两两之间经由相似关系相连，第一张为代表图片
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarImageGroupVO {
+
+    /**
+     * 组内图片，distance为与代表图片的汉明距离
+     */
+    private List<SimilarImageVO> images;
+}
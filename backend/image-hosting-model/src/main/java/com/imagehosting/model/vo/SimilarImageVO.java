@@ -0,0 +1,26 @@
+package com.imagehosting.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 相似图片VO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarImageVO {
+
+    /**
+     * 图片信息
+     */
+    private ImageVO image;
+
+    /**
+     * 与查询图片的感知哈希汉明距离（0-64），越小越相似，0通常表示内容相同
+     */
+    private Integer distance;
+}
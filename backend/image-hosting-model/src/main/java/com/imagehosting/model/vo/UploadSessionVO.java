@@ -0,0 +1,54 @@
+package com.imagehosting.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 上传会话VO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionVO {
+
+    /**
+     * 上传会话标识
+     */
+    private String uploadId;
+
+    /**
+     * 分片大小（字节）
+     */
+    private Integer chunkSize;
+
+    /**
+     * 分片总数
+     */
+    private Integer totalChunks;
+
+    /**
+     * 已接收的分片序号（从0开始）
+     */
+    private List<Integer> receivedChunks;
+
+    /**
+     * 是否已完成
+     */
+    private Boolean completed;
+
+    /**
+     * 完成后生成的图片ID
+     */
+    private Long imageId;
+
+    /**
+     * 过期时间
+     */
+    private LocalDateTime expireTime;
+}
@@ -0,0 +1,28 @@
+package com.imagehosting.service;
+
+/**
+ * 图片访问计数服务接口
+ * 访问次数先在内存中累加，定期批量写入数据库，避免热门图片的行锁竞争
+ */
+public interface AccessCountService {
+
+    /**
+     * 记录一次访问
+     *
+     * @param imageId 图片ID
+     */
+    void increment(Long imageId);
+
+    /**
+     * 获取尚未写入数据库的访问增量
+     *
+     * @param imageId 图片ID
+     * @return 访问增量
+     */
+    long getPendingCount(Long imageId);
+
+    /**
+     * 将内存中累计的访问增量写入数据库
+     */
+    void flush();
+}
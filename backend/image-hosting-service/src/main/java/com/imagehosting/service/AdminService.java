@@ -59,6 +59,17 @@ public interface AdminService {
      */
     PageVO<ImageVO> getAllImageList(Integer page, Integer size, Long userId);
 
+    /**
+     * 查询所有图片列表
+     *
+     * @param page      页码
+     * @param size      每页大小
+     * @param userId    用户ID（可选）
+     * @param withTotal 是否统计总数
+     * @return 图片列表，不统计总数时total为空
+     */
+    PageVO<ImageVO> getAllImageList(Integer page, Integer size, Long userId, Boolean withTotal);
+
     /**
      * 删除图片
      *
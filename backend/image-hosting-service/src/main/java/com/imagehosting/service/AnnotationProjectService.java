@@ -39,6 +39,20 @@ public interface AnnotationProjectService {
      */
     void addImageToProject(Long projectId, List<Long> imageIds);
     
+    /**
+     * 校验当前用户是否可以管理项目（管理员或项目创建者）
+     *
+     * @param projectId 项目ID
+     */
+    void checkProjectManager(Long projectId);
+
+    /**
+     * 校验当前用户是否可以查看项目（管理员、项目创建者或项目成员）
+     *
+     * @param projectId 项目ID
+     */
+    void checkProjectMember(Long projectId);
+    
     /**
      * 添加用户到项目
      *
@@ -0,0 +1,58 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.dto.InitUploadDTO;
+import com.imagehosting.model.vo.ImageUploadVO;
+import com.imagehosting.model.vo.UploadSessionVO;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 分片上传服务接口
+ * 支持断点续传：客户端按分片上传，连接中断后查询已接收分片，只补传缺失部分
+ */
+public interface ChunkUploadService {
+
+    /**
+     * 初始化上传会话
+     *
+     * @param initUploadDTO 文件信息
+     * @return 上传会话信息，包含会话标识和分片规则
+     * @throws com.imagehosting.common.exception.BusinessException 当文件类型或大小不合法时抛出业务异常
+     */
+    UploadSessionVO initUpload(InitUploadDTO initUploadDTO);
+
+    /**
+     * 上传单个分片
+     * 分片写入暂存区前校验MD5，重复上传同一分片会覆盖之前的内容
+     *
+     * @param uploadId   上传会话标识
+     * @param chunkIndex 分片序号，从0开始
+     * @param chunk      分片内容
+     * @param chunkMd5   分片内容的MD5，为空时不校验
+     * @throws com.imagehosting.common.exception.BusinessException 当会话不存在、分片大小或MD5不匹配时抛出业务异常
+     */
+    void uploadChunk(String uploadId, Integer chunkIndex, MultipartFile chunk, String chunkMd5);
+
+    /**
+     * 查询上传会话，包含已接收的分片
+     *
+     * @param uploadId 上传会话标识
+     * @return 上传会话信息
+     * @throws com.imagehosting.common.exception.BusinessException 当会话不存在或无权访问时抛出业务异常
+     */
+    UploadSessionVO getUploadSession(String uploadId);
+
+    /**
+     * 完成上传
+     * 按顺序将所有分片以流的方式写入存储并生成图片记录
+     *
+     * @param uploadId 上传会话标识
+     * @return 图片上传结果
+     * @throws com.imagehosting.common.exception.BusinessException 当分片不完整时抛出业务异常
+     */
+    ImageUploadVO completeUpload(String uploadId);
+
+    /**
+     * 清理过期的上传会话及其暂存分片
+     */
+    void cleanExpiredSessions();
+}
@@ -0,0 +1,65 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.dto.CountResultDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分页总数缓存服务接口
+ * 按查询条件缓存列表总数，数据增删时按数据类别和归属用户失效；
+ * 结果过多时不再精确统计，改为返回执行计划估算的行数
+ */
+public interface CountCacheService {
+
+    /**
+     * 图片数据类别
+     */
+    String NAMESPACE_IMAGE = "image";
+
+    /**
+     * 用户数据类别
+     */
+    String NAMESPACE_USER = "user";
+
+    /**
+     * 获取总数
+     *
+     * @param namespace 数据类别
+     * @param scopeId   数据归属的用户ID，不限用户时为null
+     * @param queryKey  查询条件，条件相同的查询共享缓存
+     * @param counter   计数查询
+     * @return 计数结果
+     */
+    CountResultDTO count(String namespace, Long scopeId, String queryKey, Counter counter);
+
+    /**
+     * 使计数缓存失效
+     * 指定用户时同时使不限用户的计数失效；在事务中调用时，事务结束后会再次失效，避免缓存提交前的旧值
+     *
+     * @param namespace 数据类别
+     * @param scopeId   数据归属的用户ID，为null时只使不限用户的计数失效
+     */
+    void invalidate(String namespace, Long scopeId);
+
+    /**
+     * 计数查询
+     */
+    interface Counter {
+
+        /**
+         * 统计符合条件的记录数，最多统计到limit条
+         *
+         * @param limit 统计上限
+         * @return 记录数，不超过limit
+         */
+        long countUpTo(int limit);
+
+        /**
+         * 获取计数查询的执行计划，用于估算记录数
+         *
+         * @return EXPLAIN结果
+         */
+        List<Map<String, Object>> explain();
+    }
+}
@@ -0,0 +1,31 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.dto.InitUploadDTO;
+import com.imagehosting.model.vo.ImageUploadVO;
+import com.imagehosting.model.vo.PresignedUploadVO;
+
+/**
+ * 预签名直传服务接口
+ * 客户端凭短期有效的预签名地址把文件直接上传到存储，应用服务器只负责签发地址和完成后的校验登记
+ */
+public interface DirectUploadService {
+
+    /**
+     * 初始化直传，签发预签名上传地址
+     *
+     * @param initUploadDTO 文件信息，必须包含文件内容的MD5
+     * @return 预签名上传信息
+     * @throws com.imagehosting.common.exception.BusinessException 当文件类型、大小或MD5不合法时抛出业务异常
+     */
+    PresignedUploadVO initDirectUpload(InitUploadDTO initUploadDTO);
+
+    /**
+     * 完成直传
+     * 校验存储中文件的大小和MD5后生成图片记录
+     *
+     * @param uploadId 上传会话标识
+     * @return 图片上传结果
+     * @throws com.imagehosting.common.exception.BusinessException 当会话不存在、文件未上传或校验失败时抛出业务异常
+     */
+    ImageUploadVO completeDirectUpload(String uploadId);
+}
@@ -0,0 +1,24 @@
+package com.imagehosting.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 图片打包下载服务接口
+ * 把选中的图片打包为ZIP，边从存储读取边写入输出流，不使用本地临时文件
+ */
+public interface ImageArchiveService {
+
+    /**
+     * 把当前用户的一组图片打包为ZIP写入输出流
+     * 参数和权限校验在写出第一个字节之前完成，校验失败时输出流保持未写入状态；
+     * 开始写出后发生的错误以IOException抛出，此时输出的ZIP不完整
+     *
+     * @param imageIds     图片ID列表，按此顺序写入
+     * @param outputStream 输出流，通常为HTTP响应流，由调用方关闭
+     * @throws IOException 读取存储或写出失败时抛出
+     * @throws com.imagehosting.common.exception.BusinessException 当图片列表不合法、图片不存在或无权访问时抛出业务异常
+     */
+    void writeArchive(List<Long> imageIds, OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,45 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.entity.ImageBlob;
+
+/**
+ * 图片内容块服务接口
+ * 按SHA-256对图片内容去重，相同内容在存储中只保留一份，通过引用计数管理其生命周期
+ */
+public interface ImageBlobService {
+
+    /**
+     * 为刚上传到存储的内容持有一个引用
+     * 若相同内容的内容块已存在，则删除刚上传的对象并复用已有内容块；否则以刚上传的对象创建新的内容块。
+     * 需在事务中调用，事务回滚时新创建内容块对应的存储对象会被删除
+     *
+     * @param candidate 刚上传的内容（sha256、md5、path、size、宽高和媒体类型）
+     * @return 实际引用的内容块
+     */
+    ImageBlob acquire(ImageBlob candidate);
+
+    /**
+     * 按摘要对已存在的内容块持有一个引用，用于客户端不上传文件的秒传
+     * 先查询内存中的摘要布隆过滤器，确定不存在时无需访问数据库
+     *
+     * @param sha256 内容的SHA-256值
+     * @param size   内容大小（字节），需与已存储的内容一致
+     * @return 引用的内容块，不存在时返回null
+     */
+    ImageBlob acquireExisting(String sha256, long size);
+
+    /**
+     * 释放对内容块的一个引用
+     * 最后一个引用释放后删除内容块记录，并在事务提交后删除存储对象和衍生图片缓存
+     *
+     * @param blobId 内容块ID，为空时忽略
+     */
+    void release(Long blobId);
+
+    /**
+     * 从数据库重建摘要布隆过滤器
+     * 过滤器在每个实例本地维护且只增不删：其他实例新建的内容块不会写入本实例的过滤器，
+     * 已回收的内容块也一直保留，定时重建使其与数据库重新一致
+     */
+    void rebuildDigestIndex();
+}
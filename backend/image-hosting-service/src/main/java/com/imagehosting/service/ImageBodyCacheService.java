@@ -0,0 +1,29 @@
+package com.imagehosting.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 图片内容缓存服务接口
+ * 在存储服务前缓存热门图片的完整内容，后端直接输出图片时优先从内存读取
+ */
+public interface ImageBodyCacheService {
+
+    /**
+     * 获取图片内容
+     * 未命中时，只有图片足够小且访问频率足以放入缓存才会从存储读取完整内容
+     *
+     * @param storagePath 存储路径
+     * @param size        文件大小（字节）
+     * @return 只读的图片内容，不缓存时返回null，调用方应直接从存储服务读取
+     * @throws IOException 从存储读取失败时抛出
+     */
+    ByteBuffer getBody(String storagePath, long size) throws IOException;
+
+    /**
+     * 移除缓存的图片内容
+     *
+     * @param storagePath 存储路径
+     */
+    void evict(String storagePath);
+}
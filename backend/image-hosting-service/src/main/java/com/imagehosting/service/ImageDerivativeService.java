@@ -0,0 +1,50 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.vo.DerivativeImageVO;
+
+/**
+ * 衍生图片服务接口
+ * 按需生成图片的缩放和转码版本（缩略图、预览图、更小的编码格式等），生成结果按内存、磁盘两级缓存
+ */
+public interface ImageDerivativeService {
+
+    /**
+     * 获取图片的缩放和转码版本
+     * 只指定宽高之一时按原图比例计算另一个，都不指定时保持原图尺寸只做转码；不会放大原图。
+     * 原图像素数超过上限时拒绝处理。访问权限与原图下载相同，见{@link ImageUrlService#checkAccess}。
+     * 输出格式按Accept可接受的格式、是否透明和原图格式选定，不保留元数据；原图本身不转码
+     *
+     * @param imageId 图片ID
+     * @param width   目标宽度，可为空
+     * @param height  目标高度，可为空
+     * @param fit     缩放方式：contain（完整显示在目标框内，默认）、cover（填满目标框并居中裁剪）、fill（拉伸到目标尺寸）
+     * @param quality 有损格式的输出质量（1-100），为空时使用默认值
+     * @param accept  客户端的Accept请求头，为空时只输出JPEG或PNG
+     * @param expires 原图签名URL中的过期时间戳，可为空
+     * @param sign    原图签名URL中的签名，可为空
+     * @return 生成的图片数据和媒体类型
+     * @throws com.imagehosting.common.exception.BusinessException 当参数不合法、图片不存在、无权访问或生成失败时抛出业务异常
+     */
+    DerivativeImageVO getDerivative(Long imageId, Integer width, Integer height, String fit, Integer quality, String accept,
+                                    Long expires, String sign);
+
+    /**
+     * 删除内容块的衍生图片缓存（内存和磁盘），在事务提交后执行
+     * 衍生图片由引用同一内容块的图片共享，只在内容块的最后一个引用释放时调用
+     *
+     * @param blobId 内容块ID，为空时忽略
+     */
+    void deleteDerivatives(Long blobId);
+
+    /**
+     * 删除未关联内容块的图片的衍生图片缓存（内存和磁盘），在事务提交后执行
+     *
+     * @param imageId 图片ID，为空时忽略
+     */
+    void deleteImageDerivatives(Long imageId);
+
+    /**
+     * 清理磁盘缓存：总大小超过上限时按最近访问时间从旧到新删除，直到降到上限的90%
+     */
+    void sweepDiskCache();
+}
@@ -0,0 +1,35 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.entity.ImageJob;
+
+/**
+ * 图片后台任务处理器
+ * 每种任务类型对应一个处理器，注册为Spring Bean后即可被后台任务队列调度
+ */
+public interface ImageJobHandler {
+
+    /**
+     * 处理的任务类型
+     *
+     * @return 任务类型
+     */
+    String getJobType();
+
+    /**
+     * 执行任务，抛出异常时任务会按退避策略重试
+     * 同一任务可能因重试或节点崩溃而被执行多次，实现需要保证幂等
+     *
+     * @param job 任务
+     * @throws Exception 执行失败时抛出
+     */
+    void handle(ImageJob job) throws Exception;
+
+    /**
+     * 任务用尽重试次数后调用，用于标记失败状态和清理资源
+     *
+     * @param job   任务
+     * @param error 最后一次失败的原因，可能为空
+     */
+    default void onFailure(ImageJob job, Exception error) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.imagehosting.service;
+
+/**
+ * 图片后台任务服务接口
+ * 基于image_job表的持久化任务队列，任务与图片记录在同一事务中写入，由后台线程轮询领取执行
+ */
+public interface ImageJobService {
+
+    /**
+     * 轮询并领取可执行的任务，提交到后台线程池执行
+     * 包括到期的待执行任务，以及执行节点崩溃后租约过期的任务
+     */
+    void pollJobs();
+}
@@ -0,0 +1,32 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.dto.ImageMetadataDTO;
+
+import java.io.InputStream;
+
+/**
+ * 图片元数据探测服务接口
+ * 只解析图片头部获取尺寸、媒体类型和方向，不解码像素
+ */
+public interface ImageProbeService {
+
+    /**
+     * 探测图片元数据
+     * 支持PNG、JPEG、GIF、BMP、WebP，其他格式尝试使用ImageReader读取头信息
+     *
+     * @param header 图片头部字节（通常为文件的前若干KB）
+     * @param length 头部字节中的有效长度
+     * @return 图片元数据，无法识别时返回null
+     */
+    ImageMetadataDTO probe(byte[] header, int length);
+
+    /**
+     * 从完整的图片流中探测元数据
+     * 用于头部字节不足以确定尺寸的情况（如JPEG的SOF位于较大的EXIF或ICC段之后），
+     * ImageReader只读取到头信息为止，不解码像素
+     *
+     * @param inputStream 图片输入流，由调用方关闭
+     * @return 图片元数据，无法识别时返回null
+     */
+    ImageMetadataDTO probe(InputStream inputStream);
+}
@@ -0,0 +1,32 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.vo.ProxyImageVO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 图片代理服务接口
+ * 代理下载远程图片以解决CORS问题，远程图片缓存到本地磁盘，按上游的ETag和Cache-Control复用
+ */
+public interface ImageProxyService {
+
+    /**
+     * 获取远程图片
+     * 缓存未过期时直接返回；过期时携带ETag或Last-Modified向上游验证；同一URL的并发请求只访问上游一次
+     *
+     * @param url 图片URL
+     * @return 代理图片信息
+     * @throws com.imagehosting.common.exception.BusinessException 当URL不合法、下载失败或图片过大时抛出业务异常
+     */
+    ProxyImageVO getImage(String url);
+
+    /**
+     * 把代理图片的内容写入输出流
+     *
+     * @param image        代理图片信息
+     * @param outputStream 输出流，由调用方关闭
+     * @throws IOException 写入失败时抛出
+     */
+    void writeTo(ProxyImageVO image, OutputStream outputStream) throws IOException;
+}
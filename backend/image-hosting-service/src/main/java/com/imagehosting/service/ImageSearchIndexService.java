@@ -0,0 +1,42 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.entity.Image;
+
+/**
+ * 图片名称搜索索引服务接口
+ * 按用户在内存中维护图片名称和原始文件名的三元组索引，关键字查询直接得到匹配的图片ID，
+ * 不再需要对用户的全部图片执行 LIKE '%关键字%' 扫描。索引在启动时从数据库重建，之后随上传、改名和删除增量更新
+ */
+public interface ImageSearchIndexService {
+
+    /**
+     * 查询名称或原始文件名包含关键字的图片
+     *
+     * @param userId  用户ID
+     * @param keyword 关键字，不区分大小写
+     * @return 匹配的图片ID，升序排列；索引未就绪时返回null，调用方应回退到数据库查询
+     */
+    long[] search(Long userId, String keyword);
+
+    /**
+     * 写入或更新图片的索引，用于上传和改名
+     * 在事务中调用时，事务提交后才生效
+     *
+     * @param image 图片，需包含ID、用户ID、名称和原始文件名
+     */
+    void index(Image image);
+
+    /**
+     * 从索引中删除图片
+     * 在事务中调用时，事务提交后才生效
+     *
+     * @param userId  用户ID
+     * @param imageId 图片ID
+     */
+    void remove(Long userId, Long imageId);
+
+    /**
+     * 从数据库重建全部索引，重建期间查询返回null
+     */
+    void rebuild();
+}
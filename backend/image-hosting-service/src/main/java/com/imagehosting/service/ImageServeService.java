@@ -0,0 +1,46 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.dto.ServeRequestDTO;
+import com.imagehosting.model.vo.ServeImageVO;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 图片下载服务接口
+ * 通过后端直接输出图片内容时，支持基于ETag和Last-Modified的条件请求以及单个Range的部分内容请求
+ */
+public interface ImageServeService {
+
+    /**
+     * 计算本地存储图片的响应
+     * ETag由图片MD5生成，内容不变时浏览器和CDN可以用304低成本地验证缓存；
+     * 开启URL签名时按{@link ImageUrlService#checkAccess}校验访问权限
+     *
+     * @param imageId    图片ID
+     * @param requestDTO 条件请求头和签名参数
+     * @return 响应信息
+     * @throws com.imagehosting.common.exception.BusinessException 当图片不存在、不可用或无权访问时抛出业务异常
+     */
+    ServeImageVO serveImage(Long imageId, ServeRequestDTO requestDTO);
+
+    /**
+     * 计算代理图片的响应，ETag和Last-Modified沿用上游的值
+     *
+     * @param url        图片URL
+     * @param requestDTO 条件请求头
+     * @return 响应信息
+     */
+    ServeImageVO serveProxyImage(String url, ServeRequestDTO requestDTO);
+
+    /**
+     * 把响应内容写入通道，200和206以外的响应没有内容
+     * 本地文件通过FileChannel.transferTo零拷贝传输
+     *
+     * @param image  响应信息
+     * @param target 目标通道
+     * @return 写入的字节数
+     * @throws IOException 读取或写入失败时抛出
+     */
+    long transferTo(ServeImageVO image, WritableByteChannel target) throws IOException;
+}
@@ -1,11 +1,20 @@
 package com.imagehosting.service;
 
+import com.imagehosting.model.dto.CheckHashDTO;
 import com.imagehosting.model.dto.ImageQueryDTO;
+import com.imagehosting.model.vo.BatchUploadVO;
+import com.imagehosting.model.vo.CheckHashVO;
+import com.imagehosting.model.vo.CursorPageVO;
+import com.imagehosting.model.vo.ImageStatusVO;
 import com.imagehosting.model.vo.ImageUploadVO;
 import com.imagehosting.model.vo.ImageVO;
 import com.imagehosting.model.vo.PageVO;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 /**
  * 图片服务接口
  * 提供图片相关的业务逻辑操作
@@ -23,6 +32,113 @@ public interface ImageService {
      */
     ImageUploadVO uploadImage(MultipartFile file);
 
+    /**
+     * 上传图片，客户端同时提供文件MD5
+     * 本人已有相同MD5和大小的图片时直接返回已有图片，不再上传存储；摘要格式不正确时按未提供处理
+     *
+     * @param file 用户上传的图片文件
+     * @param md5  客户端计算的文件MD5（十六进制），可为空
+     * @return 图片上传结果视图对象
+     * @throws com.imagehosting.common.exception.BusinessException 当文件格式不支持、超出大小限制或上传失败时抛出业务异常
+     */
+    ImageUploadVO uploadImage(MultipartFile file, String md5);
+
+    /**
+     * 以流的方式上传图片
+     * 供分片上传合并等不经过MultipartFile的场景使用，输入流只会被顺序读取一次，由调用方关闭
+     *
+     * @param inputStream      图片输入流
+     * @param size             图片大小（字节）
+     * @param originalFilename 原始文件名
+     * @param contentType      声明的媒体类型
+     * @return 图片上传结果视图对象
+     * @throws com.imagehosting.common.exception.BusinessException 当文件格式不支持、超出大小限制或上传失败时抛出业务异常
+     */
+    ImageUploadVO uploadImage(InputStream inputStream, long size, String originalFilename, String contentType);
+
+    /**
+     * 以流的方式上传图片，客户端同时提供文件MD5
+     * 本人已有相同MD5和大小的图片时直接返回已有图片，输入流不会被读取
+     *
+     * @param inputStream      图片输入流
+     * @param size             图片大小（字节）
+     * @param originalFilename 原始文件名
+     * @param contentType      声明的媒体类型
+     * @param md5              客户端计算的文件MD5（十六进制），可为空
+     * @return 图片上传结果视图对象
+     * @throws com.imagehosting.common.exception.BusinessException 当文件格式不支持、超出大小限制或上传失败时抛出业务异常
+     */
+    ImageUploadVO uploadImage(InputStream inputStream, long size, String originalFilename, String contentType, String md5);
+
+    /**
+     * 登记客户端已直传到存储的图片
+     * 从存储顺序读取一次文件，校验大小和MD5并探测元数据后生成图片记录；
+     * 校验不通过、本人已有相同图片或内容与已有内容块重复时删除直传的文件
+     *
+     * @param filePath         直传的存储路径
+     * @param size             声明的文件大小（字节）
+     * @param md5              声明的文件MD5（十六进制）
+     * @param originalFilename 原始文件名
+     * @param contentType      声明的媒体类型
+     * @return 图片上传结果视图对象
+     * @throws com.imagehosting.common.exception.BusinessException 当文件不存在、大小或MD5不一致时抛出业务异常
+     */
+    ImageUploadVO registerUploadedImage(String filePath, long size, String md5, String originalFilename, String contentType);
+
+    /**
+     * 完成异步上传的后台处理
+     * 由后台任务调用：从存储中的暂存文件探测元数据、计算摘要并写入正式路径，再回填图片记录并将状态置为可用。
+     * 图片已删除或已处理完成时只清理暂存文件，可安全重复执行
+     *
+     * @param imageId   图片ID
+     * @param spoolFile 暂存文件在存储中的路径
+     * @throws IOException 读取暂存文件失败时抛出
+     */
+    void finalizeSpooledUpload(Long imageId, String spoolFile) throws IOException;
+
+    /**
+     * 查询图片处理状态
+     * 异步上传时图片先以处理中状态返回，客户端通过该接口查询后台处理进度
+     *
+     * @param id 图片ID
+     * @return 处理状态视图对象，可用时包含访问URL
+     * @throws com.imagehosting.common.exception.BusinessException 当图片不存在或无权限访问时抛出业务异常
+     */
+    ImageStatusVO getImageStatus(Long id);
+
+    /**
+     * 按摘要检查图片是否已存在（秒传）
+     * 客户端先提交摘要和大小，本人已上传过则直接返回已有图片；其他用户上传过相同内容时直接生成新的图片记录，
+     * 两种情况下客户端都无需再上传文件
+     *
+     * @param checkHashDTO 文件摘要、大小和文件名
+     * @return 检查结果，存在时包含图片信息
+     * @throws com.imagehosting.common.exception.BusinessException 当参数不合法时抛出业务异常
+     */
+    CheckHashVO checkByHash(CheckHashDTO checkHashDTO);
+
+    /**
+     * 批量上传图片
+     * 并发完成各文件的探测、摘要计算和上传存储，新图片通过一次多行插入写库，可同时关联到标注项目
+     *
+     * @param files     图片文件列表
+     * @param projectId 要关联的项目ID，为空则不关联
+     * @return 批量上传结果，包含每个文件的处理结果
+     * @throws com.imagehosting.common.exception.BusinessException 当文件数量超限、无项目权限或写库失败时抛出业务异常
+     */
+    BatchUploadVO batchUploadImages(List<MultipartFile> files, Long projectId);
+
+    /**
+     * 通过ZIP压缩包批量上传图片
+     * 压缩包中的图片文件按批量上传处理，目录和隐藏文件会被忽略
+     *
+     * @param zipFile   ZIP压缩包
+     * @param projectId 要关联的项目ID，为空则不关联
+     * @return 批量上传结果，包含每个文件的处理结果
+     * @throws com.imagehosting.common.exception.BusinessException 当压缩包无法解析、文件数量超限或无项目权限时抛出业务异常
+     */
+    BatchUploadVO batchUploadZip(MultipartFile zipFile, Long projectId);
+
     /**
      * 分页查询图片列表
      * 根据查询条件获取当前用户上传的图片列表
@@ -33,6 +149,16 @@ public interface ImageService {
      */
     PageVO<ImageVO> getImageList(ImageQueryDTO queryDTO);
 
+    /**
+     * 按游标分页查询图片列表
+     * 从上一页返回的游标位置继续读取，不统计总数，耗时与翻页深度无关；只支持按上传时间排序
+     *
+     * @param queryDTO 查询条件，使用其中的cursor、size、keyword和sortOrder
+     * @return 游标分页结果，包含下一页的游标
+     * @throws com.imagehosting.common.exception.BusinessException 当游标无效或排序字段不支持时抛出业务异常
+     */
+    CursorPageVO<ImageVO> getImageListByCursor(ImageQueryDTO queryDTO);
+
     /**
      * 获取图片详情
      * 查询指定ID的图片详细信息
@@ -52,6 +178,25 @@ public interface ImageService {
      */
     void deleteImage(Long id);
 
+    /**
+     * 删除指定ID的图片，不校验所有权
+     * 供已完成权限校验的调用方（如管理员删除）使用，清理步骤与{@link #deleteImage}相同
+     *
+     * @param id 图片ID
+     * @throws com.imagehosting.common.exception.BusinessException 当图片不存在或已被删除时抛出业务异常
+     */
+    void deleteImageById(Long id);
+
+    /**
+     * 删除用户的全部图片
+     * 删除用户前调用：外键级联只会删除数据库行，这里逐张逻辑删除图片，释放内容块引用，
+     * 并清理搜索索引、相似图片索引和缩略图。不校验权限，由调用方负责，需在调用方的事务中执行
+     *
+     * @param userId 用户ID
+     * @return 删除的图片数量
+     */
+    int deleteImagesByUserId(Long userId);
+
     /**
      * 访问图片
      * 获取图片的访问URL，同时记录访问次数
@@ -69,6 +214,8 @@ public interface ImageService {
      * @param url 图片URL
      * @return 图片字节数组
      * @throws Exception 当下载或处理图片失败时抛出异常
+     * @deprecated 整个图片读入内存，请改用{@link ImageProxyService#getImage}和{@link ImageProxyService#writeTo}流式输出
      */
+    @Deprecated
     byte[] proxyImage(String url) throws Exception;
 } 
\ No newline at end of file
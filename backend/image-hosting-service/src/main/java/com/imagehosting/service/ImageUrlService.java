@@ -0,0 +1,40 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.entity.Image;
+import com.imagehosting.model.vo.ImageVO;
+
+/**
+ * 图片URL服务接口
+ * 在读取时根据存储路径生成访问URL，开启签名后生成带有效期的签名URL，
+ * 存储桶可以设为私有，由CDN校验签名后回源，后端不在数据路径上
+ */
+public interface ImageUrlService {
+
+    /**
+     * 根据存储路径生成访问URL
+     *
+     * @param filePath 存储路径，为空时返回null
+     * @return 访问URL
+     */
+    String getFileUrl(String filePath);
+
+    /**
+     * 填充VO中的原图、缩略图和预览图URL
+     *
+     * @param image 图片实体
+     * @param vo    图片VO
+     */
+    void fillUrls(Image image, ImageVO vo);
+
+    /**
+     * 校验通过后端读取图片内容（原图、衍生图片）的权限
+     * 未开启签名时图片公开可读；开启签名后只有图片所有者或持有原图有效签名的请求可以读取，
+     * 与CDN对签名URL的校验规则一致
+     *
+     * @param image   图片实体
+     * @param expires 签名URL中的过期时间戳，可为空
+     * @param sign    签名URL中的签名，可为空
+     * @throws com.imagehosting.common.exception.BusinessException 当无权访问时抛出业务异常
+     */
+    void checkAccess(Image image, Long expires, String sign);
+}
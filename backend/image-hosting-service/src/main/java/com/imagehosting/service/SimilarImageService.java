@@ -0,0 +1,75 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.entity.Image;
+import com.imagehosting.model.vo.SimilarImageGroupVO;
+import com.imagehosting.model.vo.SimilarImageVO;
+
+import java.util.List;
+
+/**
+ * 相似图片服务接口
+ * 为每张图片计算64位感知哈希，内存中维护所有图片哈希的多索引哈希表，按汉明距离查找重新编码、缩放等产生的近似重复图片。
+ * 索引在启动时从数据库重建，之后随哈希计算和图片删除增量更新
+ */
+public interface SimilarImageService {
+
+    /**
+     * 计算图片的感知哈希，保存并加入索引
+     * 计算失败只记录日志，不影响调用方
+     *
+     * @param image 图片实体
+     * @param data  图片内容
+     */
+    void hashImage(Image image, byte[] data);
+
+    /**
+     * 从索引中删除图片，在事务中调用时事务提交后才生效
+     *
+     * @param image 图片实体
+     */
+    void remove(Image image);
+
+    /**
+     * 在当前用户的图片中查找与指定图片相似的图片
+     *
+     * @param imageId     图片ID
+     * @param maxDistance 最大汉明距离，为空时使用默认值
+     * @return 相似图片，按距离升序排列，不含图片本身
+     * @throws com.imagehosting.common.exception.BusinessException 当图片不存在、无权访问或哈希尚未计算时抛出业务异常
+     */
+    List<SimilarImageVO> findSimilar(Long imageId, Integer maxDistance);
+
+    /**
+     * 在项目的图片中查找与指定图片相似的图片
+     *
+     * @param projectId   项目ID
+     * @param imageId     图片ID，必须属于该项目
+     * @param maxDistance 最大汉明距离，为空时使用默认值
+     * @return 相似图片，按距离升序排列，不含图片本身
+     * @throws com.imagehosting.common.exception.BusinessException 当项目或图片不存在、无权访问时抛出业务异常
+     */
+    List<SimilarImageVO> findSimilarInProject(Long projectId, Long imageId, Integer maxDistance);
+
+    /**
+     * 查找项目中的近似重复图片分组
+     * 用于划分训练集和验证集前排除近似重复的样本
+     *
+     * @param projectId   项目ID
+     * @param maxDistance 最大汉明距离，为空时使用默认值
+     * @return 分组列表，每组至少两张图片，按组大小降序排列
+     * @throws com.imagehosting.common.exception.BusinessException 当项目不存在或无权访问时抛出业务异常
+     */
+    List<SimilarImageGroupVO> findDuplicateGroups(Long projectId, Integer maxDistance);
+
+    /**
+     * 为尚未计算感知哈希的图片回填哈希
+     *
+     * @return 本次计算哈希的图片数量
+     */
+    long backfill();
+
+    /**
+     * 从数据库重建索引，重建期间查询会提示稍后再试
+     */
+    void rebuild();
+}
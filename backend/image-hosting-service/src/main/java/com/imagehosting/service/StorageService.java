@@ -1,9 +1,13 @@
 package com.imagehosting.service;
 
+import com.imagehosting.model.vo.PresignedUploadVO;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
 
 /**
  * 存储服务接口
@@ -22,6 +26,7 @@ public interface StorageService {
     
     /**
      * 上传文件
+     * 超过分片阈值（storage.multipart.threshold）的大文件自动切换为分片并发上传
      *
      * @param file      文件
      * @param directory 目录
@@ -30,6 +35,92 @@ public interface StorageService {
      */
     String uploadFile(File file, String directory) throws IOException;
 
+    /**
+     * 分片并发上传文件
+     * 按分片大小切分文件，在有界线程池中并发上传各分片，失败的分片单独重试，全部完成后合并；
+     * 任一分片最终失败时取消整个上传并清理已上传的分片
+     *
+     * @param file      文件
+     * @param directory 目录
+     * @return 文件路径
+     * @throws IOException IO异常
+     */
+    String uploadFileMultipart(File file, String directory) throws IOException;
+
+    /**
+     * 以流的方式上传文件
+     * 只顺序读取一次输入流，不会在内存中缓存整个文件，调用方负责关闭输入流
+     *
+     * @param inputStream      输入流
+     * @param size             文件大小（字节）
+     * @param originalFilename 原始文件名，用于生成新文件名
+     * @param directory        目录
+     * @return 文件路径
+     * @throws IOException IO异常
+     */
+    String uploadFile(InputStream inputStream, long size, String originalFilename, String directory) throws IOException;
+
+    /**
+     * 生成新文件的存储路径，不写入任何内容
+     * 与上传文件时使用相同的路径规则
+     *
+     * @param originalFilename 原始文件名，用于保留扩展名
+     * @param directory        目录
+     * @return 文件路径
+     */
+    String generateFilePath(String originalFilename, String directory);
+
+    /**
+     * 生成预签名上传信息
+     * 客户端在过期前凭此把文件内容直接上传到指定路径，不经过应用服务器；
+     * 媒体类型和内容MD5参与签名，上传时必须携带一致的请求头，内容不符时存储端拒绝写入
+     *
+     * @param filePath    文件路径
+     * @param contentType 媒体类型
+     * @param contentMd5  文件内容MD5的Base64编码
+     * @param expireTime  过期时间
+     * @return 预签名上传信息，包含HTTP方法、地址和必须携带的请求头
+     */
+    PresignedUploadVO presignUpload(String filePath, String contentType, String contentMd5, LocalDateTime expireTime);
+
+    /**
+     * 删除文件
+     *
+     * @param filePath 文件路径
+     */
+    void deleteFile(String filePath);
+
+    /**
+     * 获取文件大小
+     *
+     * @param filePath 文件路径
+     * @return 文件大小（字节）
+     * @throws IOException IO异常，文件不存在时抛出
+     */
+    long getFileLength(String filePath) throws IOException;
+
+    /**
+     * 打开文件输入流，调用方负责关闭
+     *
+     * @param filePath 文件路径
+     * @return 文件输入流
+     * @throws IOException IO异常，文件不存在时抛出
+     */
+    InputStream getFileStream(String filePath) throws IOException;
+
+    /**
+     * 将文件的指定区间写入目标通道
+     * 本地存储通过FileChannel.transferTo实现零拷贝，远程存储按区间下载后写入
+     *
+     * @param filePath 文件路径
+     * @param position 起始位置
+     * @param count    字节数
+     * @param target   目标通道
+     * @return 实际写入的字节数
+     * @throws IOException IO异常
+     */
+    long transferTo(String filePath, long position, long count, WritableByteChannel target) throws IOException;
+
     /**
      * 获取文件访问URL
      *
@@ -0,0 +1,47 @@
+package com.imagehosting.service;
+
+import com.imagehosting.model.entity.Image;
+
+import java.io.IOException;
+
+/**
+ * 缩略图服务接口
+ * 图片上传后在独立的线程池中生成固定尺寸的缩略图和预览图，存储路径记录在图片表中，
+ * 列表查询无需额外开销即可返回缩略图URL
+ */
+public interface ThumbnailService {
+
+    /**
+     * 安排生成缩略图
+     * 在事务中调用时推迟到事务提交后提交；线程池已满时转入后台任务队列，不阻塞调用线程
+     *
+     * @param imageId 图片ID
+     */
+    void scheduleGeneration(Long imageId);
+
+    /**
+     * 在当前线程中生成缩略图并回填路径
+     * 图片已删除、不可用或已有缩略图时直接返回，可重复调用
+     *
+     * @param imageId 图片ID
+     * @return 是否生成了新的缩略图
+     * @throws IOException 读取原图或写入存储失败时抛出
+     */
+    boolean generateThumbnails(Long imageId) throws IOException;
+
+    /**
+     * 删除图片的缩略图，在事务中调用时推迟到事务提交后删除
+     *
+     * @param image 图片实体
+     */
+    void deleteThumbnails(Image image);
+
+    /**
+     * 为尚未生成缩略图的历史图片回填缩略图
+     * 按ID顺序分批处理，每批完成后保存进度，中断后再次执行会从上次的位置继续
+     *
+     * @param restart 是否忽略已保存的进度从头开始
+     * @return 本次生成缩略图的图片数量
+     */
+    long backfill(boolean restart);
+}
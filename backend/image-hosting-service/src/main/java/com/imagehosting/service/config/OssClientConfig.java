@@ -0,0 +1,83 @@
+package com.imagehosting.service.config;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 阿里云OSS客户端配置
+ * OSSClient内部持有HTTP连接池，整个应用共享一个实例，随Spring容器关闭
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "storage.type", havingValue = "oss", matchIfMissing = true)
+public class OssClientConfig {
+
+    @Value("${aliyun.oss.endpoint}")
+    private String endpoint;
+
+    @Value("${aliyun.oss.accessKeyId}")
+    private String accessKeyId;
+
+    @Value("${aliyun.oss.accessKeySecret}")
+    private String accessKeySecret;
+
+    /**
+     * 最大连接数
+     */
+    @Value("${aliyun.oss.client.maxConnections:256}")
+    private int maxConnections;
+
+    /**
+     * Socket读写超时时间（毫秒）
+     */
+    @Value("${aliyun.oss.client.socketTimeout:30000}")
+    private int socketTimeout;
+
+    /**
+     * 建立连接超时时间（毫秒）
+     */
+    @Value("${aliyun.oss.client.connectionTimeout:5000}")
+    private int connectionTimeout;
+
+    /**
+     * 从连接池获取连接的超时时间（毫秒）
+     */
+    @Value("${aliyun.oss.client.connectionRequestTimeout:5000}")
+    private int connectionRequestTimeout;
+
+    /**
+     * 空闲连接回收时间（毫秒），超过该时间的空闲连接由SDK后台线程关闭
+     */
+    @Value("${aliyun.oss.client.idleConnectionTime:60000}")
+    private long idleConnectionTime;
+
+    /**
+     * 失败重试次数
+     */
+    @Value("${aliyun.oss.client.maxErrorRetry:3}")
+    private int maxErrorRetry;
+
+    /**
+     * 创建共享的OSS客户端
+     *
+     * @return OSS客户端
+     */
+    @Bean(destroyMethod = "shutdown")
+    public OSS ossClient() {
+        ClientBuilderConfiguration configuration = new ClientBuilderConfiguration();
+        configuration.setMaxConnections(maxConnections);
+        configuration.setSocketTimeout(socketTimeout);
+        configuration.setConnectionTimeout(connectionTimeout);
+        configuration.setConnectionRequestTimeout(connectionRequestTimeout);
+        configuration.setIdleConnectionTime(idleConnectionTime);
+        configuration.setMaxErrorRetry(maxErrorRetry);
+        log.info("初始化OSS客户端: endpoint={}, maxConnections={}", endpoint, maxConnections);
+        return new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret, configuration);
+    }
+}
@@ -0,0 +1,318 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.exception.BusinessException;
+import com.imagehosting.common.result.ResultCode;
+import com.imagehosting.service.StorageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 存储服务基类
+ * 统一文件名生成规则，MultipartFile和File上传都转为流上传，由子类实现具体存储。
+ * 超过分片阈值的文件走分片上传：各分片通过FileChannel按位置读取，在有界线程池中并发上传，
+ * 失败的分片单独重试，全部完成后合并；子类实现初始化、上传分片、合并和取消四个步骤
+ */
+@Slf4j
+public abstract class AbstractStorageService implements StorageService {
+
+    /**
+     * 超过该大小（字节）的文件使用分片上传
+     */
+    @Value("${storage.multipart.threshold:${aliyun.oss.multipart.threshold:104857600}}")
+    private long multipartThreshold;
+
+    /**
+     * 分片大小（字节），OSS要求除最后一片外不小于100KB
+     */
+    @Value("${storage.multipart.partSize:${aliyun.oss.multipart.partSize:16777216}}")
+    private long multipartPartSize;
+
+    /**
+     * 分片上传并发数
+     */
+    @Value("${storage.multipart.concurrency:${aliyun.oss.multipart.concurrency:4}}")
+    private int multipartConcurrency;
+
+    /**
+     * 单个分片最大尝试次数
+     */
+    @Value("${storage.multipart.maxAttempts:${aliyun.oss.multipart.maxAttempts:3}}")
+    private int multipartMaxAttempts;
+
+    /**
+     * 分片上传线程池，队列有界，队列满时由提交线程自己上传分片
+     */
+    private ThreadPoolExecutor multipartExecutor;
+
+    /**
+     * 初始化分片上传线程池
+     */
+    @PostConstruct
+    public void initMultipartExecutor() {
+        multipartExecutor = new ThreadPoolExecutor(multipartConcurrency, multipartConcurrency,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(multipartConcurrency * 2),
+                new CustomizableThreadFactory("storage-multipart-"),
+                // 队列满时由提交线程自己执行，形成反压
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 关闭分片上传线程池
+     */
+    @PreDestroy
+    public void shutdownMultipartExecutor() {
+        multipartExecutor.shutdown();
+    }
+
+    @Override
+    public String uploadFile(MultipartFile file, String directory) throws IOException {
+        // 检查文件是否为空
+        if (file.isEmpty()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "上传文件不能为空");
+        }
+
+        try (InputStream inputStream = file.getInputStream()) {
+            return uploadFile(inputStream, file.getSize(), file.getOriginalFilename(), directory);
+        }
+    }
+
+    @Override
+    public String uploadFile(File file, String directory) throws IOException {
+        // 检查文件是否为空
+        if (file == null || !file.exists()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "上传文件不能为空");
+        }
+
+        // 大文件分片并发上传
+        if (file.length() >= multipartThreshold) {
+            return uploadFileMultipart(file, directory);
+        }
+
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            return uploadFile(inputStream, file.length(), file.getName(), directory);
+        }
+    }
+
+    @Override
+    public String uploadFileMultipart(File file, String directory) throws IOException {
+        if (file == null || !file.exists()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "上传文件不能为空");
+        }
+
+        String filePath = generateFilePath(file.getName(), directory);
+        long length = file.length();
+        int partCount = (int) Math.max(1, (length + multipartPartSize - 1) / multipartPartSize);
+
+        String uploadId = initiateMultipart(filePath);
+        log.info("开始分片上传: {}, 大小: {} bytes, 分片数: {}", filePath, length, partCount);
+
+        List<Future<String>> futures = new ArrayList<>(partCount);
+        // 所有分片共用一个FileChannel，按位置读取互不影响
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            for (int i = 0; i < partCount; i++) {
+                int partNumber = i + 1;
+                long offset = (long) i * multipartPartSize;
+                long partSize = Math.min(multipartPartSize, length - offset);
+                futures.add(multipartExecutor.submit(() -> uploadPartWithRetry(channel, filePath, uploadId, partNumber, offset, partSize)));
+            }
+
+            // 按分片顺序收集分片标识
+            List<String> partTags = new ArrayList<>(partCount);
+            for (Future<String> future : futures) {
+                partTags.add(future.get());
+            }
+
+            // 合并分片
+            completeMultipart(filePath, uploadId, partTags);
+            log.info("分片上传成功: {}", filePath);
+            return filePath;
+        } catch (Exception e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            abortMultipart(filePath, uploadId);
+            log.error("分片上传失败: {}", filePath, e);
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "文件上传失败: " + cause.getMessage());
+        }
+    }
+
+    /**
+     * 上传单个分片，失败时按退避时间重试
+     */
+    private String uploadPartWithRetry(FileChannel channel, String filePath, String uploadId, int partNumber, long offset, long partSize)
+            throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try (InputStream inputStream = new FileRegionInputStream(channel, offset, partSize)) {
+                return uploadPart(filePath, uploadId, partNumber, offset, inputStream, partSize);
+            } catch (IOException | RuntimeException e) {
+                if (attempt >= multipartMaxAttempts) {
+                    throw e;
+                }
+                log.warn("分片 {} 上传失败，第 {} 次重试: {}", partNumber, attempt, e.getMessage());
+                Thread.sleep(500L * attempt);
+            }
+        }
+    }
+
+    /**
+     * 初始化分片上传
+     *
+     * @param filePath 文件路径
+     * @return 分片上传ID
+     * @throws IOException IO异常
+     */
+    protected abstract String initiateMultipart(String filePath) throws IOException;
+
+    /**
+     * 上传单个分片，可能被并发调用，失败时会以新的输入流重新调用
+     *
+     * @param filePath    文件路径
+     * @param uploadId    分片上传ID
+     * @param partNumber  分片编号，从1开始
+     * @param offset      分片在文件中的起始位置
+     * @param inputStream 分片内容，由调用方关闭
+     * @param partSize    分片大小
+     * @return 分片标识，合并时按分片顺序传回
+     * @throws IOException IO异常
+     */
+    protected abstract String uploadPart(String filePath, String uploadId, int partNumber, long offset,
+                                         InputStream inputStream, long partSize) throws IOException;
+
+    /**
+     * 合并分片，成功后文件可见
+     *
+     * @param filePath 文件路径
+     * @param uploadId 分片上传ID
+     * @param partTags 按分片顺序排列的分片标识
+     * @throws IOException IO异常
+     */
+    protected abstract void completeMultipart(String filePath, String uploadId, List<String> partTags) throws IOException;
+
+    /**
+     * 取消分片上传并清理已上传的分片，失败只记录日志
+     *
+     * @param filePath 文件路径
+     * @param uploadId 分片上传ID
+     */
+    protected abstract void abortMultipart(String filePath, String uploadId);
+
+    @Override
+    public String generateFileName(String originalFilename) {
+        // 获取文件扩展名
+        String extension = "";
+        if (originalFilename != null && originalFilename.contains(".")) {
+            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        }
+        
+        // 使用UUID生成唯一文件名
+        String uuid = UUID.randomUUID().toString().replace("-", "");
+        
+        // 生成时间戳
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        
+        // 生成MD5
+        String md5 = DigestUtils.md5DigestAsHex((uuid + timestamp).getBytes()).substring(0, 16);
+        
+        // 返回新文件名
+        return md5 + extension;
+    }
+
+    /**
+     * 文件区间输入流，通过FileChannel按位置读取，不改变通道的当前位置，多个分片可并发读取同一通道
+     */
+    private static final class FileRegionInputStream extends InputStream {
+
+        private final FileChannel channel;
+
+        private final long end;
+
+        private long position;
+
+        private long mark;
+
+        FileRegionInputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.position = offset;
+            this.mark = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (count > 0) {
+                position += count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, end - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            mark = position;
+        }
+
+        @Override
+        public synchronized void reset() {
+            position = mark;
+        }
+
+        @Override
+        public void close() {
+            // 通道由分片上传流程统一关闭
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.dao.ImageDao;
+import com.imagehosting.service.AccessCountService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 图片访问计数服务实现类
+ * 每张图片一个LongAdder，同一张图片的高并发访问分散到多个单元累加，不会争用同一个计数；
+ * 定时把增量合并为一条UPDATE ... CASE语句写入数据库，应用关闭时再写入一次
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccessCountServiceImpl implements AccessCountService {
+
+    /**
+     * 每条UPDATE语句包含的最大图片数
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final ImageDao imageDao;
+
+    /**
+     * 图片ID到未写入的访问增量
+     */
+    private final ConcurrentMap<Long, LongAdder> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public void increment(Long imageId) {
+        counters.computeIfAbsent(imageId, id -> new LongAdder()).increment();
+    }
+
+    @Override
+    public long getPendingCount(Long imageId) {
+        LongAdder counter = counters.get(imageId);
+        return counter != null ? counter.sum() : 0L;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${image.access.flushInterval:5000}")
+    public synchronized void flush() {
+        // 按ID排序，多个节点同时写入时以相同顺序加锁
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (Map.Entry<Long, LongAdder> entry : counters.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta > 0) {
+                deltas.put(entry.getKey(), delta);
+            } else if (counters.remove(entry.getKey(), entry.getValue())) {
+                // 移除空闲计数后仍可能有线程刚拿到它并完成累加，把这部分增量放回
+                long late = entry.getValue().sumThenReset();
+                if (late > 0) {
+                    counters.computeIfAbsent(entry.getKey(), id -> new LongAdder()).add(late);
+                }
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> batch = new TreeMap<>();
+        for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() >= FLUSH_BATCH_SIZE) {
+                writeBatch(batch);
+                batch = new TreeMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+        log.debug("访问次数已写入: {}张图片", deltas.size());
+    }
+
+    /**
+     * 写入一批增量，失败时放回内存等待下次写入
+     */
+    private void writeBatch(Map<Long, Long> batch) {
+        try {
+            imageDao.batchIncrementAccessCount(batch);
+        } catch (RuntimeException e) {
+            log.warn("写入访问次数失败，下次重试: {}张图片, {}", batch.size(), e.getMessage());
+            for (Map.Entry<Long, Long> entry : batch.entrySet()) {
+                counters.computeIfAbsent(entry.getKey(), id -> new LongAdder()).add(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 应用关闭前写入剩余的增量
+     */
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+}
@@ -6,6 +6,7 @@ import com.imagehosting.common.util.SecurityUtil;
 import com.imagehosting.dao.ImageDao;
 import com.imagehosting.dao.UserDao;
 import com.imagehosting.model.dto.AdminUserUpdateDTO;
+import com.imagehosting.model.dto.CountResultDTO;
 import com.imagehosting.model.dto.ImageStatDTO;
 import com.imagehosting.model.dto.UserQueryDTO;
 import com.imagehosting.model.entity.Image;
@@ -14,7 +15,11 @@ import com.imagehosting.model.vo.AdminStatsVO;
 import com.imagehosting.model.vo.ImageVO;
 import com.imagehosting.model.vo.PageVO;
 import com.imagehosting.model.vo.UserVO;
+import com.imagehosting.service.AccessCountService;
 import com.imagehosting.service.AdminService;
+import com.imagehosting.service.CountCacheService;
+import com.imagehosting.service.ImageService;
+import com.imagehosting.service.ImageUrlService;
 import com.imagehosting.service.StorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +28,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -36,6 +42,10 @@ public class AdminServiceImpl implements AdminService {
     private final UserDao userDao;
     private final ImageDao imageDao;
     private final StorageService storageService;
+    private final AccessCountService accessCountService;
+    private final ImageUrlService imageUrlService;
+    private final CountCacheService countCacheService;
+    private final ImageService imageService;
 
     @Override
     public AdminStatsVO getAdminStats() {
@@ -71,13 +81,25 @@ public class AdminServiceImpl implements AdminService {
         try {
             log.debug("开始查询用户列表，参数: {}", queryDTO);
             
-            // 查询总数
-            Long total = userDao.count(
-                    queryDTO.getKeyword(),
-                    queryDTO.getRoleType(),
-                    queryDTO.getStatus()
-            );
-            log.debug("查询到用户总数: {}", total);
+            // 查询总数，结果按查询条件缓存，超过精确统计上限时返回估算值
+            String keyword = queryDTO.getKeyword();
+            Integer roleType = queryDTO.getRoleType();
+            Integer status = queryDTO.getStatus();
+            CountResultDTO count = Boolean.FALSE.equals(queryDTO.getWithTotal()) ? null
+                    : countCacheService.count(CountCacheService.NAMESPACE_USER, null,
+                            "keyword=" + keyword + "&roleType=" + roleType + "&status=" + status,
+                            new CountCacheService.Counter() {
+                                @Override
+                                public long countUpTo(int limit) {
+                                    return userDao.countUpTo(keyword, roleType, status, limit);
+                                }
+
+                                @Override
+                                public List<Map<String, Object>> explain() {
+                                    return userDao.explainCount(keyword, roleType, status);
+                                }
+                            });
+            log.debug("查询到用户总数: {}", count);
 
             // 查询列表
             List<User> userList = userDao.findList(
@@ -95,7 +117,9 @@ public class AdminServiceImpl implements AdminService {
             List<UserVO> voList = userList.stream().map(this::convertToUserVO).collect(Collectors.toList());
 
             // 返回分页结果
-            return PageVO.of(voList, total, queryDTO.getPage(), queryDTO.getSize());
+            return count != null
+                    ? PageVO.of(voList, count.getTotal(), count.getExact(), queryDTO.getPage(), queryDTO.getSize())
+                    : PageVO.of(voList, null, false, queryDTO.getPage(), queryDTO.getSize());
         } catch (Exception e) {
             log.error("查询用户列表失败: {}", e.getMessage(), e);
             throw new BusinessException(ResultCode.FAILED, "查询用户列表失败: " + e.getMessage());
@@ -138,6 +162,7 @@ public class AdminServiceImpl implements AdminService {
 
         // 保存更新
         userDao.update(user);
+        countCacheService.invalidate(CountCacheService.NAMESPACE_USER, null);
     }
 
     @Override
@@ -163,27 +188,45 @@ public class AdminServiceImpl implements AdminService {
             throw new BusinessException(ResultCode.FORBIDDEN, "不能删除管理员账户");
         }
         
-        // 这里可以添加删除用户关联数据的逻辑
-        // 例如: 删除用户上传的图片或将图片转移到默认用户等
-        // 当前实现中，我们只删除用户记录
-        
-        log.info("永久删除用户: id={}, username={}", user.getId(), user.getUsername());
+        // 外键级联只删除数据库行，先逐张删除用户的图片，释放内容块引用并清理索引和缩略图
+        int deletedImages = imageService.deleteImagesByUserId(id);
+
+        log.info("永久删除用户: id={}, username={}, 图片{}张", user.getId(), user.getUsername(), deletedImages);
         
         // 执行删除用户操作
         userDao.delete(id);
+        countCacheService.invalidate(CountCacheService.NAMESPACE_USER, null);
+        countCacheService.invalidate(CountCacheService.NAMESPACE_IMAGE, id);
     }
 
     @Override
     public PageVO<ImageVO> getAllImageList(Integer page, Integer size, Long userId) {
+        return getAllImageList(page, size, userId, true);
+    }
+
+    @Override
+    public PageVO<ImageVO> getAllImageList(Integer page, Integer size, Long userId, Boolean withTotal) {
         // 验证管理员权限
         validateAdminRole();
 
         try {
             log.debug("开始查询所有图片列表，参数: page={}, size={}, userId={}", page, size, userId);
             
-            // 查询总数
-            Long total = imageDao.countAllImages(userId);
-            log.debug("查询到图片总数: {}", total);
+            // 查询总数，结果按查询条件缓存，超过精确统计上限时返回估算值
+            CountResultDTO count = Boolean.FALSE.equals(withTotal) ? null
+                    : countCacheService.count(CountCacheService.NAMESPACE_IMAGE, userId, "all",
+                            new CountCacheService.Counter() {
+                                @Override
+                                public long countUpTo(int limit) {
+                                    return imageDao.countAllImagesUpTo(userId, limit);
+                                }
+
+                                @Override
+                                public List<Map<String, Object>> explain() {
+                                    return imageDao.explainCountAllImages(userId);
+                                }
+                            });
+            log.debug("查询到图片总数: {}", count);
 
             // 查询列表
             List<Image> imageList = imageDao.findAllImages(
@@ -197,7 +240,9 @@ public class AdminServiceImpl implements AdminService {
             List<ImageVO> voList = imageList.stream().map(this::convertToImageVO).collect(Collectors.toList());
 
             // 返回分页结果
-            return PageVO.of(voList, total, page, size);
+            return count != null
+                    ? PageVO.of(voList, count.getTotal(), count.getExact(), page, size)
+                    : PageVO.of(voList, null, false, page, size);
         } catch (Exception e) {
             log.error("查询所有图片列表失败: {}", e.getMessage(), e);
             throw new BusinessException(ResultCode.FAILED, "查询所有图片列表失败: " + e.getMessage());
@@ -210,14 +255,8 @@ public class AdminServiceImpl implements AdminService {
         // 验证管理员权限
         validateAdminRole();
 
-        // 查询图片
-        Image image = imageDao.findById(id);
-        if (image == null || image.getDeleted() == 1) {
-            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "图片不存在");
-        }
-
-        // 逻辑删除图片记录
-        imageDao.delete(id);
+        // 与用户删除共用同一套清理流程
+        imageService.deleteImageById(id);
     }
 
     /**
@@ -271,6 +310,8 @@ public class AdminServiceImpl implements AdminService {
     private ImageVO convertToImageVO(Image image) {
         ImageVO vo = new ImageVO();
         BeanUtils.copyProperties(image, vo);
+        imageUrlService.fillUrls(image, vo);
+        vo.setAccessCount(image.getAccessCount() + accessCountService.getPendingCount(image.getId()));
         return vo;
     }
 } 
\ No newline at end of file
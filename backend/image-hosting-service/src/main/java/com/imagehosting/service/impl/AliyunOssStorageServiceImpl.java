@@ -1,24 +1,45 @@
 package com.imagehosting.service.impl;
 
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.OSS;
-import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.GeneratePresignedUrlRequest;
+import com.aliyun.oss.model.GetObjectRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
 import com.aliyun.oss.model.PutObjectRequest;
+import com.aliyun.oss.model.UploadPartRequest;
 import com.imagehosting.common.exception.BusinessException;
 import com.imagehosting.common.result.ResultCode;
-import com.imagehosting.service.StorageService;
+import com.imagehosting.model.vo.PresignedUploadVO;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
-import org.springframework.util.DigestUtils;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 阿里云OSS存储服务实现类
@@ -26,16 +47,19 @@ import java.util.UUID;
 @Slf4j
 @Service
 @Primary
-public class AliyunOssStorageServiceImpl implements StorageService {
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.type", havingValue = "oss", matchIfMissing = true)
+public class AliyunOssStorageServiceImpl extends AbstractStorageService {
 
-    @Value("${aliyun.oss.endpoint}")
-    private String endpoint;
+    /**
+     * 区间下载时的缓冲区大小
+     */
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
 
-    @Value("${aliyun.oss.accessKeyId}")
-    private String accessKeyId;
-
-    @Value("${aliyun.oss.accessKeySecret}")
-    private String accessKeySecret;
+    /**
+     * 共享的OSS客户端，由OssClientConfig创建并管理生命周期
+     */
+    private final OSS ossClient;
 
     @Value("${aliyun.oss.bucketName}")
     private String bucketName;
@@ -44,28 +68,17 @@ public class AliyunOssStorageServiceImpl implements StorageService {
     private String domain;
 
     @Override
-    public String uploadFile(MultipartFile file, String directory) throws IOException {
-        // 检查文件是否为空
-        if (file.isEmpty()) {
-            throw new BusinessException(ResultCode.PARAM_ERROR, "上传文件不能为空");
-        }
-
-        // 生成日期目录
-        String datePath = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        
-        // 生成新文件名
-        String newFileName = generateFileName(file.getOriginalFilename());
-        
+    public String uploadFile(InputStream inputStream, long size, String originalFilename, String directory) throws IOException {
         // 完整OSS路径
-        String ossPath = directory + "/" + datePath + "/" + newFileName;
+        String ossPath = generateFilePath(originalFilename, directory);
         
-        // 创建OSSClient实例
-        OSS ossClient = null;
         try {
-            ossClient = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret);
+            // 指定内容长度，SDK直接按流上传，不会先把整个文件读入内存
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(size);
             
             // 创建PutObjectRequest对象
-            PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, ossPath, file.getInputStream());
+            PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, ossPath, inputStream, metadata);
             
             // 上传文件
             ossClient.putObject(putObjectRequest);
@@ -77,64 +90,118 @@ public class AliyunOssStorageServiceImpl implements StorageService {
         } catch (Exception e) {
             log.error("文件上传失败", e);
             throw new BusinessException(ResultCode.SYSTEM_ERROR, "文件上传失败: " + e.getMessage());
-        } finally {
-            // 关闭OSSClient
-            if (ossClient != null) {
-                ossClient.shutdown();
-            }
         }
     }
-    
+
     @Override
-    public String uploadFile(File file, String directory) throws IOException {
-        // 检查文件是否为空
-        if (file == null || !file.exists()) {
-            throw new BusinessException(ResultCode.PARAM_ERROR, "上传文件不能为空");
+    protected String initiateMultipart(String filePath) {
+        return ossClient.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, filePath)).getUploadId();
+    }
+
+    @Override
+    protected String uploadPart(String filePath, String uploadId, int partNumber, long offset, InputStream inputStream, long partSize) {
+        UploadPartRequest uploadPartRequest = new UploadPartRequest();
+        uploadPartRequest.setBucketName(bucketName);
+        uploadPartRequest.setKey(filePath);
+        uploadPartRequest.setUploadId(uploadId);
+        uploadPartRequest.setInputStream(inputStream);
+        uploadPartRequest.setPartSize(partSize);
+        uploadPartRequest.setPartNumber(partNumber);
+        return ossClient.uploadPart(uploadPartRequest).getPartETag().getETag();
+    }
+
+    @Override
+    protected void completeMultipart(String filePath, String uploadId, List<String> partTags) {
+        List<PartETag> partETags = new ArrayList<>(partTags.size());
+        for (int i = 0; i < partTags.size(); i++) {
+            partETags.add(new PartETag(i + 1, partTags.get(i)));
         }
+        ossClient.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, filePath, uploadId, partETags));
+    }
 
-        // 生成日期目录
-        String datePath = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        
-        // 生成新文件名
-        String newFileName = generateFileName(file.getName());
-        
-        // 完整OSS路径
-        String ossPath = directory + "/" + datePath + "/" + newFileName;
-        
-        // 创建OSSClient实例
-        OSS ossClient = null;
-        FileInputStream inputStream = null;
+    @Override
+    protected void abortMultipart(String filePath, String uploadId) {
         try {
-            ossClient = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret);
-            
-            inputStream = new FileInputStream(file);
-            
-            // 创建PutObjectRequest对象
-            PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, ossPath, inputStream);
-            
-            // 上传文件
-            ossClient.putObject(putObjectRequest);
-            
-            log.info("文件上传成功: {}", ossPath);
-            
-            // 返回文件路径
-            return ossPath;
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, filePath, uploadId));
         } catch (Exception e) {
-            log.error("文件上传失败", e);
-            throw new BusinessException(ResultCode.SYSTEM_ERROR, "文件上传失败: " + e.getMessage());
-        } finally {
-            // 关闭流
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    log.error("关闭输入流失败", e);
+            log.warn("取消分片上传失败: {}, {}", filePath, e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteFile(String filePath) {
+        try {
+            ossClient.deleteObject(bucketName, filePath);
+            log.info("文件删除成功: {}", filePath);
+        } catch (Exception e) {
+            // 删除失败只会留下孤立文件，不影响业务流程
+            log.warn("文件删除失败: {}, {}", filePath, e.getMessage());
+        }
+    }
+
+    @Override
+    public long getFileLength(String filePath) throws IOException {
+        try {
+            return ossClient.getObjectMetadata(bucketName, filePath).getContentLength();
+        } catch (OSSException | ClientException e) {
+            throw new IOException("获取文件信息失败: " + filePath, e);
+        }
+    }
+
+    @Override
+    public InputStream getFileStream(String filePath) throws IOException {
+        try {
+            return ossClient.getObject(bucketName, filePath).getObjectContent();
+        } catch (OSSException | ClientException e) {
+            throw new IOException("读取文件失败: " + filePath, e);
+        }
+    }
+
+    @Override
+    public long transferTo(String filePath, long position, long count, WritableByteChannel target) throws IOException {
+        if (count <= 0) {
+            return 0;
+        }
+        // 只下载需要的区间
+        GetObjectRequest getObjectRequest = new GetObjectRequest(bucketName, filePath);
+        getObjectRequest.setRange(position, position + count - 1);
+        try (OSSObject ossObject = ossClient.getObject(getObjectRequest);
+             ReadableByteChannel source = Channels.newChannel(ossObject.getObjectContent())) {
+            ByteBuffer buffer = ByteBuffer.allocate(TRANSFER_BUFFER_SIZE);
+            long transferred = 0;
+            while (transferred < count && source.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    transferred += target.write(buffer);
                 }
+                buffer.clear();
             }
-            // 关闭OSSClient
-            if (ossClient != null) {
-                ossClient.shutdown();
-            }
+            return transferred;
+        } catch (OSSException | ClientException e) {
+            throw new IOException("读取文件失败: " + filePath, e);
+        }
+    }
+
+    @Override
+    public PresignedUploadVO presignUpload(String filePath, String contentType, String contentMd5, LocalDateTime expireTime) {
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, filePath, HttpMethod.PUT);
+        request.setExpiration(Date.from(expireTime.atZone(ZoneId.systemDefault()).toInstant()));
+        request.setContentType(contentType);
+        request.setContentMD5(contentMd5);
+        try {
+            URL url = ossClient.generatePresignedUrl(request);
+            Map<String, String> headers = new LinkedHashMap<>();
+            headers.put("Content-Type", contentType);
+            headers.put("Content-MD5", contentMd5);
+            return PresignedUploadVO.builder()
+                    .method("PUT")
+                    .uploadUrl(url.toString())
+                    .headers(headers)
+                    .expireTime(expireTime)
+                    .build();
+        } catch (ClientException e) {
+            log.error("生成预签名上传地址失败: {}", filePath, e);
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "生成上传地址失败: " + e.getMessage());
         }
     }
 
@@ -143,24 +210,21 @@ public class AliyunOssStorageServiceImpl implements StorageService {
         return domain + "/" + filePath;
     }
 
+    /**
+     * 生成OSS对象路径：目录/日期/新文件名
+     *
+     * @param originalFilename 原始文件名
+     * @param directory        目录
+     * @return OSS对象路径
+     */
     @Override
-    public String generateFileName(String originalFilename) {
-        // 获取文件扩展名
-        String extension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        }
-        
-        // 使用UUID生成唯一文件名
-        String uuid = UUID.randomUUID().toString().replace("-", "");
-        
-        // 生成时间戳
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        
-        // 生成MD5
-        String md5 = DigestUtils.md5DigestAsHex((uuid + timestamp).getBytes()).substring(0, 16);
-        
-        // 返回新文件名
-        return md5 + extension;
+    public String generateFilePath(String originalFilename, String directory) {
+        // 生成日期目录
+        String datePath = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+
+        // 生成新文件名
+        String newFileName = generateFileName(originalFilename);
+
+        return directory + "/" + datePath + "/" + newFileName;
     }
-} 
\ No newline at end of file
+}
@@ -9,7 +9,9 @@ import com.imagehosting.model.dto.CreateProjectDTO;
 import com.imagehosting.model.dto.SaveAnnotationDTO;
 import com.imagehosting.model.entity.*;
 import com.imagehosting.model.vo.*;
+import com.imagehosting.service.AccessCountService;
 import com.imagehosting.service.AnnotationProjectService;
+import com.imagehosting.service.ImageUrlService;
 import com.imagehosting.service.StorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,7 +24,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
@@ -38,6 +39,8 @@ import java.io.FileInputStream;
 import java.io.BufferedInputStream;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * 标注项目服务实现类
@@ -54,6 +57,8 @@ public class AnnotationProjectServiceImpl implements AnnotationProjectService {
     private final ImageDao imageDao;
     private final UserDao userDao;
     private final StorageService storageService;
+    private final ImageUrlService imageUrlService;
+    private final AccessCountService accessCountService;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -166,25 +171,20 @@ public class AnnotationProjectServiceImpl implements AnnotationProjectService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void addImageToProject(Long projectId, List<Long> imageIds) {
-        // 验证项目存在
-        AnnotationProject project = projectDao.findById(projectId);
-        if (project == null) {
-            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "项目不存在");
+        // 验证项目存在，且是管理员或项目创建者
+        checkProjectManager(projectId);
+        if (imageIds == null || imageIds.isEmpty()) {
+            return;
         }
         
-        // 验证是管理员或项目创建者
-        Long userId = SecurityUtil.getCurrentUserId();
-        User user = userDao.findById(userId);
-        if (user.getRoleType() != 1 && !project.getCreatorId().equals(userId)) {
-            throw new BusinessException(ResultCode.FORBIDDEN, "无权限");
-        }
+        // 一次查询出已关联的图片，避免逐个检查
+        Set<Long> existingImageIds = new HashSet<>(projectImageDao.findExistingImageIds(projectId, imageIds));
         
         // 添加图片
         List<ProjectImage> projectImages = new ArrayList<>();
         for (Long imageId : imageIds) {
-            // 检查图片是否已存在
-            ProjectImage existingImage = projectImageDao.findByProjectIdAndImageId(projectId, imageId);
-            if (existingImage == null) {
+            // 检查图片是否已存在（同时跳过列表中的重复ID）
+            if (existingImageIds.add(imageId)) {
                 projectImages.add(ProjectImage.builder()
                         .projectId(projectId)
                         .imageId(imageId)
@@ -200,6 +200,39 @@ public class AnnotationProjectServiceImpl implements AnnotationProjectService {
         }
     }
 
+    @Override
+    public void checkProjectManager(Long projectId) {
+        // 验证项目存在
+        AnnotationProject project = projectDao.findById(projectId);
+        if (project == null) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "项目不存在");
+        }
+        
+        // 验证是管理员或项目创建者
+        Long userId = SecurityUtil.getCurrentUserId();
+        User user = userDao.findById(userId);
+        if (user.getRoleType() != 1 && !project.getCreatorId().equals(userId)) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "无权限");
+        }
+    }
+
+    @Override
+    public void checkProjectMember(Long projectId) {
+        // 验证项目存在
+        AnnotationProject project = projectDao.findById(projectId);
+        if (project == null) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "项目不存在");
+        }
+
+        // 验证是管理员、项目创建者或项目成员
+        Long userId = SecurityUtil.getCurrentUserId();
+        User user = userDao.findById(userId);
+        ProjectUser projectUser = projectUserDao.findByProjectIdAndUserId(projectId, userId);
+        if (user.getRoleType() != 1 && !project.getCreatorId().equals(userId) && projectUser == null) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "无权限查看此项目");
+        }
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void addUserToProject(Long projectId, List<Long> userIds) {
@@ -358,6 +391,8 @@ public class AnnotationProjectServiceImpl implements AnnotationProjectService {
             if (image != null) {
                 ImageVO imageVO = new ImageVO();
                 BeanUtils.copyProperties(image, imageVO);
+                imageUrlService.fillUrls(image, imageVO);
+                imageVO.setAccessCount(image.getAccessCount() + accessCountService.getPendingCount(image.getId()));
                 
                 // 设置标注状态
                 imageVO.setAnnotated(projectImage.getStatus() == 1);
@@ -444,12 +479,11 @@ public class AnnotationProjectServiceImpl implements AnnotationProjectService {
                         // 处理文件名，确保安全
                         String filename = image.getName().replaceAll("[^a-zA-Z0-9.-]", "_");
                         
-                        // 下载图片
-                        URL url = new URL(image.getUrl());
+                        // 从存储读取图片，存储桶为私有时也能导出
                         File imageFile = new File(imagesDir, filename);
                         
-                        log.debug("正在下载图片: {}", image.getUrl());
-                        try (var inputStream = url.openStream()) {
+                        log.debug("正在下载图片: {}", image.getPath());
+                        try (var inputStream = storageService.getFileStream(image.getPath())) {
                             Files.copy(inputStream, imageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
                             imageCount++;
                             log.debug("图片下载成功: {}", filename);
@@ -536,7 +570,7 @@ public class AnnotationProjectServiceImpl implements AnnotationProjectService {
             log.info("ZIP文件上传成功，OSS路径: {}", ossPath);
             
             // 获取下载URL
-            String downloadUrl = storageService.getFileUrl(ossPath);
+            String downloadUrl = imageUrlService.getFileUrl(ossPath);
             log.info("生成下载URL: {}", downloadUrl);
             
             // 清理临时文件
@@ -714,6 +748,8 @@ public class AnnotationProjectServiceImpl implements AnnotationProjectService {
         // 转换为VO
         ImageVO imageVO = new ImageVO();
         BeanUtils.copyProperties(image, imageVO);
+        imageUrlService.fillUrls(image, imageVO);
+        imageVO.setAccessCount(image.getAccessCount() + accessCountService.getPendingCount(image.getId()));
         
         // 添加标注信息
         if (projectImage.getAnnotationContent() != null) {
@@ -831,7 +867,7 @@ public class AnnotationProjectServiceImpl implements AnnotationProjectService {
                 Map<String, Object> imageAnnotation = new HashMap<>();
                 imageAnnotation.put("id", image.getId());
                 imageAnnotation.put("name", image.getName());
-                imageAnnotation.put("url", image.getUrl());
+                imageAnnotation.put("url", imageUrlService.getFileUrl(image.getPath()));
                 imageAnnotation.put("annotations", annotations);
                 
                 result.add(imageAnnotation);
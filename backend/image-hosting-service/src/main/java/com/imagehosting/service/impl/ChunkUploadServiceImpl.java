@@ -0,0 +1,369 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.exception.BusinessException;
+import com.imagehosting.common.result.ResultCode;
+import com.imagehosting.common.util.SecurityUtil;
+import com.imagehosting.dao.UploadSessionDao;
+import com.imagehosting.model.dto.InitUploadDTO;
+import com.imagehosting.model.entity.UploadSession;
+import com.imagehosting.model.vo.ImageUploadVO;
+import com.imagehosting.model.vo.UploadSessionVO;
+import com.imagehosting.service.ChunkUploadService;
+import com.imagehosting.service.ImageService;
+import com.imagehosting.service.StorageService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 分片上传服务实现类
+ * 分片暂存在本地磁盘的会话目录中，每个分片先写临时文件、校验通过后再原子重命名，
+ * 因此目录中存在的分片文件一定是完整的，可直接据此判断已接收的分片
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChunkUploadServiceImpl implements ChunkUploadService {
+
+    /**
+     * 分片文件后缀
+     */
+    private static final String CHUNK_SUFFIX = ".part";
+
+    /**
+     * 分片大小下限
+     */
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * 分片大小上限
+     */
+    private static final int MAX_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * 每次清理的最大会话数
+     */
+    private static final int CLEAN_BATCH_SIZE = 100;
+
+    private final UploadSessionDao uploadSessionDao;
+    private final ImageService imageService;
+    private final StorageService storageService;
+
+    /**
+     * 分片暂存目录
+     */
+    @Value("${upload.chunk.spoolDir:./data/spool}")
+    private String spoolDir;
+
+    /**
+     * 默认分片大小（字节）
+     */
+    @Value("${upload.chunk.defaultChunkSize:1048576}")
+    private int defaultChunkSize;
+
+    /**
+     * 允许上传的最大文件大小（字节）
+     */
+    @Value("${upload.chunk.maxFileSize:10485760}")
+    private long maxFileSize;
+
+    /**
+     * 会话有效期（分钟），每次上传分片都会顺延
+     */
+    @Value("${upload.chunk.sessionTtlMinutes:1440}")
+    private long sessionTtlMinutes;
+
+    /**
+     * 规范化后的暂存根目录
+     */
+    private Path spoolRoot;
+
+    /**
+     * 初始化暂存目录
+     *
+     * @throws IOException 创建目录失败时抛出
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        spoolRoot = Paths.get(spoolDir).toAbsolutePath().normalize();
+        Files.createDirectories(spoolRoot);
+    }
+
+    @Override
+    public UploadSessionVO initUpload(InitUploadDTO initUploadDTO) {
+        // 验证文件类型
+        String contentType = initUploadDTO.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "只能上传图片文件");
+        }
+
+        // 验证文件大小
+        Long fileSize = initUploadDTO.getFileSize();
+        if (fileSize == null || fileSize <= 0) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "文件大小不合法");
+        }
+        if (fileSize > maxFileSize) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "图片大小不能超过" + (maxFileSize / 1024 / 1024) + "MB");
+        }
+
+        Long userId = SecurityUtil.getCurrentUserId();
+
+        // 计算分片规则
+        int chunkSize = initUploadDTO.getChunkSize() != null ? initUploadDTO.getChunkSize() : defaultChunkSize;
+        chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, chunkSize));
+        int totalChunks = (int) ((fileSize + chunkSize - 1) / chunkSize);
+
+        LocalDateTime now = LocalDateTime.now();
+        UploadSession session = UploadSession.builder()
+                .uploadId(UUID.randomUUID().toString().replace("-", ""))
+                .userId(userId)
+                .fileName(initUploadDTO.getFileName())
+                .contentType(contentType)
+                .fileSize(fileSize)
+                .chunkSize(chunkSize)
+                .totalChunks(totalChunks)
+                .fileMd5(initUploadDTO.getMd5())
+                .status(0)
+                .expireTime(now.plusMinutes(sessionTtlMinutes))
+                .createTime(now)
+                .updateTime(now)
+                .build();
+        uploadSessionDao.insert(session);
+
+        try {
+            Files.createDirectories(sessionDir(session));
+        } catch (IOException e) {
+            log.error("创建分片暂存目录失败", e);
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "初始化上传失败: " + e.getMessage());
+        }
+
+        log.info("初始化分片上传: uploadId={}, fileSize={}, chunkSize={}, totalChunks={}",
+                session.getUploadId(), fileSize, chunkSize, totalChunks);
+        return convertToVO(session, new ArrayList<>());
+    }
+
+    @Override
+    public void uploadChunk(String uploadId, Integer chunkIndex, MultipartFile chunk, String chunkMd5) {
+        UploadSession session = getOwnedSession(uploadId);
+        if (session.getStatus() != 0) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "上传已完成");
+        }
+
+        // 验证分片序号和大小
+        if (chunkIndex == null || chunkIndex < 0 || chunkIndex >= session.getTotalChunks()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "分片序号不合法");
+        }
+        long expectedSize = expectedChunkSize(session, chunkIndex);
+        if (chunk.getSize() != expectedSize) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "分片大小不正确，期望 " + expectedSize + " 字节");
+        }
+
+        Path dir = sessionDir(session);
+        Path temp = dir.resolve(chunkIndex + "." + UUID.randomUUID() + ".tmp");
+        try {
+            // 边写入临时文件边计算MD5
+            MessageDigest md5Digest = MessageDigest.getInstance("MD5");
+            try (InputStream inputStream = new DigestInputStream(chunk.getInputStream(), md5Digest)) {
+                Files.copy(inputStream, temp);
+            }
+            String actualMd5 = HexFormat.of().formatHex(md5Digest.digest());
+            if (chunkMd5 != null && !chunkMd5.isEmpty() && !chunkMd5.equalsIgnoreCase(actualMd5)) {
+                throw new BusinessException(ResultCode.PARAM_ERROR, "分片校验失败，请重新上传");
+            }
+
+            // 校验通过后原子替换为正式分片文件
+            Files.move(temp, chunkFile(dir, chunkIndex), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.error("保存分片失败: uploadId={}, chunkIndex={}", uploadId, chunkIndex, e);
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "保存分片失败: " + e.getMessage());
+        } finally {
+            FileUtils.deleteQuietly(temp.toFile());
+        }
+
+        // 活跃的会话顺延过期时间
+        uploadSessionDao.updateExpireTime(session.getId(), LocalDateTime.now().plusMinutes(sessionTtlMinutes));
+    }
+
+    @Override
+    public UploadSessionVO getUploadSession(String uploadId) {
+        UploadSession session = getOwnedSession(uploadId);
+        return convertToVO(session, listReceivedChunks(session));
+    }
+
+    @Override
+    public ImageUploadVO completeUpload(String uploadId) {
+        UploadSession session = getOwnedSession(uploadId);
+        if (session.getStatus() == 1) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "上传已完成");
+        }
+
+        // 检查分片是否齐全
+        List<Integer> receivedChunks = listReceivedChunks(session);
+        if (receivedChunks.size() != session.getTotalChunks()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR,
+                    "分片不完整，共" + session.getTotalChunks() + "片，已接收" + receivedChunks.size() + "片");
+        }
+
+        // 先占用会话，并发的完成请求只有一个能继续，避免同一文件生成两张图片
+        if (uploadSessionDao.claimForCompletion(session.getId()) == 0) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "上传已完成或正在处理");
+        }
+
+        // 按顺序串联所有分片，以流的方式交给上传流程，不在内存或磁盘上重新拼接
+        Path dir = sessionDir(session);
+        ImageUploadVO result;
+        try (InputStream inputStream = new SequenceInputStream(chunkStreams(dir, session.getTotalChunks()))) {
+            result = imageService.uploadImage(inputStream, session.getFileSize(), session.getFileName(),
+                    session.getContentType(), session.getFileMd5());
+        } catch (IOException | UncheckedIOException e) {
+            uploadSessionDao.releaseClaim(session.getId());
+            log.error("合并分片失败: uploadId={}", uploadId, e);
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "合并分片失败: " + e.getMessage());
+        } catch (RuntimeException e) {
+            uploadSessionDao.releaseClaim(session.getId());
+            throw e;
+        }
+
+        uploadSessionDao.markCompleted(session.getId(), result.getId());
+        FileUtils.deleteQuietly(dir.toFile());
+        log.info("分片上传完成: uploadId={}, imageId={}", uploadId, result.getId());
+        return result;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${upload.chunk.cleanIntervalMs:600000}")
+    public void cleanExpiredSessions() {
+        List<UploadSession> expiredSessions;
+        do {
+            expiredSessions = uploadSessionDao.findExpired(LocalDateTime.now(), CLEAN_BATCH_SIZE);
+            for (UploadSession session : expiredSessions) {
+                if (isDirectUpload(session)) {
+                    // 未完成的直传文件没有任何图片引用，一并删除
+                    if (session.getStatus() == 0) {
+                        storageService.deleteFile(session.getObjectPath());
+                    }
+                } else {
+                    FileUtils.deleteQuietly(sessionDir(session).toFile());
+                }
+                uploadSessionDao.delete(session.getId());
+                log.info("清理过期上传会话: uploadId={}", session.getUploadId());
+            }
+        } while (expiredSessions.size() == CLEAN_BATCH_SIZE);
+    }
+
+    /**
+     * 查询当前用户的上传会话
+     *
+     * @param uploadId 上传会话标识
+     * @return 上传会话
+     */
+    private UploadSession getOwnedSession(String uploadId) {
+        UploadSession session = uploadSessionDao.findByUploadId(uploadId);
+        if (session == null || isDirectUpload(session) || session.getExpireTime().isBefore(LocalDateTime.now())) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "上传会话不存在或已过期");
+        }
+        if (!session.getUserId().equals(SecurityUtil.getCurrentUserId())) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "无权访问该上传会话");
+        }
+        return session;
+    }
+
+    /**
+     * 计算分片的期望大小，最后一片为剩余字节数
+     */
+    private long expectedChunkSize(UploadSession session, int chunkIndex) {
+        long offset = (long) chunkIndex * session.getChunkSize();
+        return Math.min(session.getChunkSize(), session.getFileSize() - offset);
+    }
+
+    /**
+     * 列出已接收的分片序号
+     */
+    private List<Integer> listReceivedChunks(UploadSession session) {
+        List<Integer> receivedChunks = new ArrayList<>();
+        if (session.getStatus() == 1) {
+            return receivedChunks;
+        }
+        Path dir = sessionDir(session);
+        for (int i = 0; i < session.getTotalChunks(); i++) {
+            if (Files.exists(chunkFile(dir, i))) {
+                receivedChunks.add(i);
+            }
+        }
+        return receivedChunks;
+    }
+
+    /**
+     * 按序号依次打开分片文件，只在读到该分片时才打开
+     */
+    private Enumeration<InputStream> chunkStreams(Path dir, int totalChunks) {
+        return new Enumeration<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next < totalChunks;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return new BufferedInputStream(Files.newInputStream(chunkFile(dir, next++)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private boolean isDirectUpload(UploadSession session) {
+        return session.getUploadType() != null && session.getUploadType() == DirectUploadServiceImpl.UPLOAD_TYPE_DIRECT;
+    }
+
+    private Path sessionDir(UploadSession session) {
+        return spoolRoot.resolve(session.getUploadId());
+    }
+
+    private Path chunkFile(Path dir, int chunkIndex) {
+        return dir.resolve(chunkIndex + CHUNK_SUFFIX);
+    }
+
+    /**
+     * 转换为VO
+     */
+    private UploadSessionVO convertToVO(UploadSession session, List<Integer> receivedChunks) {
+        return UploadSessionVO.builder()
+                .uploadId(session.getUploadId())
+                .chunkSize(session.getChunkSize())
+                .totalChunks(session.getTotalChunks())
+                .receivedChunks(receivedChunks)
+                .completed(session.getStatus() == 1)
+                .imageId(session.getImageId())
+                .expireTime(session.getExpireTime())
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.util.ByteSizeLruCache;
+import com.imagehosting.model.dto.CountResultDTO;
+import com.imagehosting.service.CountCacheService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分页总数缓存服务实现类
+ * 每个数据类别和归属用户维护一个版本号，缓存条目记录计数时的版本号，版本号变化即视为失效，
+ * 失效操作不需要遍历缓存。计数先读取版本号再查询，查询期间发生的增删会使这次结果直接过期
+ */
+@Slf4j
+@Service
+public class CountCacheServiceImpl implements CountCacheService {
+
+    /**
+     * 不限用户时的范围标识
+     */
+    private static final String ALL_SCOPE = "*";
+
+    /**
+     * 精确统计的上限，超过时返回估算值
+     */
+    @Value("${page.count.exactLimit:10000}")
+    private int exactLimit;
+
+    /**
+     * 缓存有效期（秒）
+     */
+    @Value("${page.count.ttlSeconds:60}")
+    private long ttlSeconds;
+
+    /**
+     * 最大缓存条目数
+     */
+    @Value("${page.count.maxEntries:10000}")
+    private long maxEntries;
+
+    /**
+     * 计数缓存，容量按条目数计算
+     */
+    private ByteSizeLruCache<String, CachedCount> cache;
+
+    /**
+     * 各数据类别和范围的版本号
+     */
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 初始化缓存
+     */
+    @PostConstruct
+    public void init() {
+        cache = new ByteSizeLruCache<>(maxEntries, entry -> 1);
+    }
+
+    @Override
+    public CountResultDTO count(String namespace, Long scopeId, String queryKey, Counter counter) {
+        String scopeKey = scopeKey(namespace, scopeId);
+        String key = scopeKey + ":" + queryKey;
+        long version = versionOf(scopeKey).get();
+        long now = System.currentTimeMillis();
+        CachedCount cached = cache.get(key);
+        if (cached != null && cached.version == version && cached.expireAt > now) {
+            return cached.result;
+        }
+
+        // 最多多统计一条，用于判断是否超过精确统计的上限
+        long counted = counter.countUpTo(exactLimit + 1);
+        CountResultDTO result = counted <= exactLimit
+                ? new CountResultDTO(counted, true)
+                : new CountResultDTO(Math.max(counted, estimate(counter)), false);
+        cache.put(key, new CachedCount(result, version, now + ttlSeconds * 1000));
+        return result;
+    }
+
+    @Override
+    public void invalidate(String namespace, Long scopeId) {
+        bump(namespace, scopeId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 事务提交前其他请求可能读到旧数据并重新缓存，事务结束后再失效一次
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bump(namespace, scopeId);
+                }
+            });
+        }
+    }
+
+    private void bump(String namespace, Long scopeId) {
+        versionOf(scopeKey(namespace, scopeId)).incrementAndGet();
+        if (scopeId != null) {
+            versionOf(scopeKey(namespace, null)).incrementAndGet();
+        }
+    }
+
+    /**
+     * 根据执行计划估算记录数：扫描行数 × 条件过滤比例
+     */
+    private long estimate(Counter counter) {
+        try {
+            List<Map<String, Object>> plan = counter.explain();
+            if (plan == null || plan.isEmpty()) {
+                return 0;
+            }
+            Map<String, Object> row = plan.get(0);
+            Object rows = row.get("rows");
+            Object filtered = row.get("filtered");
+            if (!(rows instanceof Number)) {
+                return 0;
+            }
+            double ratio = filtered instanceof Number ? ((Number) filtered).doubleValue() / 100 : 1;
+            return Math.round(((Number) rows).longValue() * ratio);
+        } catch (RuntimeException e) {
+            log.warn("估算记录数失败: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private AtomicLong versionOf(String scopeKey) {
+        return versions.computeIfAbsent(scopeKey, key -> new AtomicLong());
+    }
+
+    private static String scopeKey(String namespace, Long scopeId) {
+        return namespace + ":" + (scopeId != null ? scopeId : ALL_SCOPE);
+    }
+
+    /**
+     * 缓存的计数结果
+     */
+    private static class CachedCount {
+        private final CountResultDTO result;
+        private final long version;
+        private final long expireAt;
+
+        CachedCount(CountResultDTO result, long version, long expireAt) {
+            this.result = result;
+            this.version = version;
+            this.expireAt = expireAt;
+        }
+    }
+}
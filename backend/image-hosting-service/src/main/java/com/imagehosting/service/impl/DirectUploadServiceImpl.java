@@ -0,0 +1,152 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.exception.BusinessException;
+import com.imagehosting.common.result.ResultCode;
+import com.imagehosting.common.util.SecurityUtil;
+import com.imagehosting.dao.UploadSessionDao;
+import com.imagehosting.model.dto.InitUploadDTO;
+import com.imagehosting.model.entity.UploadSession;
+import com.imagehosting.model.vo.ImageUploadVO;
+import com.imagehosting.model.vo.PresignedUploadVO;
+import com.imagehosting.service.DirectUploadService;
+import com.imagehosting.service.ImageService;
+import com.imagehosting.service.StorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * 预签名直传服务实现类
+ * 直传会话与分片上传共用upload_session表，以upload_type区分；
+ * 会话过期前未完成的直传文件由上传会话清理任务一并删除
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DirectUploadServiceImpl implements DirectUploadService {
+
+    /**
+     * 直传会话的上传方式
+     */
+    public static final int UPLOAD_TYPE_DIRECT = 1;
+
+    /**
+     * 十六进制MD5格式
+     */
+    private static final Pattern MD5_PATTERN = Pattern.compile("[0-9a-fA-F]{32}");
+
+    private final UploadSessionDao uploadSessionDao;
+    private final StorageService storageService;
+    private final ImageService imageService;
+
+    /**
+     * 预签名上传地址有效期（秒）
+     */
+    @Value("${upload.direct.expireSeconds:900}")
+    private long expireSeconds;
+
+    /**
+     * 上传地址过期后仍允许完成上传的宽限时间（秒）
+     */
+    @Value("${upload.direct.completeGraceSeconds:600}")
+    private long completeGraceSeconds;
+
+    /**
+     * 允许上传的最大文件大小（字节）
+     */
+    @Value("${upload.chunk.maxFileSize:10485760}")
+    private long maxFileSize;
+
+    @Override
+    public PresignedUploadVO initDirectUpload(InitUploadDTO initUploadDTO) {
+        // 验证文件类型
+        String contentType = initUploadDTO.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "只能上传图片文件");
+        }
+
+        // 验证文件大小
+        Long fileSize = initUploadDTO.getFileSize();
+        if (fileSize == null || fileSize <= 0) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "文件大小不合法");
+        }
+        if (fileSize > maxFileSize) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "图片大小不能超过" + (maxFileSize / 1024 / 1024) + "MB");
+        }
+
+        // 验证MD5，存储端据此拒绝内容不符的上传
+        String md5 = initUploadDTO.getMd5();
+        if (md5 == null || !MD5_PATTERN.matcher(md5).matches()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "文件MD5不合法");
+        }
+
+        Long userId = SecurityUtil.getCurrentUserId();
+        String objectPath = storageService.generateFilePath(initUploadDTO.getFileName(), "images");
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime uploadExpireTime = now.plusSeconds(expireSeconds);
+        String contentMd5 = Base64.getEncoder().encodeToString(HexFormat.of().parseHex(md5));
+        PresignedUploadVO presigned = storageService.presignUpload(objectPath, contentType, contentMd5, uploadExpireTime);
+
+        UploadSession session = UploadSession.builder()
+                .uploadId(UUID.randomUUID().toString().replace("-", ""))
+                .userId(userId)
+                .fileName(initUploadDTO.getFileName())
+                .contentType(contentType)
+                .fileSize(fileSize)
+                .chunkSize(0)
+                .totalChunks(0)
+                .uploadType(UPLOAD_TYPE_DIRECT)
+                .objectPath(objectPath)
+                .fileMd5(md5.toLowerCase())
+                .status(0)
+                .expireTime(uploadExpireTime.plusSeconds(completeGraceSeconds))
+                .createTime(now)
+                .updateTime(now)
+                .build();
+        uploadSessionDao.insert(session);
+
+        log.info("签发预签名上传: uploadId={}, path={}, fileSize={}", session.getUploadId(), objectPath, fileSize);
+        presigned.setUploadId(session.getUploadId());
+        return presigned;
+    }
+
+    @Override
+    public ImageUploadVO completeDirectUpload(String uploadId) {
+        UploadSession session = uploadSessionDao.findByUploadId(uploadId);
+        if (session == null || session.getUploadType() != UPLOAD_TYPE_DIRECT
+                || session.getExpireTime().isBefore(LocalDateTime.now())) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "上传会话不存在或已过期");
+        }
+        if (!session.getUserId().equals(SecurityUtil.getCurrentUserId())) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "无权访问该上传会话");
+        }
+        if (session.getStatus() == 1) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "上传已完成");
+        }
+
+        // 先占用会话，并发的完成请求只有一个能继续，避免同一文件生成两张图片
+        if (uploadSessionDao.claimForCompletion(session.getId()) == 0) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "上传已完成或正在处理");
+        }
+
+        // 应用服务器只读取一遍文件做校验和元数据探测，文件内容不再经过上传链路
+        ImageUploadVO result;
+        try {
+            result = imageService.registerUploadedImage(session.getObjectPath(), session.getFileSize(),
+                    session.getFileMd5(), session.getFileName(), session.getContentType());
+        } catch (RuntimeException e) {
+            uploadSessionDao.releaseClaim(session.getId());
+            throw e;
+        }
+        uploadSessionDao.markCompleted(session.getId(), result.getId());
+        log.info("预签名直传完成: uploadId={}, imageId={}", uploadId, result.getId());
+        return result;
+    }
+}
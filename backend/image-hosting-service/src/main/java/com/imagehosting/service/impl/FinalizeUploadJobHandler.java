@@ -0,0 +1,49 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.dao.ImageDao;
+import com.imagehosting.model.entity.ImageJob;
+import com.imagehosting.service.ImageJobHandler;
+import com.imagehosting.service.ImageService;
+import com.imagehosting.service.StorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 异步上传完成处理器
+ * 把存储中的暂存文件写入正式路径并回填图片记录，重试用尽后将图片标记为处理失败并清理暂存文件
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FinalizeUploadJobHandler implements ImageJobHandler {
+
+    /**
+     * 任务类型
+     */
+    public static final String JOB_TYPE = "FINALIZE_UPLOAD";
+
+    private final ImageService imageService;
+    private final ImageDao imageDao;
+    private final StorageService storageService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void handle(ImageJob job) throws Exception {
+        imageService.finalizeSpooledUpload(job.getImageId(), job.getPayload());
+    }
+
+    @Override
+    public void onFailure(ImageJob job, Exception error) {
+        imageDao.updateStatus(job.getImageId(), 2);
+        try {
+            storageService.deleteFile(job.getPayload());
+        } catch (RuntimeException e) {
+            log.warn("删除上传暂存文件失败: {}", job.getPayload());
+        }
+    }
+}
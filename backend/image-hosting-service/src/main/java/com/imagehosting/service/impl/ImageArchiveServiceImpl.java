@@ -0,0 +1,216 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.exception.BusinessException;
+import com.imagehosting.common.result.ResultCode;
+import com.imagehosting.common.util.SecurityUtil;
+import com.imagehosting.dao.ImageDao;
+import com.imagehosting.model.entity.Image;
+import com.imagehosting.service.ImageArchiveService;
+import com.imagehosting.service.StorageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 图片打包下载服务实现类
+ * 每个请求最多提前读取固定数量的图片到内存，按请求顺序逐个写入ZIP，
+ * 内存占用不超过 预读窗口 × 单张图片大小上限，与打包的图片总数无关。
+ * 图片本身已是压缩格式，条目使用STORED方式直接存储，不消耗压缩CPU
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageArchiveServiceImpl implements ImageArchiveService {
+
+    private final ImageDao imageDao;
+    private final StorageService storageService;
+
+    /**
+     * 单次打包的最大图片数
+     */
+    @Value("${image.archive.maxImages:500}")
+    private int maxImages;
+
+    /**
+     * 每个请求同时预读的图片数
+     */
+    @Value("${image.archive.prefetchWindow:4}")
+    private int prefetchWindow;
+
+    /**
+     * 所有请求共享的预读线程数
+     */
+    @Value("${image.archive.prefetchThreads:8}")
+    private int prefetchThreads;
+
+    /**
+     * 预读线程池
+     */
+    private ExecutorService prefetchExecutor;
+
+    /**
+     * 初始化预读线程池
+     */
+    @PostConstruct
+    public void init() {
+        prefetchExecutor = Executors.newFixedThreadPool(prefetchThreads, new CustomizableThreadFactory("archive-prefetch-"));
+    }
+
+    /**
+     * 关闭预读线程池
+     */
+    @PreDestroy
+    public void destroy() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    @Override
+    public void writeArchive(List<Long> imageIds, OutputStream outputStream) throws IOException {
+        List<Image> images = loadImages(imageIds);
+        long start = System.currentTimeMillis();
+
+        ZipOutputStream zipOut = new ZipOutputStream(outputStream);
+        Set<String> usedNames = new HashSet<>();
+        Deque<Future<byte[]>> window = new ArrayDeque<>(prefetchWindow);
+        int next = 0;
+        try {
+            // 预读窗口：写出一张的同时后台读取后面几张
+            while (next < images.size() && window.size() < prefetchWindow) {
+                window.add(prefetch(images.get(next++)));
+            }
+            for (Image image : images) {
+                byte[] data = await(window.poll(), image);
+                if (next < images.size()) {
+                    window.add(prefetch(images.get(next++)));
+                }
+                writeEntry(zipOut, entryName(image, usedNames), data);
+            }
+            zipOut.finish();
+            zipOut.flush();
+        } finally {
+            // 客户端断开或读取失败时取消剩余的预读
+            for (Future<byte[]> future : window) {
+                future.cancel(true);
+            }
+        }
+        log.info("图片打包下载完成: {}张, 耗时{}ms", images.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 校验并按请求顺序查询图片
+     */
+    private List<Image> loadImages(List<Long> imageIds) {
+        if (imageIds == null || imageIds.isEmpty()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "请选择要下载的图片");
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(imageIds));
+        if (ids.size() > maxImages) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "单次最多下载" + maxImages + "张图片");
+        }
+
+        Long userId = SecurityUtil.getCurrentUserId();
+        Map<Long, Image> found = imageDao.findByUserIdAndIds(userId, ids).stream()
+                .collect(Collectors.toMap(Image::getId, Function.identity()));
+        List<Image> images = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Image image = found.get(id);
+            if (image == null) {
+                throw new BusinessException(ResultCode.DATA_NOT_FOUND, "图片不存在或无权访问: " + id);
+            }
+            if (image.getStatus() != 1) {
+                throw new BusinessException(ResultCode.FAILED, "图片尚未处理完成: " + id);
+            }
+            images.add(image);
+        }
+        return images;
+    }
+
+    /**
+     * 在预读线程中读取完整的图片内容
+     */
+    private Future<byte[]> prefetch(Image image) {
+        return prefetchExecutor.submit(() -> {
+            try (InputStream inputStream = storageService.getFileStream(image.getPath())) {
+                return inputStream.readAllBytes();
+            }
+        });
+    }
+
+    /**
+     * 等待预读结果
+     */
+    private byte[] await(Future<byte[]> future, Image image) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("打包下载被中断");
+        } catch (ExecutionException e) {
+            log.error("读取图片失败，打包下载中止: imageId={}", image.getId(), e.getCause());
+            throw new IOException("读取图片失败: " + image.getId(), e.getCause());
+        }
+    }
+
+    /**
+     * 以STORED方式写入一个条目，需要预先给出大小和CRC
+     */
+    private void writeEntry(ZipOutputStream zipOut, String name, byte[] data) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(data.length);
+        entry.setCompressedSize(data.length);
+        entry.setCrc(crc.getValue());
+        zipOut.putNextEntry(entry);
+        zipOut.write(data);
+        zipOut.closeEntry();
+    }
+
+    /**
+     * 生成条目名称：使用原始文件名，去掉路径分隔符，重名时追加序号
+     */
+    private String entryName(Image image, Set<String> usedNames) {
+        String name = image.getOriginalName() != null && !image.getOriginalName().isBlank()
+                ? image.getOriginalName() : String.valueOf(image.getId());
+        name = name.replaceAll("[\\\\/:*?\"<>|]", "_");
+        if (usedNames.add(name)) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int i = 2; ; i++) {
+            String candidate = base + " (" + i + ")" + extension;
+            if (usedNames.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.util.DigestBloomFilter;
+import com.imagehosting.dao.ImageBlobDao;
+import com.imagehosting.model.entity.ImageBlob;
+import com.imagehosting.service.ImageBlobService;
+import com.imagehosting.service.ImageBodyCacheService;
+import com.imagehosting.service.ImageDerivativeService;
+import com.imagehosting.service.StorageService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * 图片内容块服务实现类
+ * 引用计数的增减与图片记录在同一事务中完成，存储对象的删除推迟到事务结束后，
+ * 保证数据库回滚时不会误删仍被引用的对象。
+ * 所有内容块的SHA-256保存在内存布隆过滤器中，秒传检查时绝大多数新内容无需访问数据库。
+ * 过滤器是每个实例本地的，只增不删：已回收的内容块会造成少量误判，由数据库查询兜底；
+ * 多实例部署时其他实例新建的内容块在本实例重建过滤器之前会被判为不存在，只影响秒传命中，
+ * 客户端照常上传后仍按摘要去重。过滤器按 image.blob.index.rebuildIntervalMs 定时重建
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageBlobServiceImpl implements ImageBlobService {
+
+    private final ImageBlobDao imageBlobDao;
+    private final StorageService storageService;
+    private final ImageBodyCacheService imageBodyCacheService;
+    private final ImageDerivativeService imageDerivativeService;
+
+    /**
+     * 构建摘要索引时每页读取的数量
+     */
+    private static final int INDEX_LOAD_BATCH_SIZE = 5000;
+
+    /**
+     * 摘要索引预计容纳的内容块数量
+     */
+    @Value("${image.blob.index.expectedInsertions:1000000}")
+    private long expectedInsertions;
+
+    /**
+     * 摘要索引的误判率
+     */
+    @Value("${image.blob.index.falsePositiveRate:0.01}")
+    private double falsePositiveRate;
+
+    /**
+     * 内容块SHA-256的布隆过滤器
+     */
+    private volatile DigestBloomFilter digestIndex;
+
+    /**
+     * 正在重建的布隆过滤器，重建期间新增的摘要同时写入，避免替换后丢失
+     */
+    private volatile DigestBloomFilter rebuildingIndex;
+
+    /**
+     * 启动时按ID顺序加载全部内容块的SHA-256
+     */
+    @PostConstruct
+    public void init() {
+        rebuildDigestIndex();
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${image.blob.index.rebuildIntervalMs:3600000}",
+            fixedDelayString = "${image.blob.index.rebuildIntervalMs:3600000}")
+    public synchronized void rebuildDigestIndex() {
+        DigestBloomFilter index = new DigestBloomFilter(expectedInsertions, falsePositiveRate);
+        rebuildingIndex = index;
+        try {
+            long afterId = 0;
+            long count = 0;
+            List<ImageBlob> page;
+            do {
+                page = imageBlobDao.findSha256After(afterId, INDEX_LOAD_BATCH_SIZE);
+                for (ImageBlob blob : page) {
+                    index.put(blob.getSha256());
+                    afterId = blob.getId();
+                }
+                count += page.size();
+            } while (page.size() == INDEX_LOAD_BATCH_SIZE);
+            digestIndex = index;
+            log.info("内容块摘要索引加载完成，共{}条", count);
+        } finally {
+            rebuildingIndex = null;
+        }
+    }
+
+    @Override
+    public ImageBlob acquire(ImageBlob candidate) {
+        // 插入或对已有内容块加引用，唯一索引保证并发上传相同内容时只有一个对象胜出
+        imageBlobDao.insertOrIncrementRef(candidate);
+        ImageBlob blob = imageBlobDao.findBySha256(candidate.getSha256());
+        digestIndex.put(blob.getSha256());
+        DigestBloomFilter rebuilding = rebuildingIndex;
+        if (rebuilding != null) {
+            rebuilding.put(blob.getSha256());
+        }
+
+        if (!blob.getPath().equals(candidate.getPath())) {
+            // 内容已存在，刚上传的对象没有任何引用，直接删除
+            storageService.deleteFile(candidate.getPath());
+            log.debug("复用已有内容块: id={}, sha256={}", blob.getId(), blob.getSha256());
+        } else {
+            // 新建的内容块随事务回滚而消失，对应的存储对象也要一并删除
+            runAfterCompletion(false, candidate.getPath());
+        }
+        return blob;
+    }
+
+    @Override
+    public ImageBlob acquireExisting(String sha256, long size) {
+        if (sha256 == null || sha256.length() != 64 || !digestIndex.mightContain(sha256)) {
+            return null;
+        }
+        ImageBlob blob = imageBlobDao.findBySha256(sha256);
+        if (blob == null || blob.getSize() != size) {
+            return null;
+        }
+        // 引用计数为零的内容块正在被回收，不能再复用
+        if (imageBlobDao.incrementRefIfReferenced(blob.getId()) == 0) {
+            return null;
+        }
+        return blob;
+    }
+
+    @Override
+    public void release(Long blobId) {
+        if (blobId == null) {
+            return;
+        }
+        imageBlobDao.decrementRef(blobId);
+        ImageBlob blob = imageBlobDao.findById(blobId);
+        if (blob == null || blob.getRefCount() > 0) {
+            return;
+        }
+
+        // 最后一个引用已释放，删除记录后在事务提交时回收存储对象
+        if (imageBlobDao.deleteIfUnreferenced(blobId) > 0) {
+            log.info("内容块已无引用，回收存储对象: id={}, path={}", blobId, blob.getPath());
+            runAfterCompletion(true, blob.getPath());
+            imageBodyCacheService.evict(blob.getPath());
+            imageDerivativeService.deleteDerivatives(blobId);
+        }
+    }
+
+    /**
+     * 在事务结束后删除存储对象
+     *
+     * @param onCommit true表示提交后删除，false表示回滚后删除
+     * @param filePath 存储路径
+     */
+    private void runAfterCompletion(boolean onCommit, String filePath) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 不在事务中时数据库修改已生效，提交后删除的对象立即删除
+            if (onCommit) {
+                storageService.deleteFile(filePath);
+            }
+            return;
+        }
+        int expectedStatus = onCommit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == expectedStatus) {
+                    storageService.deleteFile(filePath);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,141 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.util.TinyLfuCache;
+import com.imagehosting.service.ImageBodyCacheService;
+import com.imagehosting.service.StorageService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 图片内容缓存服务实现类
+ * 存储路径对应的文件内容不会变化，缓存条目无需失效，只按容量淘汰；
+ * 使用TinyLFU准入，批量导出、爬虫等一次性访问不会挤掉热门图片。
+ * 开启堆外存储时内容保存在直接内存中，不占用堆空间，上限同时受-XX:MaxDirectMemorySize限制
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageBodyCacheServiceImpl implements ImageBodyCacheService {
+
+    private final StorageService storageService;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 缓存容量（字节），为0时不缓存
+     */
+    @Value("${image.cache.maxBytes:268435456}")
+    private long maxBytes;
+
+    /**
+     * 单张图片可缓存的最大字节数
+     */
+    @Value("${image.cache.maxEntryBytes:4194304}")
+    private long maxEntryBytes;
+
+    /**
+     * 预计平均图片大小（字节），用于估算条目数
+     */
+    @Value("${image.cache.averageEntryBytes:262144}")
+    private long averageEntryBytes;
+
+    /**
+     * 是否使用堆外内存保存图片内容
+     */
+    @Value("${image.cache.offHeap:false}")
+    private boolean offHeap;
+
+    /**
+     * 图片内容缓存
+     */
+    private TinyLfuCache<String, ByteBuffer> cache;
+
+    /**
+     * 初始化缓存并注册监控指标
+     */
+    @PostConstruct
+    public void init() {
+        int expectedEntries = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxBytes / Math.max(1, averageEntryBytes)));
+        cache = new TinyLfuCache<>(maxBytes, expectedEntries, ByteBuffer::capacity);
+
+        FunctionCounter.builder("image.body.cache.requests", cache, TinyLfuCache::hitCount)
+                .tag("result", "hit").description("图片内容缓存命中次数").register(meterRegistry);
+        FunctionCounter.builder("image.body.cache.requests", cache, TinyLfuCache::missCount)
+                .tag("result", "miss").description("图片内容缓存未命中次数").register(meterRegistry);
+        FunctionCounter.builder("image.body.cache.evictions", cache, TinyLfuCache::evictionCount)
+                .description("因容量不足被淘汰的图片数").register(meterRegistry);
+        FunctionCounter.builder("image.body.cache.rejections", cache, TinyLfuCache::rejectionCount)
+                .description("因访问频率不足未被缓存的图片数").register(meterRegistry);
+        Gauge.builder("image.body.cache.size", cache, TinyLfuCache::weightedSize)
+                .baseUnit("bytes").description("图片内容缓存占用字节数").register(meterRegistry);
+        Gauge.builder("image.body.cache.hit.ratio", cache, ImageBodyCacheServiceImpl::hitRatio)
+                .description("图片内容缓存命中率").register(meterRegistry);
+        log.info("图片内容缓存: 容量{}字节, 单张上限{}字节, 堆外存储{}", maxBytes, maxEntryBytes, offHeap);
+    }
+
+    @Override
+    public ByteBuffer getBody(String storagePath, long size) throws IOException {
+        if (maxBytes <= 0 || size <= 0 || size > maxEntryBytes) {
+            return null;
+        }
+        ByteBuffer cached = cache.get(storagePath);
+        if (cached != null) {
+            return cached.asReadOnlyBuffer();
+        }
+        // 先判断能否放入缓存，不会被缓存的图片不读入内存，由调用方直接从存储传输
+        if (!cache.shouldAdmit(storagePath, size)) {
+            return null;
+        }
+
+        ByteBuffer body = load(storagePath, size);
+        if (body == null) {
+            return null;
+        }
+        cache.put(storagePath, body);
+        return body.asReadOnlyBuffer();
+    }
+
+    @Override
+    public void evict(String storagePath) {
+        if (cache != null) {
+            cache.remove(storagePath);
+        }
+    }
+
+    /**
+     * 从存储读取完整内容
+     *
+     * @return 图片内容，实际大小与预期不符时返回null
+     */
+    private ByteBuffer load(String storagePath, long size) throws IOException {
+        byte[] data;
+        try (InputStream inputStream = storageService.getFileStream(storagePath)) {
+            data = inputStream.readNBytes((int) size + 1);
+        }
+        if (data.length != size) {
+            log.warn("图片实际大小与记录不符，不缓存: {}, 记录{}字节, 实际{}字节", storagePath, size, data.length);
+            return null;
+        }
+        if (!offHeap) {
+            return ByteBuffer.wrap(data);
+        }
+        ByteBuffer body = ByteBuffer.allocateDirect(data.length);
+        body.put(data).flip();
+        return body;
+    }
+
+    private static double hitRatio(TinyLfuCache<String, ByteBuffer> cache) {
+        long hits = cache.hitCount();
+        long total = hits + cache.missCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,392 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.exception.BusinessException;
+import com.imagehosting.common.result.ResultCode;
+import com.imagehosting.common.util.ByteSizeLruCache;
+import com.imagehosting.dao.ImageDao;
+import com.imagehosting.model.entity.Image;
+import com.imagehosting.model.vo.DerivativeImageVO;
+import com.imagehosting.service.ImageDerivativeService;
+import com.imagehosting.service.ImageUrlService;
+import com.imagehosting.service.StorageService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 衍生图片服务实现类
+ * 查找顺序为内存LRU（按字节数限制容量）、本地磁盘缓存、实时生成；
+ * 磁盘缓存以文件修改时间记录最近访问时间，由定时清理按总字节数淘汰最久未访问的文件。
+ * 同一个衍生图片的并发请求合并为一次生成，其余请求等待同一结果。
+ * 缓存按内容块归属，引用同一内容块的图片共享衍生图片，内容块回收时一并删除；
+ * 未关联内容块的旧图片按图片ID单独缓存
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageDerivativeServiceImpl implements ImageDerivativeService {
+
+    private final ImageDao imageDao;
+    private final StorageService storageService;
+    private final ImageResizer imageResizer;
+    private final ImageTranscoder imageTranscoder;
+    private final ImageUrlService imageUrlService;
+
+    /**
+     * 内存缓存容量（字节）
+     */
+    @Value("${image.derivative.memoryCacheBytes:67108864}")
+    private long memoryCacheBytes;
+
+    /**
+     * 磁盘缓存目录
+     */
+    @Value("${image.derivative.cacheDir:./data/derivatives}")
+    private String cacheDir;
+
+    /**
+     * 磁盘缓存容量（字节）
+     */
+    @Value("${image.derivative.diskCacheBytes:1073741824}")
+    private long diskCacheBytes;
+
+    /**
+     * 允许的最大宽高
+     */
+    @Value("${image.derivative.maxDimension:4096}")
+    private int maxDimension;
+
+    /**
+     * 默认JPEG输出质量
+     */
+    @Value("${image.derivative.defaultQuality:80}")
+    private int defaultQuality;
+
+    /**
+     * 规范化后的磁盘缓存目录
+     */
+    private Path cacheRoot;
+
+    /**
+     * 内存缓存
+     */
+    private ByteSizeLruCache<String, DerivativeImageVO> memoryCache;
+
+    /**
+     * 正在生成中的衍生图片，用于合并并发请求
+     */
+    private final ConcurrentMap<String, CompletableFuture<DerivativeImageVO>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 按内容块缓存时的归属前缀
+     */
+    private static final String BLOB_OWNER_PREFIX = "b";
+
+    /**
+     * 未关联内容块时按图片缓存的归属前缀
+     */
+    private static final String IMAGE_OWNER_PREFIX = "i";
+
+    /**
+     * 初始化缓存
+     *
+     * @throws IOException 创建目录失败时抛出
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        cacheRoot = Paths.get(cacheDir).toAbsolutePath().normalize();
+        Files.createDirectories(cacheRoot);
+        memoryCache = new ByteSizeLruCache<>(memoryCacheBytes, derivative -> derivative.getData().length);
+    }
+
+    @Override
+    public DerivativeImageVO getDerivative(Long imageId, Integer width, Integer height, String fit, Integer quality, String accept,
+                                           Long expires, String sign) {
+        // 验证参数，宽高为0表示按原图比例计算，都为0时只转码不缩放
+        int w = width != null ? width : 0;
+        int h = height != null ? height : 0;
+        if (w < 0 || h < 0 || w > maxDimension || h > maxDimension) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "宽高需在0到" + maxDimension + "之间");
+        }
+        String mode = fit != null ? fit.toLowerCase() : ImageResizer.FIT_CONTAIN;
+        if (!ImageResizer.FIT_CONTAIN.equals(mode) && !ImageResizer.FIT_COVER.equals(mode) && !ImageResizer.FIT_FILL.equals(mode)) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "不支持的缩放方式: " + fit);
+        }
+        int q = quality != null ? quality : defaultQuality;
+        if (q < 1 || q > 100) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "质量需在1到100之间");
+        }
+
+        // 查询图片
+        Image image = imageDao.findById(imageId);
+        if (image == null || image.getDeleted() == 1 || image.getStatus() != 1) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "图片不存在");
+        }
+        imageUrlService.checkAccess(image, expires, sign);
+
+        // 同一Accept可选的格式集合相同，生成结果也相同，以格式集合区分缓存
+        String formats = imageTranscoder.negotiate(accept, false).stream()
+                .map(mimeType -> mimeType.substring(mimeType.indexOf('/') + 1))
+                .collect(Collectors.joining("+"));
+        String variant = w + "x" + h + "-" + mode + "-q" + q + "-" + formats;
+        String owner = cacheOwner(image);
+        String key = owner + "/" + variant;
+
+        DerivativeImageVO cached = memoryCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        // 合并并发请求：只有第一个请求负责生成，其余等待其结果
+        CompletableFuture<DerivativeImageVO> future = new CompletableFuture<>();
+        CompletableFuture<DerivativeImageVO> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            Path diskFile = ownerDir(owner).resolve(variant);
+            DerivativeImageVO result = readFromDisk(diskFile);
+            if (result == null) {
+                result = generate(image, w, h, mode, q, accept);
+                writeToDisk(diskFile, result.getData());
+            }
+            memoryCache.put(key, result);
+            future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    @Override
+    public void deleteDerivatives(Long blobId) {
+        if (blobId != null) {
+            evictAfterCommit(BLOB_OWNER_PREFIX + blobId);
+        }
+    }
+
+    @Override
+    public void deleteImageDerivatives(Long imageId) {
+        if (imageId != null) {
+            evictAfterCommit(IMAGE_OWNER_PREFIX + imageId);
+        }
+    }
+
+    /**
+     * 衍生图片的缓存归属：有内容块时为内容块，否则为图片本身
+     */
+    private static String cacheOwner(Image image) {
+        return image.getBlobId() != null ? BLOB_OWNER_PREFIX + image.getBlobId() : IMAGE_OWNER_PREFIX + image.getId();
+    }
+
+    /**
+     * 归属的磁盘缓存目录，按ID末两位分散到子目录，避免单个目录下文件过多
+     */
+    private Path ownerDir(String owner) {
+        String id = owner.substring(1);
+        String bucket = id.length() > 2 ? id.substring(id.length() - 2) : id;
+        return cacheRoot.resolve(owner.substring(0, 1) + bucket).resolve(owner);
+    }
+
+    /**
+     * 在事务提交后删除归属下的全部衍生图片（内存和磁盘），不在事务中时立即删除
+     */
+    private void evictAfterCommit(String owner) {
+        String prefix = owner + "/";
+        Path dir = ownerDir(owner);
+        Runnable evict = () -> {
+            memoryCache.removeIf(key -> key.startsWith(prefix));
+            FileUtils.deleteQuietly(dir.toFile());
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict.run();
+            }
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${image.derivative.diskSweepIntervalMs:600000}")
+    public void sweepDiskCache() {
+        List<CachedFile> files = new ArrayList<>();
+        long staleTempMillis = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+        try {
+            Files.walkFileTree(cacheRoot, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    // 正在写入的临时文件不参与淘汰，写入中断留下的临时文件超过一小时后清理
+                    if (file.getFileName().toString().startsWith(".") && attrs.lastModifiedTime().toMillis() > staleTempMillis) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    files.add(new CachedFile(file, attrs.lastModifiedTime(), attrs.size()));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    // 遍历期间被删除的文件直接跳过
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("遍历衍生图片磁盘缓存失败: {}", e.getMessage());
+            return;
+        }
+        long total = files.stream().mapToLong(file -> file.size).sum();
+        if (total <= diskCacheBytes) {
+            return;
+        }
+
+        // 按最近访问时间从旧到新删除，降到上限的90%，避免每轮只删一点又立刻超限
+        long target = diskCacheBytes / 10 * 9;
+        files.sort(Comparator.comparing(file -> file.accessTime));
+        long freed = 0;
+        int deleted = 0;
+        for (CachedFile file : files) {
+            if (total - freed <= target) {
+                break;
+            }
+            try {
+                Files.delete(file.path);
+                freed += file.size;
+                deleted++;
+                deleteIfEmpty(file.path.getParent());
+            } catch (IOException e) {
+                // 已被并发删除或正在使用，留到下一轮
+                log.debug("删除衍生图片磁盘缓存失败: {}, {}", file.path, e.getMessage());
+            }
+        }
+        log.info("清理衍生图片磁盘缓存: 删除{}个文件, 释放{}字节, 剩余{}字节", deleted, freed, total - freed);
+    }
+
+    /**
+     * 删除空的缓存目录（归属目录及其分散目录），目录非空时保留
+     */
+    private void deleteIfEmpty(Path dir) {
+        while (dir != null && dir.startsWith(cacheRoot) && !dir.equals(cacheRoot)) {
+            try {
+                Files.delete(dir);
+            } catch (IOException e) {
+                return;
+            }
+            dir = dir.getParent();
+        }
+    }
+
+    /**
+     * 从原图生成衍生图片
+     */
+    private DerivativeImageVO generate(Image image, int width, int height, String fit, int quality, String accept) {
+        long start = System.currentTimeMillis();
+        try (InputStream inputStream = storageService.getFileStream(image.getPath())) {
+            DerivativeImageVO result = imageResizer.resize(inputStream, width, height, fit, quality, accept, image.getMimeType());
+            log.debug("生成衍生图片: imageId={}, {}x{} {} q{} {}, {}字节, 耗时{}ms", image.getId(), width, height, fit, quality,
+                    result.getContentType(), result.getData().length, System.currentTimeMillis() - start);
+            return result;
+        } catch (IOException e) {
+            log.error("生成衍生图片失败: imageId={}", image.getId(), e);
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "生成缩略图失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 等待其他请求生成的结果
+     */
+    private DerivativeImageVO await(CompletableFuture<DerivativeImageVO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BusinessException) {
+                throw (BusinessException) e.getCause();
+            }
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "生成缩略图失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 读取磁盘缓存，根据文件头判断媒体类型，并以修改时间记录本次访问
+     */
+    private DerivativeImageVO readFromDisk(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            byte[] data = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return DerivativeImageVO.builder().data(data).contentType(ImageTranscoder.detectContentType(data)).build();
+        } catch (IOException e) {
+            log.warn("读取衍生图片磁盘缓存失败: {}, {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入磁盘缓存，先写临时文件再原子重命名，写入失败不影响本次请求
+     */
+    private void writeToDisk(Path file, byte[] data) {
+        Path temp = file.resolveSibling("." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(temp, data);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("写入衍生图片磁盘缓存失败: {}, {}", file, e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // 临时文件删除失败只会留下垃圾文件
+            }
+        }
+    }
+
+    /**
+     * 磁盘缓存文件
+     */
+    private static class CachedFile {
+        private final Path path;
+        private final FileTime accessTime;
+        private final long size;
+
+        CachedFile(Path path, FileTime accessTime, long size) {
+            this.path = path;
+            this.accessTime = accessTime;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.dao.ImageJobDao;
+import com.imagehosting.model.entity.ImageJob;
+import com.imagehosting.service.ImageJobHandler;
+import com.imagehosting.service.ImageJobService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片后台任务服务实现类
+ * 领取任务时写入执行节点和租约到期时间，节点崩溃后租约过期的任务会被其他轮询重新领取；
+ * 失败的任务按指数退避重试，用尽次数后交给处理器做失败处理。
+ * 执行结果只在任务仍由本次执行持有时写回，租约过期后被重新领取的任务以新的执行结果为准
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageJobServiceImpl implements ImageJobService {
+
+    /**
+     * 错误信息最大长度，与image_job.last_error列一致
+     */
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    /**
+     * 重试间隔上限（秒）
+     */
+    private static final long MAX_RETRY_DELAY_SECONDS = 3600;
+
+    private final ImageJobDao imageJobDao;
+    private final List<ImageJobHandler> handlers;
+
+    /**
+     * 执行任务的线程数
+     */
+    @Value("${image.job.workers:4}")
+    private int workers;
+
+    /**
+     * 任务执行租约（秒），超过该时间未完成的任务视为执行节点已崩溃
+     */
+    @Value("${image.job.leaseSeconds:300}")
+    private long leaseSeconds;
+
+    /**
+     * 首次重试间隔（秒），之后每次翻倍
+     */
+    @Value("${image.job.retryBaseSeconds:10}")
+    private long retryBaseSeconds;
+
+    /**
+     * 当前节点标识
+     */
+    private String workerId;
+
+    /**
+     * 任务类型到处理器的映射
+     */
+    private Map<String, ImageJobHandler> handlerMap;
+
+    /**
+     * 任务执行线程池
+     */
+    private ThreadPoolExecutor jobExecutor;
+
+    /**
+     * 初始化处理器映射和线程池
+     */
+    @PostConstruct
+    public void init() {
+        handlerMap = new HashMap<>();
+        for (ImageJobHandler handler : handlers) {
+            handlerMap.put(handler.getJobType(), handler);
+        }
+
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        workerId = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+        // 轮询只领取线程池能立即容纳的任务，有界队列保证已领取但未执行的任务不超过线程数
+        jobExecutor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers), new CustomizableThreadFactory("image-job-"));
+        log.info("图片后台任务队列已启动: workerId={}, handlers={}", workerId, handlerMap.keySet());
+    }
+
+    /**
+     * 关闭线程池，未完成的任务在租约过期后由其他轮询重新领取
+     */
+    @PreDestroy
+    public void destroy() {
+        jobExecutor.shutdown();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${image.job.pollInterval:1000}")
+    public void pollJobs() {
+        int capacity = workers - jobExecutor.getActiveCount() - jobExecutor.getQueue().size();
+        if (capacity <= 0) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ImageJob> jobs = imageJobDao.findRunnable(now, capacity);
+        for (ImageJob job : jobs) {
+            // 条件更新领取任务，多个节点同时轮询时只有一个能成功
+            if (imageJobDao.claim(job.getId(), workerId, now.plusSeconds(leaseSeconds), now) == 1) {
+                job.setAttempts(job.getAttempts() + 1);
+                try {
+                    jobExecutor.execute(() -> runJob(job));
+                } catch (RejectedExecutionException e) {
+                    // 线程池已满或正在关闭，任务保持领取状态，租约过期后重新领取
+                    log.warn("任务提交被拒绝，等待租约过期后重试: jobId={}", job.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * 执行任务并记录结果
+     *
+     * @param job 已领取的任务
+     */
+    private void runJob(ImageJob job) {
+        ImageJobHandler handler = handlerMap.get(job.getJobType());
+        if (handler == null) {
+            log.error("未找到任务处理器: jobId={}, jobType={}", job.getId(), job.getJobType());
+            if (imageJobDao.markFailed(job.getId(), workerId, job.getAttempts(), "未知的任务类型: " + job.getJobType()) == 0) {
+                logLostLease(job);
+            }
+            return;
+        }
+
+        // 在最后一次执行中崩溃的任务被重新领取时，执行次数已超过上限
+        if (job.getAttempts() > job.getMaxAttempts()) {
+            fail(handler, job, null, "执行次数已用尽");
+            return;
+        }
+
+        try {
+            handler.handle(job);
+            if (imageJobDao.markSucceeded(job.getId(), workerId, job.getAttempts()) == 0) {
+                logLostLease(job);
+                return;
+            }
+            log.debug("任务执行成功: jobId={}, jobType={}", job.getId(), job.getJobType());
+        } catch (Exception e) {
+            String error = truncate(e.getClass().getSimpleName() + ": " + e.getMessage());
+            if (job.getAttempts() >= job.getMaxAttempts()) {
+                log.error("任务执行失败且不再重试: jobId={}, jobType={}", job.getId(), job.getJobType(), e);
+                fail(handler, job, e, error);
+            } else {
+                long delay = Math.min(MAX_RETRY_DELAY_SECONDS, retryBaseSeconds << Math.min(job.getAttempts() - 1, 20));
+                log.warn("任务执行失败，{}秒后重试: jobId={}, attempts={}, error={}", delay, job.getId(), job.getAttempts(), error);
+                if (imageJobDao.markRetry(job.getId(), workerId, job.getAttempts(), LocalDateTime.now().plusSeconds(delay), error) == 0) {
+                    logLostLease(job);
+                }
+            }
+        }
+    }
+
+    /**
+     * 标记任务最终失败并通知处理器
+     */
+    private void fail(ImageJobHandler handler, ImageJob job, Exception error, String message) {
+        if (imageJobDao.markFailed(job.getId(), workerId, job.getAttempts(), message) == 0) {
+            // 任务已由其他执行接管，失败处理交给接管者决定，避免误清理
+            logLostLease(job);
+            return;
+        }
+        try {
+            handler.onFailure(job, error);
+        } catch (Exception e) {
+            log.error("任务失败处理异常: jobId={}", job.getId(), e);
+        }
+    }
+
+    /**
+     * 租约已过期且任务已被重新领取，丢弃本次执行结果
+     */
+    private void logLostLease(ImageJob job) {
+        log.warn("任务已不由本次执行持有，丢弃执行结果: jobId={}, attempts={}, workerId={}", job.getId(), job.getAttempts(), workerId);
+    }
+
+    private String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,322 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.model.dto.ImageMetadataDTO;
+import com.imagehosting.service.ImageProbeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * 图片元数据探测服务实现类
+ * 直接解析PNG IHDR、JPEG SOFn、GIF、BMP和WebP头部，其他格式交给ImageReader惰性读取头信息
+ */
+@Slf4j
+@Service
+public class ImageProbeServiceImpl implements ImageProbeService {
+
+    /**
+     * EXIF方向标签
+     */
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    @Override
+    public ImageMetadataDTO probe(byte[] header, int length) {
+        if (header == null || length < 12) {
+            return null;
+        }
+        length = Math.min(length, header.length);
+        ImageMetadataDTO metadata = null;
+        try {
+            if (isPng(header)) {
+                metadata = probePng(header, length);
+            } else if (isJpeg(header)) {
+                metadata = probeJpeg(header, length);
+            } else if (isGif(header)) {
+                metadata = probeGif(header);
+            } else if (isBmp(header)) {
+                metadata = probeBmp(header, length);
+            } else if (isWebp(header)) {
+                metadata = probeWebp(header, length);
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            // 头部被截断，交给ImageReader处理
+            log.debug("图片头部不完整: {}", e.getMessage());
+        }
+        if (metadata != null) {
+            return metadata;
+        }
+        // 头部解析未得到尺寸（格式未知、结构异常或SOF不在头部范围内），交给ImageReader处理
+        return probeWithImageReader(new ByteArrayInputStream(header, 0, length));
+    }
+
+    @Override
+    public ImageMetadataDTO probe(InputStream inputStream) {
+        return probeWithImageReader(inputStream);
+    }
+
+    private boolean isPng(byte[] b) {
+        return (b[0] & 0xFF) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G'
+                && b[4] == 0x0D && b[5] == 0x0A && b[6] == 0x1A && b[7] == 0x0A;
+    }
+
+    private boolean isJpeg(byte[] b) {
+        return (b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xD8;
+    }
+
+    private boolean isGif(byte[] b) {
+        return b[0] == 'G' && b[1] == 'I' && b[2] == 'F' && b[3] == '8'
+                && (b[4] == '7' || b[4] == '9') && b[5] == 'a';
+    }
+
+    private boolean isBmp(byte[] b) {
+        return b[0] == 'B' && b[1] == 'M';
+    }
+
+    private boolean isWebp(byte[] b) {
+        return b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F'
+                && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P';
+    }
+
+    /**
+     * PNG：签名之后第一个块必须是IHDR，宽高为大端32位整数
+     */
+    private ImageMetadataDTO probePng(byte[] b, int length) {
+        if (length < 24 || b[12] != 'I' || b[13] != 'H' || b[14] != 'D' || b[15] != 'R') {
+            return null;
+        }
+        return ImageMetadataDTO.builder()
+                .width(readIntBE(b, 16))
+                .height(readIntBE(b, 20))
+                .mimeType("image/png")
+                .build();
+    }
+
+    /**
+     * JPEG：顺序跳过各个段直到SOFn，途中从APP1(Exif)读取方向
+     */
+    private ImageMetadataDTO probeJpeg(byte[] b, int length) {
+        int orientation = 1;
+        int pos = 2;
+        while (pos + 3 < length) {
+            if ((b[pos] & 0xFF) != 0xFF) {
+                return null;
+            }
+            int marker = b[pos + 1] & 0xFF;
+            // 填充字节
+            if (marker == 0xFF) {
+                pos++;
+                continue;
+            }
+            // 无长度的独立标记
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                pos += 2;
+                continue;
+            }
+            // 图像数据开始或结束仍未遇到SOF，无法确定尺寸
+            if (marker == 0xD9 || marker == 0xDA) {
+                return null;
+            }
+            int segmentLength = readShortBE(b, pos + 2);
+            if (isStartOfFrame(marker)) {
+                if (pos + 9 > length) {
+                    return null;
+                }
+                return ImageMetadataDTO.builder()
+                        .height(readShortBE(b, pos + 5))
+                        .width(readShortBE(b, pos + 7))
+                        .mimeType("image/jpeg")
+                        .orientation(orientation)
+                        .build();
+            }
+            if (marker == 0xE1) {
+                orientation = readExifOrientation(b, pos + 4, Math.min(length, pos + 2 + segmentLength), orientation);
+            }
+            pos += 2 + segmentLength;
+        }
+        return null;
+    }
+
+    /**
+     * SOF0-SOF15，排除DHT(C4)、JPG(C8)和DAC(CC)
+     */
+    private boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    /**
+     * 解析APP1段中的TIFF结构，读取IFD0中的方向标签
+     */
+    private int readExifOrientation(byte[] b, int start, int end, int defaultValue) {
+        if (end - start < 14 || b[start] != 'E' || b[start + 1] != 'x' || b[start + 2] != 'i'
+                || b[start + 3] != 'f' || b[start + 4] != 0 || b[start + 5] != 0) {
+            return defaultValue;
+        }
+        int tiff = start + 6;
+        boolean littleEndian;
+        if (b[tiff] == 'I' && b[tiff + 1] == 'I') {
+            littleEndian = true;
+        } else if (b[tiff] == 'M' && b[tiff + 1] == 'M') {
+            littleEndian = false;
+        } else {
+            return defaultValue;
+        }
+        int ifd = tiff + readInt(b, tiff + 4, littleEndian);
+        if (ifd < tiff || ifd + 2 > end) {
+            return defaultValue;
+        }
+        int entries = readShort(b, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if (readShort(b, entry, littleEndian) == EXIF_ORIENTATION_TAG) {
+                int value = readShort(b, entry + 8, littleEndian);
+                return value >= 1 && value <= 8 ? value : defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * GIF：逻辑屏幕描述符中的小端16位宽高
+     */
+    private ImageMetadataDTO probeGif(byte[] b) {
+        return ImageMetadataDTO.builder()
+                .width(readShortLE(b, 6))
+                .height(readShortLE(b, 8))
+                .mimeType("image/gif")
+                .build();
+    }
+
+    /**
+     * BMP：根据DIB头大小区分OS/2 BITMAPCOREHEADER和Windows BITMAPINFOHEADER
+     */
+    private ImageMetadataDTO probeBmp(byte[] b, int length) {
+        if (length < 26) {
+            return null;
+        }
+        int dibHeaderSize = readIntLE(b, 14);
+        int width;
+        int height;
+        if (dibHeaderSize == 12) {
+            width = readShortLE(b, 18);
+            height = readShortLE(b, 20);
+        } else {
+            width = readIntLE(b, 18);
+            // 高度为负数表示自上而下存储
+            height = Math.abs(readIntLE(b, 22));
+        }
+        return ImageMetadataDTO.builder()
+                .width(width)
+                .height(height)
+                .mimeType("image/bmp")
+                .build();
+    }
+
+    /**
+     * WebP：区分有损(VP8)、无损(VP8L)和扩展(VP8X)三种格式
+     */
+    private ImageMetadataDTO probeWebp(byte[] b, int length) {
+        if (length < 30) {
+            return null;
+        }
+        Integer width = null;
+        Integer height = null;
+        if (b[12] == 'V' && b[13] == 'P' && b[14] == '8' && b[15] == ' ') {
+            // 帧起始码 9D 01 2A 之后为14位宽高
+            if ((b[23] & 0xFF) == 0x9D && (b[24] & 0xFF) == 0x01 && (b[25] & 0xFF) == 0x2A) {
+                width = readShortLE(b, 26) & 0x3FFF;
+                height = readShortLE(b, 28) & 0x3FFF;
+            }
+        } else if (b[12] == 'V' && b[13] == 'P' && b[14] == '8' && b[15] == 'L') {
+            // 签名0x2F之后依次为14位宽减1、14位高减1
+            if ((b[20] & 0xFF) == 0x2F) {
+                int b0 = b[21] & 0xFF;
+                int b1 = b[22] & 0xFF;
+                int b2 = b[23] & 0xFF;
+                int b3 = b[24] & 0xFF;
+                width = 1 + (b0 | ((b1 & 0x3F) << 8));
+                height = 1 + ((b1 >> 6) | (b2 << 2) | ((b3 & 0x0F) << 10));
+            }
+        } else if (b[12] == 'V' && b[13] == 'P' && b[14] == '8' && b[15] == 'X') {
+            // 画布宽高为24位小端整数减1
+            width = 1 + readInt24LE(b, 24);
+            height = 1 + readInt24LE(b, 27);
+        }
+        if (width == null) {
+            return null;
+        }
+        return ImageMetadataDTO.builder()
+                .width(width)
+                .height(height)
+                .mimeType("image/webp")
+                .build();
+    }
+
+    /**
+     * 其他格式使用ImageReader，只读取头信息
+     */
+    private ImageMetadataDTO probeWithImageReader(InputStream inputStream) {
+        // 内存缓存只保存已读取的头部字节，不产生临时文件
+        try (ImageInputStream imageStream = new MemoryCacheImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                String[] mimeTypes = reader.getOriginatingProvider().getMIMETypes();
+                return ImageMetadataDTO.builder()
+                        .width(reader.getWidth(0))
+                        .height(reader.getHeight(0))
+                        .mimeType(mimeTypes != null && mimeTypes.length > 0 ? mimeTypes[0] : null)
+                        .build();
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("ImageReader读取图片头信息失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private int readShort(byte[] b, int offset, boolean littleEndian) {
+        return littleEndian ? readShortLE(b, offset) : readShortBE(b, offset);
+    }
+
+    private int readInt(byte[] b, int offset, boolean littleEndian) {
+        return littleEndian ? readIntLE(b, offset) : readIntBE(b, offset);
+    }
+
+    private int readShortBE(byte[] b, int offset) {
+        return ((b[offset] & 0xFF) << 8) | (b[offset + 1] & 0xFF);
+    }
+
+    private int readShortLE(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | ((b[offset + 1] & 0xFF) << 8);
+    }
+
+    private int readInt24LE(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | ((b[offset + 1] & 0xFF) << 8) | ((b[offset + 2] & 0xFF) << 16);
+    }
+
+    private int readIntBE(byte[] b, int offset) {
+        return ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16)
+                | ((b[offset + 2] & 0xFF) << 8) | (b[offset + 3] & 0xFF);
+    }
+
+    private int readIntLE(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | ((b[offset + 1] & 0xFF) << 8)
+                | ((b[offset + 2] & 0xFF) << 16) | ((b[offset + 3] & 0xFF) << 24);
+    }
+}
@@ -0,0 +1,467 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.exception.BusinessException;
+import com.imagehosting.common.result.ResultCode;
+import com.imagehosting.common.util.ByteSizeLruCache;
+import com.imagehosting.model.vo.ProxyImageVO;
+import com.imagehosting.service.ImageProxyService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片代理服务实现类
+ * 使用共享的HttpClient复用到上游的长连接，响应体边读边写入本地缓存文件，不在内存中整体缓冲；
+ * 缓存索引是按文件大小限制总容量的LRU，淘汰时删除对应文件。
+ * HttpClient不自动跟随重定向，由代理逐跳跟随并对每一跳重新做内网地址校验，防止公网地址重定向到内网
+ */
+@Slf4j
+@Service
+public class ImageProxyServiceImpl implements ImageProxyService {
+
+    /**
+     * 复制响应体时的缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 请求上游时使用的User-Agent
+     */
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
+
+    /**
+     * 最多跟随的重定向次数
+     */
+    private static final int MAX_REDIRECTS = 5;
+
+    /**
+     * 连接超时（毫秒）
+     */
+    @Value("${image.proxy.connectTimeout:5000}")
+    private long connectTimeout;
+
+    /**
+     * 单次下载的总超时（毫秒），包括等待响应头和读取响应体
+     */
+    @Value("${image.proxy.readTimeout:15000}")
+    private long readTimeout;
+
+    /**
+     * 允许代理的最大图片大小（字节）
+     */
+    @Value("${image.proxy.maxSize:10485760}")
+    private long maxSize;
+
+    /**
+     * 上游未指定缓存时间时的默认缓存时间（秒）
+     */
+    @Value("${image.proxy.defaultTtlSeconds:300}")
+    private long defaultTtlSeconds;
+
+    /**
+     * 缓存目录
+     */
+    @Value("${image.proxy.cacheDir:./data/proxy-cache}")
+    private String cacheDir;
+
+    /**
+     * 缓存总容量（字节）
+     */
+    @Value("${image.proxy.cacheMaxBytes:1073741824}")
+    private long cacheMaxBytes;
+
+    /**
+     * 是否允许代理内网地址
+     */
+    @Value("${image.proxy.allowPrivateNetwork:false}")
+    private boolean allowPrivateNetwork;
+
+    /**
+     * 共享的HTTP客户端，内部维护连接池
+     */
+    private HttpClient httpClient;
+
+    /**
+     * 规范化后的缓存目录
+     */
+    private Path cacheRoot;
+
+    /**
+     * URL摘要到缓存条目的索引
+     */
+    private ByteSizeLruCache<String, CacheEntry> cache;
+
+    /**
+     * 正在从上游获取的URL，用于合并并发请求
+     */
+    private final ConcurrentMap<String, CompletableFuture<CacheEntry>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 初始化HTTP客户端和缓存目录
+     * 缓存索引只在内存中，启动时清空上次遗留的缓存文件
+     *
+     * @throws IOException 创建或清理目录失败时抛出
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                // 重定向由fetch逐跳跟随，每一跳都要重新校验目标地址
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+
+        cacheRoot = Paths.get(cacheDir).toAbsolutePath().normalize();
+        Files.createDirectories(cacheRoot);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheRoot)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        cache = new ByteSizeLruCache<>(Math.max(cacheMaxBytes, maxSize), entry -> entry.contentLength,
+                (key, entry) -> deleteQuietly(entry.file));
+    }
+
+    @Override
+    public ProxyImageVO getImage(String url) {
+        URI uri = validateUrl(url);
+        String key = sha256(uri.toString());
+
+        CacheEntry cached = cache.get(key);
+        if (cached != null && cached.isFresh()) {
+            return toVO(cached);
+        }
+
+        // 合并并发请求：只有第一个请求访问上游，其余等待其结果
+        CompletableFuture<CacheEntry> future = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return toVO(await(existing));
+        }
+
+        try {
+            CacheEntry entry = fetch(uri, key, cached);
+            future.complete(entry);
+            return toVO(entry);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    @Override
+    public void writeTo(ProxyImageVO image, OutputStream outputStream) throws IOException {
+        try {
+            Files.copy(Paths.get(image.getCacheFile()), outputStream);
+        } catch (NoSuchFileException e) {
+            // 获取信息之后缓存被淘汰
+            throw new BusinessException(ResultCode.FAILED, "图片缓存已失效，请重试");
+        }
+    }
+
+    /**
+     * 从上游获取图片，已有过期缓存且带验证器时发送条件请求
+     */
+    private CacheEntry fetch(URI uri, String key, CacheEntry stale) {
+        long start = System.currentTimeMillis();
+        HttpResponse<InputStream> response = send(uri, stale);
+        for (int redirects = 0; isRedirect(response.statusCode()); redirects++) {
+            closeQuietly(response.body());
+            String location = response.headers().firstValue("Location").orElse(null);
+            if (location == null) {
+                throw new BusinessException(ResultCode.FAILED, "下载图片失败，重定向缺少目标地址");
+            }
+            if (redirects >= MAX_REDIRECTS) {
+                throw new BusinessException(ResultCode.FAILED, "下载图片失败，重定向次数过多");
+            }
+            URI target;
+            try {
+                target = uri.resolve(location.trim());
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException(ResultCode.PARAM_ERROR, "图片URL不合法");
+            }
+            // 重定向目标同样只允许http和https，并且不能指向内网
+            uri = validateUrl(target.toString());
+            response = send(uri, stale);
+        }
+
+        try (InputStream body = response.body()) {
+            int statusCode = response.statusCode();
+            if (statusCode == 304 && stale != null) {
+                // 上游确认内容未变化，沿用缓存文件并按新的缓存策略刷新有效期
+                stale.expiresAt = computeExpiresAt(response);
+                log.debug("代理图片缓存验证通过: {}", uri);
+                return stale;
+            }
+            if (statusCode != 200) {
+                throw new BusinessException(ResultCode.FAILED, "下载图片失败，状态码: " + statusCode);
+            }
+
+            String contentType = response.headers().firstValue("Content-Type").orElse("");
+            if (!contentType.toLowerCase(Locale.ROOT).startsWith("image/")) {
+                throw new BusinessException(ResultCode.PARAM_ERROR, "目标地址不是图片");
+            }
+            long declaredLength = response.headers().firstValueAsLong("Content-Length").orElse(-1L);
+            if (declaredLength > maxSize) {
+                throw new BusinessException(ResultCode.PARAM_ERROR, "图片大小超过限制");
+            }
+
+            Path file = cacheRoot.resolve(key + "." + UUID.randomUUID().toString().replace("-", ""));
+            long length = download(body, file, start);
+
+            boolean cacheable = isCacheable(response);
+            CacheEntry entry = new CacheEntry(file, contentType, length,
+                    cacheable ? response.headers().firstValue("ETag").orElse(null) : null,
+                    cacheable ? response.headers().firstValue("Last-Modified").orElse(null) : null,
+                    cacheable ? computeExpiresAt(response) : 0L);
+            cache.put(key, entry);
+            log.debug("代理下载图片完成: {}, {}字节, 耗时{}ms", uri, length, System.currentTimeMillis() - start);
+            return entry;
+        } catch (IOException e) {
+            log.warn("代理下载图片失败: {}, {}", uri, e.getMessage());
+            throw new BusinessException(ResultCode.FAILED, "下载图片失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 发送一次GET请求，不跟随重定向
+     */
+    private HttpResponse<InputStream> send(URI uri, CacheEntry stale) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(readTimeout))
+                .header("User-Agent", USER_AGENT)
+                .header("Accept", "image/avif,image/webp,image/apng,image/svg+xml,image/*,*/*;q=0.8")
+                .GET();
+        if (stale != null && stale.etag != null) {
+            builder.header("If-None-Match", stale.etag);
+        }
+        if (stale != null && stale.lastModified != null) {
+            builder.header("If-Modified-Since", stale.lastModified);
+        }
+
+        try {
+            return httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (HttpTimeoutException e) {
+            throw new BusinessException(ResultCode.FAILED, "下载图片超时");
+        } catch (IOException e) {
+            log.warn("代理下载图片失败: {}, {}", uri, e.getMessage());
+            throw new BusinessException(ResultCode.FAILED, "下载图片失败: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.FAILED, "下载图片被中断");
+        }
+    }
+
+    private boolean isRedirect(int statusCode) {
+        return statusCode == 301 || statusCode == 302 || statusCode == 303 || statusCode == 307 || statusCode == 308;
+    }
+
+    /**
+     * 边读边写入缓存文件，超过大小限制或总超时时中止
+     * HttpClient的超时只覆盖到收到响应头，读取响应体的超时通过到期关闭输入流实现
+     */
+    private long download(InputStream body, Path file, long start) throws IOException {
+        long remaining = Math.max(1, readTimeout - (System.currentTimeMillis() - start));
+        CompletableFuture<Void> watchdog = CompletableFuture.runAsync(() -> closeQuietly(body),
+                CompletableFuture.delayedExecutor(remaining, TimeUnit.MILLISECONDS));
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            long length = 0;
+            try (OutputStream outputStream = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    length += read;
+                    if (length > maxSize) {
+                        throw new BusinessException(ResultCode.PARAM_ERROR, "图片大小超过限制");
+                    }
+                    outputStream.write(buffer, 0, read);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            return length;
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(temp);
+            if (watchdog.isDone()) {
+                throw new BusinessException(ResultCode.FAILED, "下载图片超时");
+            }
+            throw e;
+        } finally {
+            watchdog.cancel(false);
+        }
+    }
+
+    /**
+     * 校验URL，只允许http和https，默认拒绝指向本机和内网的地址
+     */
+    private URI validateUrl(String url) {
+        URI uri;
+        try {
+            uri = url != null ? new URI(url.trim()) : null;
+        } catch (URISyntaxException e) {
+            uri = null;
+        }
+        if (uri == null || uri.getHost() == null
+                || !("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()))) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "图片URL不合法");
+        }
+        if (!allowPrivateNetwork) {
+            try {
+                for (InetAddress address : InetAddress.getAllByName(uri.getHost())) {
+                    if (address.isLoopbackAddress() || address.isSiteLocalAddress() || address.isLinkLocalAddress()
+                            || address.isAnyLocalAddress() || address.isMulticastAddress()) {
+                        throw new BusinessException(ResultCode.PARAM_ERROR, "不允许代理内网地址");
+                    }
+                }
+            } catch (UnknownHostException e) {
+                throw new BusinessException(ResultCode.PARAM_ERROR, "无法解析图片地址: " + uri.getHost());
+            }
+        }
+        return uri;
+    }
+
+    /**
+     * 共享缓存不能保存no-store和private的响应
+     */
+    private boolean isCacheable(HttpResponse<?> response) {
+        String cacheControl = response.headers().firstValue("Cache-Control").orElse("").toLowerCase(Locale.ROOT);
+        return !cacheControl.contains("no-store") && !cacheControl.contains("private");
+    }
+
+    /**
+     * 根据Cache-Control计算缓存到期时间，s-maxage优先于max-age，no-cache表示每次都需验证
+     */
+    private long computeExpiresAt(HttpResponse<?> response) {
+        long now = System.currentTimeMillis();
+        Long maxAge = null;
+        Long sharedMaxAge = null;
+        for (String directive : response.headers().firstValue("Cache-Control").orElse("").split(",")) {
+            String value = directive.trim().toLowerCase(Locale.ROOT);
+            if (value.equals("no-cache") || value.equals("no-store")) {
+                return now;
+            }
+            if (value.startsWith("s-maxage=")) {
+                sharedMaxAge = parseSeconds(value.substring("s-maxage=".length()));
+            } else if (value.startsWith("max-age=")) {
+                maxAge = parseSeconds(value.substring("max-age=".length()));
+            }
+        }
+        long seconds = sharedMaxAge != null ? sharedMaxAge : maxAge != null ? maxAge : defaultTtlSeconds;
+        return now + TimeUnit.SECONDS.toMillis(seconds);
+    }
+
+    private Long parseSeconds(String value) {
+        try {
+            return Math.max(0L, Long.parseLong(value.replace("\"", "")));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 等待其他请求获取的结果
+     */
+    private CacheEntry await(CompletableFuture<CacheEntry> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BusinessException) {
+                throw (BusinessException) e.getCause();
+            }
+            throw new BusinessException(ResultCode.FAILED, "下载图片失败: " + e.getMessage());
+        }
+    }
+
+    private ProxyImageVO toVO(CacheEntry entry) {
+        return ProxyImageVO.builder()
+                .contentType(entry.contentType)
+                .contentLength(entry.contentLength)
+                .etag(entry.etag)
+                .lastModified(entry.lastModified)
+                .cacheFile(entry.file.toString())
+                .build();
+    }
+
+    private String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException ignored) {
+            // 只用于中止读取
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除代理缓存文件失败: {}", file);
+        }
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static class CacheEntry {
+        private final Path file;
+        private final String contentType;
+        private final long contentLength;
+        private final String etag;
+        private final String lastModified;
+        private volatile long expiresAt;
+
+        CacheEntry(Path file, String contentType, long contentLength, String etag, String lastModified, long expiresAt) {
+            this.file = file;
+            this.contentType = contentType;
+            this.contentLength = contentLength;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.exception.BusinessException;
+import com.imagehosting.common.result.ResultCode;
+import com.imagehosting.model.dto.ImageMetadataDTO;
+import com.imagehosting.model.vo.DerivativeImageVO;
+import com.imagehosting.service.ImageProbeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * 图片缩放器
+ * 解码前先从文件头读取原图尺寸，像素数超过上限的图片直接拒绝；
+ * 解码时按目标尺寸做源图降采样，只解码需要的像素；再按EXIF方向旋转，逐级减半缩放到目标尺寸，
+ * 最后交给转码器选择输出格式
+ */
+@Component
+@RequiredArgsConstructor
+public class ImageResizer {
+
+    /**
+     * 完整显示在目标框内
+     */
+    public static final String FIT_CONTAIN = "contain";
+
+    /**
+     * 填满目标框并居中裁剪
+     */
+    public static final String FIT_COVER = "cover";
+
+    /**
+     * 拉伸到目标尺寸
+     */
+    public static final String FIT_FILL = "fill";
+
+    /**
+     * 探测EXIF方向时读取的头部字节数
+     */
+    private static final int HEADER_SNIFF_BYTES = 128 * 1024;
+
+    private final ImageProbeService imageProbeService;
+    private final ImageTranscoder imageTranscoder;
+
+    /**
+     * 允许解码的原图最大像素数（宽×高），防止超大尺寸的图片耗尽内存
+     */
+    @Value("${image.derivative.maxSourcePixels:50000000}")
+    private long maxSourcePixels;
+
+    /**
+     * 缩放并编码图片
+     *
+     * @param inputStream 原图输入流，由调用方关闭
+     * @param width       目标宽度，0表示按比例计算
+     * @param height      目标高度，0表示按比例计算
+     * @param fit         缩放方式
+     * @param quality     有损格式的输出质量（1-100）
+     * @param accept      客户端的Accept请求头，为空时只输出JPEG或PNG
+     * @param sourceType  原图的媒体类型，用于选择输出格式，可为空
+     * @return 缩放后的图片
+     * @throws IOException 无法解码或编码时抛出
+     */
+    public DerivativeImageVO resize(InputStream inputStream, int width, int height, String fit, int quality, String accept,
+                                    String sourceType) throws IOException {
+        return imageTranscoder.encode(decode(inputStream, width, height, fit), accept, quality, sourceType);
+    }
+
+    /**
+     * 解码并缩放图片
+     *
+     * @param inputStream 原图输入流，由调用方关闭
+     * @param width       目标宽度，0表示按比例计算；宽高都为0时保持原图尺寸
+     * @param height      目标高度，0表示按比例计算；宽高都为0时保持原图尺寸
+     * @param fit         缩放方式
+     * @return 缩放后的图片，已按EXIF方向旋转
+     * @throws IOException 无法解码时抛出
+     * @throws BusinessException 原图像素数超过上限时抛出
+     */
+    public BufferedImage decode(InputStream inputStream, int width, int height, String fit) throws IOException {
+        // 从头部读取EXIF方向
+        BufferedInputStream bufferedStream = new BufferedInputStream(inputStream, HEADER_SNIFF_BYTES);
+        bufferedStream.mark(HEADER_SNIFF_BYTES);
+        byte[] header = bufferedStream.readNBytes(HEADER_SNIFF_BYTES);
+        bufferedStream.reset();
+        ImageMetadataDTO metadata = imageProbeService.probe(header, header.length);
+        int orientation = metadata != null && metadata.getOrientation() != null ? metadata.getOrientation() : 1;
+
+        try (ImageInputStream imageStream = ImageIO.createImageInputStream(bufferedStream)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext()) {
+                throw new IOException("不支持的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                // 宽高只从文件头读取，此时还未解码像素；只转码不缩放的请求同样需要完整解码，一并检查
+                if ((long) sourceWidth * sourceHeight > maxSourcePixels) {
+                    throw new BusinessException(ResultCode.PARAM_ERROR, "图片尺寸过大: " + sourceWidth + "x" + sourceHeight);
+                }
+                boolean swap = orientation >= 5 && orientation <= 8;
+                Geometry geometry = computeGeometry(swap ? sourceHeight : sourceWidth, swap ? sourceWidth : sourceHeight, width, height, fit);
+
+                // 降采样解码：保留至少两倍于目标的像素，再做平滑缩放
+                double scale = Math.max((double) geometry.outWidth / geometry.cropWidth, (double) geometry.outHeight / geometry.cropHeight);
+                int subsampling = Math.max(1, (int) Math.floor(1 / scale / 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage decoded = applyOrientation(reader.read(0, param), orientation);
+
+                // 裁剪区域按解码后的尺寸换算
+                double ratioX = (double) decoded.getWidth() / (swap ? sourceHeight : sourceWidth);
+                double ratioY = (double) decoded.getHeight() / (swap ? sourceWidth : sourceHeight);
+                int cropX = (int) Math.round(geometry.cropX * ratioX);
+                int cropY = (int) Math.round(geometry.cropY * ratioY);
+                int cropWidth = Math.max(1, Math.min(decoded.getWidth() - cropX, (int) Math.round(geometry.cropWidth * ratioX)));
+                int cropHeight = Math.max(1, Math.min(decoded.getHeight() - cropY, (int) Math.round(geometry.cropHeight * ratioY)));
+
+                boolean alpha = decoded.getColorModel().hasAlpha();
+                return scale(decoded, cropX, cropY, cropWidth, cropHeight, geometry.outWidth, geometry.outHeight, alpha);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 计算输出尺寸和原图（已按方向旋转）上的裁剪区域，不放大原图
+     */
+    private Geometry computeGeometry(int sourceWidth, int sourceHeight, int width, int height, String fit) {
+        if (width <= 0 && height <= 0) {
+            width = sourceWidth;
+            height = sourceHeight;
+        }
+        if (width <= 0) {
+            width = Math.max(1, (int) Math.round((double) sourceWidth * height / sourceHeight));
+        }
+        if (height <= 0) {
+            height = Math.max(1, (int) Math.round((double) sourceHeight * width / sourceWidth));
+        }
+
+        Geometry geometry = new Geometry();
+        geometry.cropWidth = sourceWidth;
+        geometry.cropHeight = sourceHeight;
+        double scaleX = (double) width / sourceWidth;
+        double scaleY = (double) height / sourceHeight;
+
+        if (FIT_COVER.equals(fit)) {
+            double scale = Math.max(scaleX, scaleY);
+            if (scale > 1) {
+                // 目标框大于原图时等比缩小目标框，保持裁剪比例
+                width = Math.max(1, (int) Math.round(width / scale));
+                height = Math.max(1, (int) Math.round(height / scale));
+                scale = 1;
+            }
+            geometry.outWidth = width;
+            geometry.outHeight = height;
+            geometry.cropWidth = Math.min(sourceWidth, (int) Math.round(width / scale));
+            geometry.cropHeight = Math.min(sourceHeight, (int) Math.round(height / scale));
+            geometry.cropX = (sourceWidth - geometry.cropWidth) / 2;
+            geometry.cropY = (sourceHeight - geometry.cropHeight) / 2;
+        } else if (FIT_FILL.equals(fit)) {
+            geometry.outWidth = Math.min(width, sourceWidth);
+            geometry.outHeight = Math.min(height, sourceHeight);
+        } else {
+            double scale = Math.min(1, Math.min(scaleX, scaleY));
+            geometry.outWidth = Math.max(1, (int) Math.round(sourceWidth * scale));
+            geometry.outHeight = Math.max(1, (int) Math.round(sourceHeight * scale));
+        }
+        return geometry;
+    }
+
+    /**
+     * 按EXIF方向旋转或翻转图片
+     */
+    private BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        if (orientation <= 1 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        AffineTransform transform;
+        switch (orientation) {
+            case 2:
+                transform = new AffineTransform(-1, 0, 0, 1, w, 0);
+                break;
+            case 3:
+                transform = new AffineTransform(-1, 0, 0, -1, w, h);
+                break;
+            case 4:
+                transform = new AffineTransform(1, 0, 0, -1, 0, h);
+                break;
+            case 5:
+                transform = new AffineTransform(0, 1, 1, 0, 0, 0);
+                break;
+            case 6:
+                transform = new AffineTransform(0, 1, -1, 0, h, 0);
+                break;
+            case 7:
+                transform = new AffineTransform(0, -1, -1, 0, h, w);
+                break;
+            default:
+                transform = new AffineTransform(0, -1, 1, 0, 0, w);
+                break;
+        }
+        boolean swap = orientation >= 5;
+        BufferedImage rotated = new BufferedImage(swap ? h : w, swap ? w : h,
+                image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rotated.createGraphics();
+        try {
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return rotated;
+    }
+
+    /**
+     * 逐级减半缩放到目标尺寸，避免一次大比例缩小产生锯齿
+     */
+    private BufferedImage scale(BufferedImage source, int x, int y, int w, int h, int outWidth, int outHeight, boolean alpha) {
+        BufferedImage current = source;
+        while (w / 2 >= outWidth && h / 2 >= outHeight) {
+            current = draw(current, x, y, w, h, w / 2, h / 2, alpha);
+            x = 0;
+            y = 0;
+            w = w / 2;
+            h = h / 2;
+        }
+        return draw(current, x, y, w, h, outWidth, outHeight, alpha);
+    }
+
+    private BufferedImage draw(BufferedImage source, int x, int y, int w, int h, int outWidth, int outHeight, boolean alpha) {
+        BufferedImage target = new BufferedImage(outWidth, outHeight, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (!alpha) {
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, outWidth, outHeight);
+            }
+            g.drawImage(source, 0, 0, outWidth, outHeight, x, y, x + w, y + h, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * 缩放几何参数
+     */
+    private static class Geometry {
+        private int outWidth;
+        private int outHeight;
+        private int cropX;
+        private int cropY;
+        private int cropWidth;
+        private int cropHeight;
+    }
+}
@@ -0,0 +1,184 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.util.TrigramIndex;
+import com.imagehosting.dao.ImageDao;
+import com.imagehosting.model.entity.Image;
+import com.imagehosting.service.ImageSearchIndexService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 图片名称搜索索引服务实现类
+ * 每个用户一个三元组索引。启动后在后台线程按ID顺序分批读取未删除的图片重建索引，
+ * 重建期间的增量更新直接写入索引并记下图片ID，重建读到这些图片时跳过，避免用读取时的旧数据覆盖
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageSearchIndexServiceImpl implements ImageSearchIndexService {
+
+    private final ImageDao imageDao;
+
+    /**
+     * 是否启用搜索索引，关闭后关键字查询全部使用数据库
+     */
+    @Value("${image.search.index.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 重建索引时每批读取的图片数
+     */
+    @Value("${image.search.index.rebuildBatchSize:5000}")
+    private int rebuildBatchSize;
+
+    /**
+     * 用户ID到索引的映射
+     */
+    private final ConcurrentMap<Long, TrigramIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * 重建期间发生增量更新的图片ID
+     */
+    private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 索引是否已就绪
+     */
+    private volatile boolean ready;
+
+    /**
+     * 是否正在重建
+     */
+    private volatile boolean rebuilding;
+
+    /**
+     * 重建线程
+     */
+    private ExecutorService rebuildExecutor;
+
+    /**
+     * 启动后台重建
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        rebuildExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("search-index-"));
+        rebuildExecutor.submit(this::rebuild);
+    }
+
+    /**
+     * 停止重建线程
+     */
+    @PreDestroy
+    public void destroy() {
+        if (rebuildExecutor != null) {
+            rebuildExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public long[] search(Long userId, String keyword) {
+        if (!ready) {
+            return null;
+        }
+        TrigramIndex index = indexes.get(userId);
+        return index != null ? index.search(keyword) : new long[0];
+    }
+
+    @Override
+    public void index(Image image) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            if (rebuilding) {
+                touchedDuringRebuild.add(image.getId());
+            }
+            indexOf(image.getUserId()).put(image.getId(), image.getName(), image.getOriginalName());
+        });
+    }
+
+    @Override
+    public void remove(Long userId, Long imageId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            if (rebuilding) {
+                touchedDuringRebuild.add(imageId);
+            }
+            TrigramIndex index = indexes.get(userId);
+            if (index != null) {
+                index.remove(imageId);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        ready = false;
+        rebuilding = true;
+        long start = System.currentTimeMillis();
+        try {
+            indexes.clear();
+            long afterId = 0;
+            int total = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Image> batch = imageDao.findSearchEntries(afterId, rebuildBatchSize);
+                for (Image image : batch) {
+                    if (!touchedDuringRebuild.contains(image.getId())) {
+                        indexOf(image.getUserId()).put(image.getId(), image.getName(), image.getOriginalName());
+                    }
+                }
+                total += batch.size();
+                if (batch.size() < rebuildBatchSize) {
+                    break;
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+            ready = !Thread.currentThread().isInterrupted();
+            log.info("图片搜索索引重建完成: 用户{}个, 图片{}张, 耗时{}ms", indexes.size(), total, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("图片搜索索引重建失败，关键字查询将使用数据库", e);
+        } finally {
+            rebuilding = false;
+            touchedDuringRebuild.clear();
+        }
+    }
+
+    private TrigramIndex indexOf(Long userId) {
+        return indexes.computeIfAbsent(userId, key -> new TrigramIndex());
+    }
+
+    /**
+     * 事务提交后执行，没有事务时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.exception.BusinessException;
+import com.imagehosting.common.result.ResultCode;
+import com.imagehosting.common.util.ConditionalRequestUtil;
+import com.imagehosting.dao.ImageDao;
+import com.imagehosting.model.dto.ServeRequestDTO;
+import com.imagehosting.model.entity.Image;
+import com.imagehosting.model.vo.ProxyImageVO;
+import com.imagehosting.model.vo.ServeImageVO;
+import com.imagehosting.service.AccessCountService;
+import com.imagehosting.service.ImageBodyCacheService;
+import com.imagehosting.service.ImageProxyService;
+import com.imagehosting.service.ImageServeService;
+import com.imagehosting.service.ImageUrlService;
+import com.imagehosting.service.StorageService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+
+/**
+ * 图片下载服务实现类
+ * 条件请求按RFC 9110的优先级处理：If-None-Match存在时忽略If-Modified-Since；
+ * Range只支持单个区间，多个区间时返回完整内容
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageServeServiceImpl implements ImageServeService {
+
+    private final ImageDao imageDao;
+    private final StorageService storageService;
+    private final ImageProxyService imageProxyService;
+    private final AccessCountService accessCountService;
+    private final ImageBodyCacheService imageBodyCacheService;
+    private final ImageUrlService imageUrlService;
+
+    @Override
+    public ServeImageVO serveImage(Long imageId, ServeRequestDTO requestDTO) {
+        // 查询图片
+        Image image = imageDao.findById(imageId);
+        if (image == null || image.getDeleted() == 1) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "图片不存在");
+        }
+        if (image.getStatus() != 1) {
+            throw new BusinessException(ResultCode.FAILED, image.getStatus() == 0 ? "图片正在处理中" : "图片处理失败");
+        }
+        imageUrlService.checkAccess(image, requestDTO.getExpires(), requestDTO.getSign());
+
+        // 图片内容创建后不再变化，以MD5作为强ETag，以创建时间作为最后修改时间
+        long lastModified = image.getCreateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        ServeImageVO result = evaluate(requestDTO, ConditionalRequestUtil.strongEtag(image.getMd5()),
+                ConditionalRequestUtil.formatHttpDate(lastModified), image.getSize());
+        result.setContentType(image.getMimeType());
+        result.setStoragePath(image.getPath());
+        result.setFileSize(image.getSize());
+
+        // 断点续传的后续区间不重复计数
+        if (result.getStatus() == 200 || (result.getStatus() == 206 && result.getPosition() == 0)) {
+            accessCountService.increment(imageId);
+        }
+        return result;
+    }
+
+    @Override
+    public ServeImageVO serveProxyImage(String url, ServeRequestDTO requestDTO) {
+        ProxyImageVO image = imageProxyService.getImage(url);
+        ServeImageVO result = evaluate(requestDTO, image.getEtag(), image.getLastModified(), image.getContentLength());
+        result.setContentType(image.getContentType());
+        result.setCacheFile(image.getCacheFile());
+        return result;
+    }
+
+    @Override
+    public long transferTo(ServeImageVO image, WritableByteChannel target) throws IOException {
+        if (image.getStatus() != 200 && image.getStatus() != 206) {
+            return 0;
+        }
+        if (image.getStoragePath() != null) {
+            // 热门图片从内存缓存输出，其余直接从存储传输
+            ByteBuffer body = imageBodyCacheService.getBody(image.getStoragePath(), image.getFileSize());
+            if (body == null) {
+                return storageService.transferTo(image.getStoragePath(), image.getPosition(), image.getContentLength(), target);
+            }
+            body.position(image.getPosition().intValue());
+            body.limit((int) (image.getPosition() + image.getContentLength()));
+            while (body.hasRemaining()) {
+                target.write(body);
+            }
+            return image.getContentLength();
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(image.getCacheFile()), StandardOpenOption.READ)) {
+            long position = image.getPosition();
+            long end = position + image.getContentLength();
+            // transferTo单次可能只传输部分数据，需要循环
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            return position - image.getPosition();
+        } catch (NoSuchFileException e) {
+            // 计算响应之后代理缓存被淘汰
+            throw new BusinessException(ResultCode.FAILED, "图片缓存已失效，请重试");
+        }
+    }
+
+    /**
+     * 根据条件请求头计算响应状态和内容区间
+     *
+     * @param requestDTO   条件请求头，可为空
+     * @param etag         当前ETag，可为空
+     * @param lastModified 当前Last-Modified（HTTP日期），可为空
+     * @param length       内容总长度
+     * @return 响应信息
+     */
+    private ServeImageVO evaluate(ServeRequestDTO requestDTO, String etag, String lastModified, long length) {
+        ServeRequestDTO request = requestDTO != null ? requestDTO : new ServeRequestDTO();
+        ServeImageVO result = ServeImageVO.builder()
+                .etag(etag)
+                .lastModified(lastModified)
+                .build();
+
+        // 条件请求：If-None-Match优先，不存在时才使用If-Modified-Since
+        boolean notModified = request.getIfNoneMatch() != null
+                ? ConditionalRequestUtil.matchesIfNoneMatch(request.getIfNoneMatch(), etag)
+                : ConditionalRequestUtil.notModifiedSince(request.getIfModifiedSince(), ConditionalRequestUtil.parseHttpDate(lastModified));
+        if (notModified) {
+            result.setStatus(304);
+            result.setContentLength(0L);
+            result.setPosition(0L);
+            return result;
+        }
+
+        // 范围请求：If-Range不匹配时内容已变化，忽略Range返回完整内容
+        long[] range = ConditionalRequestUtil.matchesIfRange(request.getIfRange(), etag, lastModified)
+                ? ConditionalRequestUtil.parseRange(request.getRange(), length)
+                : null;
+        if (range == null) {
+            result.setStatus(200);
+            result.setPosition(0L);
+            result.setContentLength(length);
+        } else if (range.length == 0) {
+            result.setStatus(416);
+            result.setPosition(0L);
+            result.setContentLength(0L);
+            result.setContentRange("bytes */" + length);
+        } else {
+            result.setStatus(206);
+            result.setPosition(range[0]);
+            result.setContentLength(range[1] - range[0] + 1);
+            result.setContentRange("bytes " + range[0] + "-" + range[1] + "/" + length);
+        }
+        return result;
+    }
+}
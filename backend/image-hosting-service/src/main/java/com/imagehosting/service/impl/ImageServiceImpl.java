@@ -2,32 +2,85 @@ package com.imagehosting.service.impl;
 
 import com.imagehosting.common.exception.BusinessException;
 import com.imagehosting.common.result.ResultCode;
+import com.imagehosting.common.util.CursorUtil;
 import com.imagehosting.common.util.SecurityUtil;
 import com.imagehosting.dao.ImageDao;
+import com.imagehosting.dao.ImageJobDao;
+import com.imagehosting.model.dto.CheckHashDTO;
+import com.imagehosting.model.dto.CountResultDTO;
+import com.imagehosting.model.dto.ImageMetadataDTO;
 import com.imagehosting.model.dto.ImageQueryDTO;
 import com.imagehosting.model.entity.Image;
+import com.imagehosting.model.entity.ImageBlob;
+import com.imagehosting.model.entity.ImageJob;
+import com.imagehosting.model.vo.BatchUploadItemVO;
+import com.imagehosting.model.vo.BatchUploadVO;
+import com.imagehosting.model.vo.CheckHashVO;
+import com.imagehosting.model.vo.CursorPageVO;
 import com.imagehosting.model.vo.ImageUploadVO;
+import com.imagehosting.model.vo.ImageStatusVO;
 import com.imagehosting.model.vo.ImageVO;
 import com.imagehosting.model.vo.PageVO;
+import com.imagehosting.model.vo.ProxyImageVO;
+import com.imagehosting.service.AccessCountService;
+import com.imagehosting.service.AnnotationProjectService;
+import com.imagehosting.service.CountCacheService;
+import com.imagehosting.service.ImageBlobService;
+import com.imagehosting.service.ImageDerivativeService;
+import com.imagehosting.service.ImageProbeService;
+import com.imagehosting.service.ImageProxyService;
+import com.imagehosting.service.ImageSearchIndexService;
 import com.imagehosting.service.ImageService;
+import com.imagehosting.service.ImageUrlService;
+import com.imagehosting.service.SimilarImageService;
 import com.imagehosting.service.StorageService;
+import com.imagehosting.service.ThumbnailService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.DigestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * 图片服务实现
@@ -37,124 +90,952 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ImageServiceImpl implements ImageService {
 
+    /**
+     * 探测图片元数据时读取的头部字节数，需覆盖JPEG中位于SOF之前的EXIF等段
+     */
+    private static final int HEADER_SNIFF_BYTES = 128 * 1024;
+
+    /**
+     * 单张图片大小上限（10MB）
+     */
+    private static final long MAX_IMAGE_SIZE = 10 * 1024 * 1024;
+
+    /**
+     * 批量插入时每条INSERT包含的最大行数
+     */
+    private static final int BATCH_INSERT_SIZE = 500;
+
+    /**
+     * 删除用户时每批处理的图片数
+     */
+    private static final int DELETE_BATCH_SIZE = 500;
+
+    /**
+     * 分页列表支持的排序字段，均有(user_id, deleted, 排序字段)索引，name除外
+     */
+    private static final Set<String> LIST_SORT_FIELDS = Set.of("create_time", "access_count", "size", "name");
+
+    /**
+     * 游标分页支持的排序字段
+     */
+    private static final String CURSOR_SORT_FIELD = "create_time";
+
+    /**
+     * 游标分页每页最大记录数
+     */
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    /**
+     * MD5摘要格式（小写十六进制）
+     */
+    private static final Pattern MD5_PATTERN = Pattern.compile("^[0-9a-f]{32}$");
+
+    /**
+     * SHA-256摘要格式（小写十六进制）
+     */
+    private static final Pattern SHA256_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+
     private final ImageDao imageDao;
     private final StorageService storageService;
+    private final ImageProbeService imageProbeService;
+    private final ImageBlobService imageBlobService;
+    private final AnnotationProjectService annotationProjectService;
+    private final ImageJobDao imageJobDao;
+    private final TransactionTemplate transactionTemplate;
+    private final ThumbnailService thumbnailService;
+    private final AccessCountService accessCountService;
+    private final CountCacheService countCacheService;
+    private final ImageSearchIndexService imageSearchIndexService;
+    private final SimilarImageService similarImageService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final ImageUrlService imageUrlService;
+    private final ImageProxyService imageProxyService;
+
+    /**
+     * 是否异步上传：开启后请求只把文件写入本地暂存目录并记录图片，上传存储和元数据提取由后台任务完成
+     */
+    @Value("${image.upload.async:false}")
+    private boolean asyncUpload;
+
+    /**
+     * 按搜索索引结果的ID列表查询时允许的最大ID数，匹配更多时列表查询回退到数据库模糊匹配
+     */
+    @Value("${image.search.maxIdListSize:5000}")
+    private int maxIdListSize;
+
+    /**
+     * 异步上传在存储中的暂存目录，后台任务可能由任意节点执行，因此暂存到共享存储而不是本地磁盘
+     */
+    @Value("${image.upload.spoolDir:upload-spool}")
+    private String uploadSpoolDir;
+
+    /**
+     * 异步上传后台任务的最大执行次数
+     */
+    @Value("${image.job.maxAttempts:5}")
+    private int jobMaxAttempts;
+
+    /**
+     * 批量上传的并发处理线程数
+     */
+    @Value("${image.batch.concurrency:8}")
+    private int batchConcurrency;
+
+    /**
+     * 单次批量上传允许的最大文件数
+     */
+    @Value("${image.batch.maxFiles:1000}")
+    private int batchMaxFiles;
+
+    /**
+     * 批量上传线程池，负责并发完成探测、摘要计算和上传存储
+     */
+    private ThreadPoolExecutor batchUploadExecutor;
+
+    /**
+     * 初始化批量上传线程池
+     */
+    @PostConstruct
+    public void init() {
+        batchUploadExecutor = new ThreadPoolExecutor(batchConcurrency, batchConcurrency,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchConcurrency * 4),
+                new CustomizableThreadFactory("image-batch-"),
+                // 队列满时由提交线程自己执行，形成反压
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 关闭批量上传线程池
+     */
+    @PreDestroy
+    public void destroy() {
+        batchUploadExecutor.shutdown();
+    }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public ImageUploadVO uploadImage(MultipartFile file) {
-        try {
-            // 验证文件类型
-            String contentType = file.getContentType();
-            if (contentType == null || !contentType.startsWith("image/")) {
-                throw new BusinessException(ResultCode.PARAM_ERROR, "只能上传图片文件");
-            }
+        return uploadImage(file, null);
+    }
 
-            // 验证文件大小
-            long size = file.getSize();
-            if (size > 10 * 1024 * 1024) { // 10MB
-                throw new BusinessException(ResultCode.PARAM_ERROR, "图片大小不能超过10MB");
-            }
+    @Override
+    public ImageUploadVO uploadImage(MultipartFile file, String md5) {
+        // 验证文件类型
+        String contentType = file.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "只能上传图片文件");
+        }
 
-            // 获取当前用户ID
-            Long userId;
-            try {
-                userId = SecurityUtil.getCurrentUserId();
-                log.debug("成功获取上传用户ID: {}", userId);
-            } catch (Exception e) {
-                log.warn("获取当前用户ID失败，使用默认用户ID: {}", e.getMessage());
-                // 使用默认用户ID (1)
-                userId = 1L;
-            }
+        try (InputStream inputStream = file.getInputStream()) {
+            return uploadImage(inputStream, file.getSize(), file.getOriginalFilename(), contentType, md5);
+        } catch (IOException e) {
+            log.error("上传图片失败", e);
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "上传图片失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public ImageUploadVO uploadImage(InputStream inputStream, long size, String originalFilename, String contentType) {
+        return uploadImage(inputStream, size, originalFilename, contentType, null);
+    }
+
+    @Override
+    public ImageUploadVO uploadImage(InputStream inputStream, long size, String originalFilename, String contentType, String md5) {
+        validateUpload(contentType, size);
+
+        // 获取当前用户ID
+        Long userId = resolveUploadUserId();
+
+        // 客户端提供了摘要时先检查本人是否已有相同图片，命中则不必把文件写入存储再删除
+        Image existingImage = findOwnDuplicate(userId, md5, size);
+        if (existingImage != null) {
+            ImageUploadVO result = toUploadVO(existingImage);
+            log.info("上传图片已存在，跳过上传: {}", result);
+            return result;
+        }
 
-            // 计算文件MD5
-            String md5 = DigestUtils.md5DigestAsHex(file.getBytes());
+        if (asyncUpload) {
+            return spoolUpload(inputStream, size, originalFilename, contentType, userId);
+        }
+
+        // 上传存储在事务之外完成，远程调用期间不占用数据库连接
+        ImageBlob uploaded = storeBlob(inputStream, size, originalFilename, contentType);
+        return saveUploaded(userId, originalFilename, uploaded);
+    }
 
+    @Override
+    public ImageUploadVO registerUploadedImage(String filePath, long size, String md5, String originalFilename, String contentType) {
+        validateUpload(contentType, size);
+        Long userId = resolveUploadUserId();
+
+        // 直传的文件可能被篡改或未传完整，读取一遍计算摘要并探测元数据，不再经过应用服务器上传
+        ImageBlob uploaded;
+        try (InputStream inputStream = storageService.getFileStream(filePath)) {
+            uploaded = readBlob(inputStream, size, contentType, digestStream -> {
+                long length = digestStream.transferTo(OutputStream.nullOutputStream());
+                if (length != size) {
+                    throw new IOException("文件长度不一致，期望 " + size + " 字节，实际 " + length + " 字节");
+                }
+                return filePath;
+            });
+        } catch (IOException e) {
+            storageService.deleteFile(filePath);
+            log.warn("直传文件校验失败: {}, {}", filePath, e.getMessage());
+            throw new BusinessException(ResultCode.PARAM_ERROR, "文件未上传或不完整");
+        }
+        if (md5 == null || !md5.equalsIgnoreCase(uploaded.getMd5())) {
+            storageService.deleteFile(filePath);
+            throw new BusinessException(ResultCode.PARAM_ERROR, "文件校验失败，请重新上传");
+        }
+        return saveUploaded(userId, originalFilename, uploaded);
+    }
+
+    /**
+     * 保存已上传到存储的内容块和图片记录
+     * 本人已有相同MD5的图片时删除刚上传的文件，直接返回已有图片
+     */
+    private ImageUploadVO saveUploaded(Long userId, String originalFilename, ImageBlob uploaded) {
+        return transactionTemplate.execute(status -> {
             // 检查是否已存在相同MD5的图片
-            Image existingImage = imageDao.findByUserIdAndMd5(userId, md5);
+            Image existingImage = imageDao.findByUserIdAndMd5(userId, uploaded.getMd5());
             if (existingImage != null && existingImage.getDeleted() == 0) {
-                // 直接返回已存在的图片信息
-                ImageUploadVO result = new ImageUploadVO();
-                result.setId(existingImage.getId());
-                result.setName(existingImage.getName());
-                result.setUrl(storageService.getFileUrl(existingImage.getPath()));
-                result.setSize(existingImage.getSize());
-                result.setWidth(existingImage.getWidth());
-                result.setHeight(existingImage.getHeight());
+                // 删除刚上传的重复文件，直接返回已存在的图片信息
+                storageService.deleteFile(uploaded.getPath());
+                ImageUploadVO result = toUploadVO(existingImage);
                 log.info("上传图片已存在，直接返回: {}", result);
                 return result;
             }
 
-            // 获取图片尺寸
-            BufferedImage bufferedImage = ImageIO.read(file.getInputStream());
-            int width = bufferedImage != null ? bufferedImage.getWidth() : 0;
-            int height = bufferedImage != null ? bufferedImage.getHeight() : 0;
-
-            // 上传文件到存储
-            String filePath = storageService.uploadFile(file, "images");
-
-            // 获取原始文件名
-            String originalFilename = file.getOriginalFilename();
-            
-            // 生成图片记录
-            Image image = Image.builder()
-                    .userId(userId)
-                    .name(originalFilename)
-                    .originalName(originalFilename)
-                    .path(filePath)
-                    .url(storageService.getFileUrl(filePath))
-                    .md5(md5)
-                    .size(size)
-                    .width(width)
-                    .height(height)
-                    .mimeType(contentType)
-                    .accessCount(0L)
-                    .deleted(0)
-                    .createTime(LocalDateTime.now())
-                    .updateTime(LocalDateTime.now())
-                    .build();
-
-            // 保存图片记录
+            // 引用内容块（其他用户上传过相同内容时复用已有对象），保存图片记录
+            ImageBlob blob = imageBlobService.acquire(uploaded);
+            Image image = buildImage(userId, originalFilename, blob);
             imageDao.insert(image);
+            countCacheService.invalidate(CountCacheService.NAMESPACE_IMAGE, userId);
+            imageSearchIndexService.index(image);
+            thumbnailService.scheduleGeneration(image.getId());
 
             // 返回结果
-            return ImageUploadVO.builder()
-                    .id(image.getId())
-                    .name(image.getName())
-                    .url(image.getUrl())
-                    .size(image.getSize())
-                    .width(image.getWidth())
-                    .height(image.getHeight())
-                    .build();
+            return toUploadVO(image);
+        });
+    }
+
+    /**
+     * 按客户端提供的MD5查找本人已有的相同图片
+     * 只返回调用者自己的图片，摘要不可信也不会泄露他人内容；大小一并比较，降低误判
+     *
+     * @return 已有图片，摘要为空、格式不正确或不存在时返回null
+     */
+    private Image findOwnDuplicate(Long userId, String md5, long size) {
+        if (md5 == null) {
+            return null;
+        }
+        String normalized = md5.toLowerCase(Locale.ROOT);
+        if (!MD5_PATTERN.matcher(normalized).matches()) {
+            return null;
+        }
+        Image existingImage = imageDao.findByUserIdAndMd5(userId, normalized);
+        if (existingImage == null || existingImage.getDeleted() != 0 || !Objects.equals(existingImage.getSize(), size)) {
+            return null;
+        }
+        return existingImage;
+    }
+
+    /**
+     * 异步上传：把文件写入存储的暂存目录，在一个短事务中记录处理中的图片和后台任务
+     * 暂存对象位于共享存储，领取任务的任意节点都能读取
+     */
+    private ImageUploadVO spoolUpload(InputStream inputStream, long size, String originalFilename, String contentType, Long userId) {
+        String spoolFile;
+        String md5;
+        try {
+            // 写入暂存对象的同时计算MD5，用于本人去重；长度不一致由存储层校验
+            MessageDigest md5Digest = MessageDigest.getInstance("MD5");
+            spoolFile = storageService.uploadFile(new DigestInputStream(inputStream, md5Digest), size, originalFilename, uploadSpoolDir);
+            md5 = HexFormat.of().formatHex(md5Digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.error("写入上传暂存文件失败", e);
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "上传图片失败: " + e.getMessage());
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                // 检查是否已存在相同MD5的图片
+                Image existingImage = imageDao.findByUserIdAndMd5(userId, md5);
+                if (existingImage != null && existingImage.getDeleted() == 0) {
+                    deleteSpoolFile(spoolFile);
+                    return toUploadVO(existingImage);
+                }
+
+                // 记录处理中的图片，存储路径和元数据由后台任务回填
+                LocalDateTime now = LocalDateTime.now();
+                Image image = Image.builder()
+                        .userId(userId)
+                        .name(originalFilename)
+                        .originalName(originalFilename)
+                        .path("")
+                        .url("")
+                        .md5(md5)
+                        .size(size)
+                        .width(0)
+                        .height(0)
+                        .mimeType(contentType)
+                        .accessCount(0L)
+                        .status(0)
+                        .deleted(0)
+                        .createTime(now)
+                        .updateTime(now)
+                        .build();
+                imageDao.insert(image);
+                countCacheService.invalidate(CountCacheService.NAMESPACE_IMAGE, userId);
+                imageSearchIndexService.index(image);
+
+                // 任务与图片记录在同一事务中写入，提交后即由后台任务队列执行
+                imageJobDao.insert(ImageJob.builder()
+                        .imageId(image.getId())
+                        .jobType(FinalizeUploadJobHandler.JOB_TYPE)
+                        .payload(spoolFile)
+                        .status(0)
+                        .attempts(0)
+                        .maxAttempts(jobMaxAttempts)
+                        .nextRunTime(now)
+                        .createTime(now)
+                        .updateTime(now)
+                        .build());
+                log.info("图片已进入后台处理队列: imageId={}", image.getId());
+                return toUploadVO(image);
+            });
+        } catch (RuntimeException e) {
+            deleteSpoolFile(spoolFile);
+            throw e;
+        }
+    }
+
+    @Override
+    public void finalizeSpooledUpload(Long imageId, String spoolFile) throws IOException {
+        Image image = imageDao.findById(imageId);
+        if (image == null || image.getDeleted() == 1 || image.getStatus() != 0) {
+            // 图片已删除，或任务被重复执行而图片已处理完成，只需清理暂存文件
+            deleteSpoolFile(spoolFile);
+            return;
+        }
+
+        // 探测元数据、计算摘要并上传存储，均在事务之外完成
+        ImageBlob uploaded;
+        try (InputStream inputStream = storageService.getFileStream(spoolFile)) {
+            uploaded = storeBlob(inputStream, storageService.getFileLength(spoolFile), image.getOriginalName(), image.getMimeType());
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            ImageBlob blob = imageBlobService.acquire(uploaded);
+            Image processed = buildImage(image.getUserId(), image.getOriginalName(), blob);
+            processed.setId(imageId);
+            if (imageDao.updateProcessed(processed) == 0) {
+                // 处理期间图片被删除，回滚以释放刚持有的内容块引用
+                status.setRollbackOnly();
+                return;
+            }
+            thumbnailService.scheduleGeneration(imageId);
+        });
+        deleteSpoolFile(spoolFile);
+        log.info("图片后台处理完成: imageId={}", imageId);
+    }
+
+    @Override
+    public ImageStatusVO getImageStatus(Long id) {
+        // 获取当前用户ID
+        Long userId = SecurityUtil.getCurrentUserId();
+
+        // 查询图片
+        Image image = imageDao.findById(id);
+        if (image == null || image.getDeleted() == 1) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "图片不存在");
+        }
+
+        // 验证图片所有权
+        if (!image.getUserId().equals(userId)) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "无权访问该图片");
+        }
+
+        ImageJob job = imageJobDao.findLatestByImageId(id);
+        return ImageStatusVO.builder()
+                .imageId(id)
+                .status(image.getStatus())
+                .attempts(job != null ? job.getAttempts() : null)
+                .maxAttempts(job != null ? job.getMaxAttempts() : null)
+                .lastError(job != null ? job.getLastError() : null)
+                .url(image.getStatus() == 1 ? imageUrlService.getFileUrl(image.getPath()) : null)
+                .build();
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public CheckHashVO checkByHash(CheckHashDTO checkHashDTO) {
+        String sha256 = checkHashDTO.getSha256() != null ? checkHashDTO.getSha256().toLowerCase(Locale.ROOT) : null;
+        String md5 = checkHashDTO.getMd5() != null ? checkHashDTO.getMd5().toLowerCase(Locale.ROOT) : null;
+        Long size = checkHashDTO.getSize();
+
+        // 验证参数
+        if (sha256 == null && md5 == null) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "文件摘要不能为空");
+        }
+        if (sha256 != null && !SHA256_PATTERN.matcher(sha256).matches()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "SHA-256摘要格式不正确");
+        }
+        if (md5 != null && !MD5_PATTERN.matcher(md5).matches()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "MD5摘要格式不正确");
+        }
+        if (size == null || size <= 0 || size > MAX_IMAGE_SIZE) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "文件大小不合法");
+        }
+        if (checkHashDTO.getFileName() == null || checkHashDTO.getFileName().isBlank()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "文件名不能为空");
+        }
+
+        Long userId = resolveUploadUserId();
+
+        // 本人已上传过相同内容，直接返回
+        if (md5 != null) {
+            Image existingImage = imageDao.findByUserIdAndMd5(userId, md5);
+            if (existingImage != null && existingImage.getDeleted() == 0 && existingImage.getSize().equals(size)) {
+                return CheckHashVO.builder().exists(true).image(toUploadVO(existingImage)).build();
+            }
+        }
+
+        // 其他用户上传过相同内容，引用已有内容块生成图片记录；只接受SHA-256，避免凭弱摘要获取他人图片
+        ImageBlob blob = imageBlobService.acquireExisting(sha256, size);
+        if (blob == null) {
+            return CheckHashVO.builder().exists(false).build();
+        }
+        if (md5 == null) {
+            Image existingImage = imageDao.findByUserIdAndMd5(userId, blob.getMd5());
+            if (existingImage != null && existingImage.getDeleted() == 0) {
+                imageBlobService.release(blob.getId());
+                return CheckHashVO.builder().exists(true).image(toUploadVO(existingImage)).build();
+            }
+        }
+        Image image = buildImage(userId, checkHashDTO.getFileName(), blob);
+        imageDao.insert(image);
+        countCacheService.invalidate(CountCacheService.NAMESPACE_IMAGE, userId);
+        imageSearchIndexService.index(image);
+        thumbnailService.scheduleGeneration(image.getId());
+        log.info("秒传成功: imageId={}, blobId={}", image.getId(), blob.getId());
+
+        return CheckHashVO.builder().exists(true).image(toUploadVO(image)).build();
+    }
+
+    @Override
+    public BatchUploadVO batchUploadImages(List<MultipartFile> files, Long projectId) {
+        if (files == null || files.isEmpty()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "请选择要上传的图片");
+        }
+
+        List<BatchSource> sources = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            sources.add(new BatchSource(file.getOriginalFilename(), file.getSize(), file.getContentType(), file::getInputStream));
+        }
+        return processBatch(sources, projectId);
+    }
+
+    @Override
+    public BatchUploadVO batchUploadZip(MultipartFile zipFile, Long projectId) {
+        if (zipFile == null || zipFile.isEmpty()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "请选择要上传的压缩包");
+        }
+
+        Path tempFile = null;
+        try {
+            // ZipFile需要随机访问中央目录，先落到临时文件，各条目再按需并发读取
+            tempFile = Files.createTempFile("batch-upload-", ".zip");
+            zipFile.transferTo(tempFile);
+
+            try (ZipFile zip = new ZipFile(tempFile.toFile())) {
+                List<BatchSource> sources = new ArrayList<>();
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    String entryName = entry.getName();
+                    String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+                    // 跳过目录以及系统生成的隐藏文件
+                    if (entry.isDirectory() || fileName.isEmpty() || fileName.startsWith(".") || entryName.startsWith("__MACOSX/")) {
+                        continue;
+                    }
+                    sources.add(new BatchSource(fileName, entry.getSize(), guessContentType(fileName), () -> zip.getInputStream(entry)));
+                }
+                return processBatch(sources, projectId);
+            }
+        } catch (IOException e) {
+            log.error("解析压缩包失败", e);
+            throw new BusinessException(ResultCode.PARAM_ERROR, "解析压缩包失败: " + e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    log.warn("删除临时文件失败: {}", tempFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * 批量处理上传：并发上传存储，再统一去重、一次性写库并关联项目
+     *
+     * @param sources   待上传的文件
+     * @param projectId 要关联的项目ID，可为空
+     * @return 批量上传结果
+     */
+    private BatchUploadVO processBatch(List<BatchSource> sources, Long projectId) {
+        if (sources.isEmpty()) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "没有可上传的图片");
+        }
+        if (sources.size() > batchMaxFiles) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "单次最多上传" + batchMaxFiles + "个文件");
+        }
+
+        // 安全上下文是线程本地的，需在提交到线程池之前获取用户并校验项目权限
+        Long userId = resolveUploadUserId();
+        if (projectId != null) {
+            annotationProjectService.checkProjectManager(projectId);
+        }
+
+        // 并发完成探测、摘要计算和上传存储
+        List<CompletableFuture<ImageBlob>> futures = new ArrayList<>(sources.size());
+        for (BatchSource source : sources) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try (InputStream inputStream = source.getOpener().open()) {
+                    return storeBlob(inputStream, source.getSize(), source.getFileName(), source.getContentType());
+                } catch (IOException e) {
+                    throw new BusinessException(ResultCode.SYSTEM_ERROR, "读取文件失败: " + e.getMessage());
+                }
+            }, batchUploadExecutor));
+        }
+
+        int total = sources.size();
+        ImageBlob[] uploads = new ImageBlob[total];
+        Image[] images = new Image[total];
+        boolean[] duplicates = new boolean[total];
+        BatchUploadItemVO[] items = new BatchUploadItemVO[total];
+        for (int i = 0; i < total; i++) {
+            try {
+                uploads[i] = futures.get(i).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("批量上传文件失败: {}, {}", sources.get(i).getFileName(), cause.getMessage());
+                items[i] = BatchUploadItemVO.builder()
+                        .index(i)
+                        .fileName(sources.get(i).getFileName())
+                        .success(false)
+                        .message(cause instanceof BusinessException ? cause.getMessage() : "上传图片失败: " + cause.getMessage())
+                        .build();
+            }
+        }
+
+        // 上传均已完成，去重、写库和关联项目在一个短事务中完成
+        List<Image> newImages = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            // 一次查询完成与已有图片的去重，同一批次内的重复文件也只保留第一份
+            List<String> md5List = Arrays.stream(uploads)
+                    .filter(Objects::nonNull)
+                    .map(ImageBlob::getMd5)
+                    .distinct()
+                    .collect(Collectors.toList());
+            Map<String, Image> imageByMd5 = new HashMap<>();
+            if (!md5List.isEmpty()) {
+                for (Image existingImage : imageDao.findByUserIdAndMd5List(userId, md5List)) {
+                    imageByMd5.putIfAbsent(existingImage.getMd5(), existingImage);
+                }
+            }
+            for (int i = 0; i < total; i++) {
+                if (uploads[i] == null) {
+                    continue;
+                }
+                Image sameImage = imageByMd5.get(uploads[i].getMd5());
+                if (sameImage != null) {
+                    storageService.deleteFile(uploads[i].getPath());
+                    images[i] = sameImage;
+                    duplicates[i] = true;
+                } else {
+                    // 引用内容块，写库失败回滚时新上传的对象由内容块服务回收
+                    ImageBlob blob = imageBlobService.acquire(uploads[i]);
+                    images[i] = buildImage(userId, sources.get(i).getFileName(), blob);
+                    imageByMd5.put(images[i].getMd5(), images[i]);
+                    newImages.add(images[i]);
+                }
+            }
+
+            // 多行INSERT写入新图片，插入后回填ID
+            for (int from = 0; from < newImages.size(); from += BATCH_INSERT_SIZE) {
+                imageDao.batchInsert(newImages.subList(from, Math.min(from + BATCH_INSERT_SIZE, newImages.size())));
+            }
+            if (!newImages.isEmpty()) {
+                countCacheService.invalidate(CountCacheService.NAMESPACE_IMAGE, userId);
+            }
+            for (Image newImage : newImages) {
+                imageSearchIndexService.index(newImage);
+                thumbnailService.scheduleGeneration(newImage.getId());
+            }
+
+            // 关联到项目
+            if (projectId != null) {
+                List<Long> imageIds = Arrays.stream(images)
+                        .filter(Objects::nonNull)
+                        .map(Image::getId)
+                        .distinct()
+                        .collect(Collectors.toList());
+                annotationProjectService.addImageToProject(projectId, imageIds);
+            }
+        });
+
+        int successCount = 0;
+        for (int i = 0; i < total; i++) {
+            if (images[i] != null) {
+                items[i] = BatchUploadItemVO.builder()
+                        .index(i)
+                        .fileName(sources.get(i).getFileName())
+                        .success(true)
+                        .duplicate(duplicates[i])
+                        .image(toUploadVO(images[i]))
+                        .build();
+                successCount++;
+            }
+        }
+        log.info("批量上传完成: 共{}个文件，成功{}个，新增{}个", total, successCount, newImages.size());
+
+        return BatchUploadVO.builder()
+                .total(total)
+                .successCount(successCount)
+                .failedCount(total - successCount)
+                .items(Arrays.asList(items))
+                .build();
+    }
+
+    /**
+     * 校验并上传图片文件到存储，返回尚未持久化的内容块信息
+     * 单次读取文件流：先从缓冲区探测头部元数据，再边计算MD5和SHA-256边上传到存储
+     * 不依赖安全上下文，可在批量上传的工作线程中执行
+     */
+    private ImageBlob storeBlob(InputStream inputStream, long size, String originalFilename, String contentType) {
+        validateUpload(contentType, size);
+
+        try {
+            return readBlob(inputStream, size, contentType,
+                    digestStream -> storageService.uploadFile(digestStream, size, originalFilename, "images"));
         } catch (IOException e) {
             log.error("上传图片失败", e);
             throw new BusinessException(ResultCode.SYSTEM_ERROR, "上传图片失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 单次读取文件流：先从缓冲区探测头部元数据，再把计算MD5和SHA-256的流交给写入方读完
+     *
+     * @param writer 读取摘要流并返回存储路径
+     */
+    private ImageBlob readBlob(InputStream inputStream, long size, String contentType, BlobWriter writer) throws IOException {
+        try {
+            BufferedInputStream bufferedStream = new BufferedInputStream(inputStream, HEADER_SNIFF_BYTES);
+            bufferedStream.mark(HEADER_SNIFF_BYTES);
+            byte[] header = bufferedStream.readNBytes(HEADER_SNIFF_BYTES);
+            bufferedStream.reset();
+            ImageMetadataDTO metadata = imageProbeService.probe(header, header.length);
+
+            MessageDigest md5Digest = MessageDigest.getInstance("MD5");
+            MessageDigest sha256Digest = MessageDigest.getInstance("SHA-256");
+            InputStream digestStream = new DigestInputStream(new DigestInputStream(bufferedStream, md5Digest), sha256Digest);
+            String filePath = writer.write(digestStream);
+
+            if (metadata == null && header.length == HEADER_SNIFF_BYTES) {
+                // 尺寸信息不在头部范围内（如超大的EXIF/ICC段），从已存储的文件再读取到头信息为止
+                try (InputStream storedStream = storageService.getFileStream(filePath)) {
+                    metadata = imageProbeService.probe(storedStream);
+                }
+            }
+
+            return ImageBlob.builder()
+                    .sha256(HexFormat.of().formatHex(sha256Digest.digest()))
+                    .md5(HexFormat.of().formatHex(md5Digest.digest()))
+                    .path(filePath)
+                    .size(size)
+                    .width(metadata != null && metadata.getWidth() != null ? metadata.getWidth() : 0)
+                    .height(metadata != null && metadata.getHeight() != null ? metadata.getHeight() : 0)
+                    .mimeType(metadata != null && metadata.getMimeType() != null ? metadata.getMimeType() : contentType)
+                    .build();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 验证上传文件的类型和大小
+     */
+    private void validateUpload(String contentType, long size) {
+        // 验证文件类型
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "只能上传图片文件");
+        }
+
+        // 验证文件大小
+        if (size <= 0) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "图片文件为空");
+        }
+        if (size > MAX_IMAGE_SIZE) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "图片大小不能超过10MB");
+        }
+    }
+
+    /**
+     * 删除异步上传的暂存文件
+     */
+    private void deleteSpoolFile(String spoolFile) {
+        try {
+            storageService.deleteFile(spoolFile);
+        } catch (RuntimeException e) {
+            log.warn("删除上传暂存文件失败: {}", spoolFile);
+        }
+    }
+
+    /**
+     * 根据内容块生成图片记录
+     */
+    private Image buildImage(Long userId, String originalFilename, ImageBlob blob) {
+        return Image.builder()
+                .userId(userId)
+                .name(originalFilename)
+                .originalName(originalFilename)
+                .path(blob.getPath())
+                .blobId(blob.getId())
+                .url(storageService.getFileUrl(blob.getPath()))
+                .md5(blob.getMd5())
+                .size(blob.getSize())
+                .width(blob.getWidth())
+                .height(blob.getHeight())
+                .mimeType(blob.getMimeType())
+                .accessCount(0L)
+                .status(1)
+                .deleted(0)
+                .createTime(LocalDateTime.now())
+                .updateTime(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * 获取上传用户ID，未登录时使用默认用户
+     */
+    private Long resolveUploadUserId() {
+        try {
+            Long userId = SecurityUtil.getCurrentUserId();
+            log.debug("成功获取上传用户ID: {}", userId);
+            return userId;
+        } catch (Exception e) {
+            log.warn("获取当前用户ID失败，使用默认用户ID: {}", e.getMessage());
+            // 使用默认用户ID (1)
+            return 1L;
+        }
+    }
+
+    /**
+     * 根据文件扩展名推断图片的媒体类型
+     */
+    private String guessContentType(String fileName) {
+        String contentType = URLConnection.guessContentTypeFromName(fileName);
+        if (contentType == null && fileName.toLowerCase().endsWith(".webp")) {
+            contentType = "image/webp";
+        }
+        return contentType;
+    }
+
+    /**
+     * 转换为上传结果VO
+     */
+    private ImageUploadVO toUploadVO(Image image) {
+        return ImageUploadVO.builder()
+                .id(image.getId())
+                .name(image.getName())
+                .url(image.getStatus() != null && image.getStatus() == 0 ? null : imageUrlService.getFileUrl(image.getPath()))
+                .size(image.getSize())
+                .width(image.getWidth())
+                .height(image.getHeight())
+                .status(image.getStatus())
+                .build();
+    }
+
     @Override
     public PageVO<ImageVO> getImageList(ImageQueryDTO queryDTO) {
         // 获取当前用户ID
         Long userId = SecurityUtil.getCurrentUserId();
 
-        // 查询总数
-        Long total = imageDao.countByUserId(userId, queryDTO.getKeyword());
+        // 验证排序和筛选参数，排序字段直接拼入SQL，只允许白名单内的字段
+        String sortField = queryDTO.getSortField() == null || queryDTO.getSortField().isEmpty()
+                ? CURSOR_SORT_FIELD : queryDTO.getSortField();
+        if (!LIST_SORT_FIELDS.contains(sortField)) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "不支持的排序字段: " + sortField);
+        }
+        String sortOrder = "asc".equalsIgnoreCase(queryDTO.getSortOrder()) ? "asc" : "desc";
+        validateFilter(queryDTO);
+
+        // 有关键字时先查搜索索引，没有其他筛选条件时匹配的ID数即为精确总数
+        String keyword = queryDTO.getKeyword();
+        long[] matchedIds = searchIndex(userId, keyword);
+        List<Long> ids = toIdFilter(matchedIds);
+        boolean filtered = hasFilter(queryDTO);
+
+        // 查询总数，结果按查询条件缓存，超过精确统计上限时返回估算值
+        CountResultDTO count = Boolean.FALSE.equals(queryDTO.getWithTotal()) ? null
+                : matchedIds != null && !filtered ? new CountResultDTO((long) matchedIds.length, true)
+                : countCacheService.count(CountCacheService.NAMESPACE_IMAGE, userId, queryKey(queryDTO),
+                        new CountCacheService.Counter() {
+                            @Override
+                            public long countUpTo(int limit) {
+                                return imageDao.countByUserIdUpTo(userId, keyword, ids, queryDTO, limit);
+                            }
+
+                            @Override
+                            public List<Map<String, Object>> explain() {
+                                return imageDao.explainCountByUserId(userId, keyword, ids, queryDTO);
+                            }
+                        });
 
         // 查询列表
         List<Image> imageList = imageDao.findByUserId(
                 userId,
-                queryDTO.getKeyword(),
+                keyword,
+                ids,
+                queryDTO,
                 (queryDTO.getPage() - 1) * queryDTO.getSize(),
                 queryDTO.getSize(),
-                queryDTO.getSortField(),
-                queryDTO.getSortOrder()
+                sortField,
+                sortOrder
         );
 
         // 转换为VO
         List<ImageVO> voList = imageList.stream().map(this::convertToVO).collect(Collectors.toList());
 
         // 返回分页结果
-        return PageVO.of(voList, total, queryDTO.getPage(), queryDTO.getSize());
+        return count != null
+                ? PageVO.of(voList, count.getTotal(), count.getExact(), queryDTO.getPage(), queryDTO.getSize())
+                : PageVO.of(voList, null, false, queryDTO.getPage(), queryDTO.getSize());
+    }
+
+    @Override
+    public CursorPageVO<ImageVO> getImageListByCursor(ImageQueryDTO queryDTO) {
+        // 获取当前用户ID
+        Long userId = SecurityUtil.getCurrentUserId();
+
+        // 验证参数
+        if (queryDTO.getSortField() != null && !CURSOR_SORT_FIELD.equals(queryDTO.getSortField())) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "游标分页只支持按上传时间排序");
+        }
+        boolean ascending = "asc".equalsIgnoreCase(queryDTO.getSortOrder());
+        String direction = ascending ? "asc" : "desc";
+        int size = queryDTO.getSize() != null ? Math.max(1, Math.min(MAX_CURSOR_PAGE_SIZE, queryDTO.getSize())) : 12;
+
+        // 解析游标：排序方式|创建时间|图片ID
+        LocalDateTime cursorTime = null;
+        Long cursorId = null;
+        if (queryDTO.getCursor() != null && !queryDTO.getCursor().isEmpty()) {
+            String[] parts = CursorUtil.decode(queryDTO.getCursor(), 3);
+            if (!direction.equals(parts[0])) {
+                throw new BusinessException(ResultCode.PARAM_ERROR, "分页游标与排序方式不一致");
+            }
+            try {
+                cursorTime = LocalDateTime.parse(parts[1]);
+                cursorId = Long.parseLong(parts[2]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new BusinessException(ResultCode.PARAM_ERROR, "分页游标无效");
+            }
+        }
+
+        // 多取一条判断是否还有下一页
+        List<Long> ids = toIdFilter(searchIndex(userId, queryDTO.getKeyword()));
+        validateFilter(queryDTO);
+        List<Image> imageList = imageDao.findByUserIdAfterCursor(userId, queryDTO.getKeyword(), ids, queryDTO,
+                cursorTime, cursorId, ascending, size + 1);
+        boolean hasMore = imageList.size() > size;
+        if (hasMore) {
+            imageList = imageList.subList(0, size);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            Image last = imageList.get(imageList.size() - 1);
+            nextCursor = CursorUtil.encode(direction, last.getCreateTime().toString(), String.valueOf(last.getId()));
+        }
+
+        return CursorPageVO.<ImageVO>builder()
+                .list(imageList.stream().map(this::convertToVO).collect(Collectors.toList()))
+                .size(size)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * 验证元数据筛选条件
+     *
+     * @throws BusinessException 当范围条件不合法时抛出业务异常
+     */
+    private void validateFilter(ImageQueryDTO queryDTO) {
+        if (isReversed(queryDTO.getMinSize(), queryDTO.getMaxSize())
+                || isReversed(queryDTO.getMinWidth(), queryDTO.getMaxWidth())
+                || isReversed(queryDTO.getMinHeight(), queryDTO.getMaxHeight())
+                || isReversed(queryDTO.getMinAspectRatio(), queryDTO.getMaxAspectRatio())
+                || isReversed(queryDTO.getStartDate(), queryDTO.getEndDate())) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "筛选范围的下限不能大于上限");
+        }
+        if ((queryDTO.getMinAspectRatio() != null && queryDTO.getMinAspectRatio() <= 0)
+                || (queryDTO.getMaxAspectRatio() != null && queryDTO.getMaxAspectRatio() <= 0)) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "宽高比必须大于0");
+        }
+    }
+
+    private static <T extends Comparable<T>> boolean isReversed(T min, T max) {
+        return min != null && max != null && min.compareTo(max) > 0;
+    }
+
+    /**
+     * 是否有关键字以外的筛选条件
+     */
+    private boolean hasFilter(ImageQueryDTO queryDTO) {
+        return (queryDTO.getMimeTypes() != null && !queryDTO.getMimeTypes().isEmpty())
+                || queryDTO.getMinSize() != null || queryDTO.getMaxSize() != null
+                || queryDTO.getMinWidth() != null || queryDTO.getMaxWidth() != null
+                || queryDTO.getMinHeight() != null || queryDTO.getMaxHeight() != null
+                || queryDTO.getMinAspectRatio() != null || queryDTO.getMaxAspectRatio() != null
+                || queryDTO.getStartDate() != null || queryDTO.getEndDate() != null;
+    }
+
+    /**
+     * 生成计数缓存的查询条件标识
+     */
+    private String queryKey(ImageQueryDTO queryDTO) {
+        return "keyword=" + queryDTO.getKeyword()
+                + "&mimeTypes=" + queryDTO.getMimeTypes()
+                + "&size=" + queryDTO.getMinSize() + "," + queryDTO.getMaxSize()
+                + "&width=" + queryDTO.getMinWidth() + "," + queryDTO.getMaxWidth()
+                + "&height=" + queryDTO.getMinHeight() + "," + queryDTO.getMaxHeight()
+                + "&ratio=" + queryDTO.getMinAspectRatio() + "," + queryDTO.getMaxAspectRatio()
+                + "&date=" + queryDTO.getStartDate() + "," + queryDTO.getEndDate();
+    }
+
+    /**
+     * 使用搜索索引查询关键字匹配的图片ID
+     *
+     * @return 匹配的图片ID；没有关键字或索引未就绪时返回null
+     */
+    private long[] searchIndex(Long userId, String keyword) {
+        if (keyword == null || keyword.isEmpty()) {
+            return null;
+        }
+        return imageSearchIndexService.search(userId, keyword);
+    }
+
+    /**
+     * 把搜索索引结果转为列表查询的ID过滤条件，匹配数超过上限时返回null，由数据库按关键字过滤
+     */
+    private List<Long> toIdFilter(long[] matchedIds) {
+        if (matchedIds == null || matchedIds.length > maxIdListSize) {
+            return null;
+        }
+        return Arrays.stream(matchedIds).boxed().collect(Collectors.toList());
     }
 
     @Override
@@ -194,24 +1075,95 @@ public class ImageServiceImpl implements ImageService {
             throw new BusinessException(ResultCode.FORBIDDEN, "无权删除该图片");
         }
 
-        // 逻辑删除图片记录
-        imageDao.delete(id);
+        deleteFound(image);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
+    public void deleteImageById(Long id) {
+        Image image = imageDao.findById(id);
+        if (image == null || image.getDeleted() == 1) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "图片不存在");
+        }
+        deleteFound(image);
+    }
+
+    /**
+     * 删除已查询到的图片并使计数缓存失效，图片已被并发删除时按不存在处理
+     */
+    private void deleteFound(Image image) {
+        if (!purgeImage(image)) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "图片不存在");
+        }
+        countCacheService.invalidate(CountCacheService.NAMESPACE_IMAGE, image.getUserId());
+    }
+
+    @Override
+    public int deleteImagesByUserId(Long userId) {
+        int deleted = 0;
+        long afterId = 0;
+        List<Image> images;
+        do {
+            images = imageDao.findByUserIdAfterId(userId, afterId, DELETE_BATCH_SIZE);
+            for (Image image : images) {
+                if (purgeImage(image)) {
+                    deleted++;
+                }
+                afterId = image.getId();
+            }
+        } while (images.size() == DELETE_BATCH_SIZE);
+        countCacheService.invalidate(CountCacheService.NAMESPACE_IMAGE, userId);
+        return deleted;
+    }
+
+    /**
+     * 逻辑删除图片记录，释放对内容块的引用，移出搜索和相似图片索引并删除缩略图和衍生图片缓存
+     * 索引和存储的清理在事务提交后进行。
+     * 逻辑删除没有更新任何行说明图片已被并发删除，对应的引用已由那次删除释放，这里不再重复释放
+     *
+     * @return 是否由本次调用删除
+     */
+    private boolean purgeImage(Image image) {
+        if (imageDao.delete(image.getId()) == 0) {
+            return false;
+        }
+        imageSearchIndexService.remove(image.getUserId(), image.getId());
+        similarImageService.remove(image);
+        imageBlobService.release(image.getBlobId());
+        thumbnailService.deleteThumbnails(image);
+        if (image.getBlobId() == null) {
+            // 关联内容块的衍生图片随内容块回收删除，见ImageBlobService.release
+            imageDerivativeService.deleteImageDerivatives(image.getId());
+        }
+        return true;
+    }
+
+    @Override
     public String accessImage(Long id) {
         // 查询图片
         Image image = imageDao.findById(id);
         if (image == null || image.getDeleted() == 1) {
             throw new BusinessException(ResultCode.DATA_NOT_FOUND, "图片不存在");
         }
+        if (image.getStatus() != 1) {
+            throw new BusinessException(ResultCode.FAILED, image.getStatus() == 0 ? "图片正在处理中" : "图片处理失败");
+        }
+
+        // 增加访问次数，先在内存中累加，由后台定时批量写入
+        accessCountService.increment(id);
 
-        // 增加访问次数
-        imageDao.incrementAccessCount(id);
+        // 返回图片URL，按存储路径实时生成
+        return imageUrlService.getFileUrl(image.getPath());
+    }
 
-        // 返回图片URL
-        return image.getUrl();
+    @Override
+    @Deprecated
+    public byte[] proxyImage(String url) throws Exception {
+        // 兼容旧调用方，经由代理服务的连接池和缓存获取
+        ProxyImageVO image = imageProxyService.getImage(url);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        imageProxyService.writeTo(image, outputStream);
+        return outputStream.toByteArray();
     }
 
     /**
@@ -223,35 +1175,36 @@ public class ImageServiceImpl implements ImageService {
     private ImageVO convertToVO(Image image) {
         ImageVO vo = new ImageVO();
         BeanUtils.copyProperties(image, vo);
+        imageUrlService.fillUrls(image, vo);
+        vo.setAccessCount(image.getAccessCount() + accessCountService.getPendingCount(image.getId()));
         return vo;
     }
 
-    @Override
-    public byte[] proxyImage(String url) throws Exception {
-        log.debug("开始代理下载图片: {}", url);
-        
-        // 创建URL连接
-        URL imageUrl = new URL(url);
-        HttpURLConnection connection = (HttpURLConnection) imageUrl.openConnection();
-        
-        // 设置请求头，模拟浏览器请求
-        connection.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36");
-        connection.setRequestProperty("Accept", "image/avif,image/webp,image/apng,image/svg+xml,image/*,*/*;q=0.8");
-        
-        // 检查响应状态
-        int responseCode = connection.getResponseCode();
-        if (responseCode != 200) {
-            throw new BusinessException(ResultCode.FAILED, "下载图片失败，状态码: " + responseCode);
-        }
-        
-        // 读取图片数据
-        try (InputStream inputStream = connection.getInputStream()) {
-            return inputStream.readAllBytes();
-        } catch (Exception e) {
-            log.error("代理下载图片失败: {}", e.getMessage(), e);
-            throw e;
-        } finally {
-            connection.disconnect();
-        }
+    /**
+     * 打开文件输入流
+     */
+    @FunctionalInterface
+    private interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * 读取摘要流并写入存储
+     */
+    @FunctionalInterface
+    private interface BlobWriter {
+        String write(InputStream digestStream) throws IOException;
+    }
+
+    /**
+     * 批量上传中的单个待处理文件
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class BatchSource {
+        private final String fileName;
+        private final long size;
+        private final String contentType;
+        private final StreamOpener opener;
     }
 } 
\ No newline at end of file
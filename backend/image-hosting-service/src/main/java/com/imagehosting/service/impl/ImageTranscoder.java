@@ -0,0 +1,235 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.model.vo.DerivativeImageVO;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 图片转码器
+ * 只使用ImageIO，按客户端Accept请求头选出可接受且本机有编码器的格式，再按图片是否透明和原图格式选定一种编码，
+ * 每次只编码一次：优先WebP；透明图片用PNG；原图为PNG、GIF的不透明图片多为截图、图标等平面图形，保持PNG无损；
+ * 其余按照片处理输出JPEG。
+ * 编码时不写入任何元数据（EXIF、ICC、注释等）；透明通道全部不透明的图片按不透明图片处理，可以输出JPEG。
+ * 只用于衍生图片和缩略图，上传的原图按原字节保存不转码，内容去重和ETag都依赖原图字节不变
+ */
+@Component
+public class ImageTranscoder {
+
+    public static final String MIME_JPEG = "image/jpeg";
+    public static final String MIME_PNG = "image/png";
+    public static final String MIME_WEBP = "image/webp";
+    public static final String MIME_GIF = "image/gif";
+
+    /**
+     * 候选格式，按优先顺序排列
+     */
+    private static final String[] CANDIDATES = {MIME_WEBP, MIME_JPEG, MIME_PNG};
+
+    /**
+     * 选出本次编码要尝试的格式
+     *
+     * @param accept 客户端的Accept请求头，为空时只使用所有客户端都支持的JPEG和PNG
+     * @param alpha  图片是否含有透明像素，有透明像素时不使用JPEG
+     * @return 候选格式，至少包含一种
+     */
+    public List<String> negotiate(String accept, boolean alpha) {
+        List<String> formats = new ArrayList<>();
+        for (String mimeType : CANDIDATES) {
+            if (alpha && MIME_JPEG.equals(mimeType)) {
+                continue;
+            }
+            boolean acceptable = accept == null || accept.isBlank()
+                    ? !MIME_WEBP.equals(mimeType)
+                    : quality(accept, mimeType) > 0;
+            if (acceptable && ImageIO.getImageWritersByMIMEType(mimeType).hasNext()) {
+                formats.add(mimeType);
+            }
+        }
+        if (formats.isEmpty()) {
+            // 客户端只接受本机无法编码的格式时退回通用格式
+            formats.add(alpha ? MIME_PNG : MIME_JPEG);
+        }
+        return formats;
+    }
+
+    /**
+     * 按Accept请求头、透明度和原图格式选定输出格式
+     *
+     * @param accept     客户端的Accept请求头，为空时只使用JPEG和PNG
+     * @param alpha      图片是否含有透明像素
+     * @param sourceType 原图的媒体类型，可为空
+     * @return 输出格式
+     */
+    public String choose(String accept, boolean alpha, String sourceType) {
+        List<String> formats = negotiate(accept, alpha);
+        // WebP同时支持有损压缩和透明通道，可用时体积通常最小
+        if (formats.contains(MIME_WEBP)) {
+            return MIME_WEBP;
+        }
+        if (alpha) {
+            return formats.get(0);
+        }
+        String preferred = MIME_PNG.equals(sourceType) || MIME_GIF.equals(sourceType) ? MIME_PNG : MIME_JPEG;
+        return formats.contains(preferred) ? preferred : formats.get(0);
+    }
+
+    /**
+     * 编码图片，格式由{@link #choose}选定，只编码一次
+     *
+     * @param image      图片
+     * @param accept     客户端的Accept请求头
+     * @param quality    有损格式的输出质量（1-100）
+     * @param sourceType 原图的媒体类型，可为空
+     * @return 编码后的图片
+     * @throws IOException 编码失败时抛出
+     */
+    public DerivativeImageVO encode(BufferedImage image, String accept, int quality, String sourceType) throws IOException {
+        return encodeAs(image, choose(accept, hasTransparency(image), sourceType), quality);
+    }
+
+    /**
+     * 按指定格式编码图片，输出JPEG时去掉透明通道
+     *
+     * @param image    图片
+     * @param mimeType 输出格式
+     * @param quality  有损格式的输出质量（1-100）
+     * @return 编码后的图片
+     * @throws IOException 编码失败时抛出
+     */
+    DerivativeImageVO encodeAs(BufferedImage image, String mimeType, int quality) throws IOException {
+        byte[] data = write(MIME_JPEG.equals(mimeType) ? toOpaque(image) : image, mimeType, quality);
+        return DerivativeImageVO.builder().data(data).contentType(mimeType).build();
+    }
+
+    /**
+     * 根据文件头判断编码格式
+     *
+     * @param data 图片数据
+     * @return 媒体类型
+     */
+    public static String detectContentType(byte[] data) {
+        if (data.length > 1 && (data[0] & 0xFF) == 0x89 && data[1] == 'P') {
+            return MIME_PNG;
+        }
+        if (data.length > 11 && data[0] == 'R' && data[1] == 'I' && data[2] == 'F' && data[3] == 'F'
+                && data[8] == 'W' && data[9] == 'E' && data[10] == 'B' && data[11] == 'P') {
+            return MIME_WEBP;
+        }
+        return MIME_JPEG;
+    }
+
+    /**
+     * 计算Accept请求头对某个格式给出的q值，精确匹配优先于通配
+     */
+    private double quality(String accept, String mimeType) {
+        String type = mimeType.substring(0, mimeType.indexOf('/'));
+        double exact = -1;
+        double partial = -1;
+        double any = -1;
+        for (String range : accept.split(",")) {
+            String[] parts = range.trim().split(";");
+            String media = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (media.equals(mimeType)) {
+                exact = Math.max(exact, q);
+            } else if (media.equals(type + "/*")) {
+                partial = Math.max(partial, q);
+            } else if (media.equals("*/*")) {
+                any = Math.max(any, q);
+            }
+        }
+        return exact >= 0 ? exact : partial >= 0 ? partial : Math.max(any, 0);
+    }
+
+    /**
+     * 判断图片是否含有非完全不透明的像素
+     */
+    private boolean hasTransparency(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return false;
+        }
+        int width = image.getWidth();
+        int[] row = new int[width];
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int argb : row) {
+                if ((argb >>> 24) != 0xFF) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 去掉透明通道，JPEG编码器不支持ARGB
+     */
+    private BufferedImage toOpaque(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        BufferedImage opaque = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = opaque.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return opaque;
+    }
+
+    /**
+     * 按指定格式编码，有损格式使用指定质量，不写入元数据
+     */
+    private byte[] write(BufferedImage image, String mimeType, int quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByMIMEType(mimeType);
+        if (!writers.hasNext()) {
+            throw new IOException("不支持的输出格式: " + mimeType);
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            // PNG为无损格式，使用编码器默认的压缩级别
+            if (!MIME_PNG.equals(mimeType) && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                String[] types = param.getCompressionTypes();
+                if (param.getCompressionType() == null && types != null && types.length > 0) {
+                    param.setCompressionType(types[0]);
+                }
+                param.setCompressionQuality(quality / 100f);
+            }
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+}
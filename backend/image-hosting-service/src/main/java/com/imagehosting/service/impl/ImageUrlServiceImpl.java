@@ -0,0 +1,204 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.exception.BusinessException;
+import com.imagehosting.common.result.ResultCode;
+import com.imagehosting.common.util.SecurityUtil;
+import com.imagehosting.model.entity.Image;
+import com.imagehosting.model.vo.ImageVO;
+import com.imagehosting.service.ImageUrlService;
+import com.imagehosting.service.StorageService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 图片URL服务实现类
+ * 签名URL格式为 {域名}/{路径}?expires={过期时间戳}&sign={签名}，
+ * 签名为HMAC-SHA256("/" + 路径 + ":" + 过期时间戳)的URL安全Base64编码，由CDN边缘使用相同密钥校验。
+ * 过期时间按时间片对齐，同一时间片内同一路径的签名相同，签名结果按时间片缓存，列表页无需逐行计算HMAC
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageUrlServiceImpl implements ImageUrlService {
+
+    /**
+     * 签名算法
+     */
+    private static final String SIGN_ALGORITHM = "HmacSHA256";
+
+    private final StorageService storageService;
+
+    /**
+     * 是否生成签名URL
+     */
+    @Value("${storage.url.sign.enabled:false}")
+    private boolean signEnabled;
+
+    /**
+     * 签名密钥，需与CDN配置一致
+     */
+    @Value("${storage.url.sign.key:}")
+    private String signKey;
+
+    /**
+     * 签名URL的最短有效期（秒）
+     */
+    @Value("${storage.url.sign.ttlSeconds:3600}")
+    private long ttlSeconds;
+
+    /**
+     * 过期时间对齐的时间片长度（秒），实际有效期在ttlSeconds到ttlSeconds+bucketSeconds之间
+     */
+    @Value("${storage.url.sign.bucketSeconds:300}")
+    private long bucketSeconds;
+
+    /**
+     * 每个时间片最多缓存的签名URL数量
+     */
+    @Value("${storage.url.sign.cacheEntries:100000}")
+    private int cacheEntries;
+
+    /**
+     * 每个线程复用一个Mac实例，Mac不是线程安全的
+     */
+    private ThreadLocal<Mac> macHolder;
+
+    /**
+     * 当前时间片的签名缓存
+     */
+    private volatile SignatureBucket currentBucket;
+
+    /**
+     * 初始化签名密钥
+     */
+    @PostConstruct
+    public void init() {
+        if (!signEnabled) {
+            return;
+        }
+        if (signKey == null || signKey.isBlank()) {
+            throw new IllegalStateException("已开启URL签名但未配置storage.url.sign.key");
+        }
+        SecretKeySpec keySpec = new SecretKeySpec(signKey.getBytes(StandardCharsets.UTF_8), SIGN_ALGORITHM);
+        macHolder = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(SIGN_ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("初始化URL签名失败", e);
+            }
+        });
+        log.info("已开启URL签名: 有效期{}秒, 时间片{}秒", ttlSeconds, bucketSeconds);
+    }
+
+    @Override
+    public String getFileUrl(String filePath) {
+        if (filePath == null || filePath.isEmpty()) {
+            return null;
+        }
+        if (!signEnabled) {
+            return storageService.getFileUrl(filePath);
+        }
+
+        long now = System.currentTimeMillis() / 1000;
+        long expires = (now / bucketSeconds + 1) * bucketSeconds + ttlSeconds;
+        SignatureBucket bucket = currentBucket;
+        if (bucket == null || bucket.expires != expires) {
+            // 进入新的时间片，旧时间片的缓存整体丢弃
+            bucket = new SignatureBucket(expires);
+            currentBucket = bucket;
+        }
+
+        String url = bucket.urls.get(filePath);
+        if (url == null) {
+            url = sign(filePath, expires);
+            if (bucket.urls.size() < cacheEntries) {
+                bucket.urls.put(filePath, url);
+            }
+        }
+        return url;
+    }
+
+    @Override
+    public void fillUrls(Image image, ImageVO vo) {
+        vo.setUrl(image.getStatus() != null && image.getStatus() == 1 ? getFileUrl(image.getPath()) : null);
+        vo.setThumbnailUrl(getFileUrl(image.getThumbnailPath()));
+        vo.setPreviewUrl(getFileUrl(image.getPreviewPath()));
+    }
+
+    @Override
+    public void checkAccess(Image image, Long expires, String sign) {
+        if (!signEnabled) {
+            return;
+        }
+        if (isOwner(image)) {
+            return;
+        }
+        if (expires != null && sign != null && expires >= System.currentTimeMillis() / 1000) {
+            // 常量时间比较，避免通过响应时间逐字节猜测签名
+            byte[] expected = Base64.getUrlEncoder().withoutPadding().encodeToString(signature(image.getPath(), expires))
+                    .getBytes(StandardCharsets.UTF_8);
+            if (MessageDigest.isEqual(expected, sign.getBytes(StandardCharsets.UTF_8))) {
+                return;
+            }
+        }
+        throw new BusinessException(ResultCode.FORBIDDEN, "无权访问该图片");
+    }
+
+    /**
+     * 当前登录用户是否为图片所有者
+     */
+    private boolean isOwner(Image image) {
+        if (!SecurityUtil.isAuthenticated()) {
+            return false;
+        }
+        try {
+            return image.getUserId().equals(SecurityUtil.getCurrentUserId());
+        } catch (BusinessException e) {
+            // 匿名访问时认证主体中没有用户ID
+            return false;
+        }
+    }
+
+    /**
+     * 生成签名URL
+     */
+    private String sign(String filePath, long expires) {
+        String url = storageService.getFileUrl(filePath);
+        return url + (url.contains("?") ? "&" : "?") + "expires=" + expires
+                + "&sign=" + Base64.getUrlEncoder().withoutPadding().encodeToString(signature(filePath, expires));
+    }
+
+    /**
+     * 计算路径和过期时间戳的HMAC签名
+     */
+    private byte[] signature(String filePath, long expires) {
+        String path = filePath.startsWith("/") ? filePath : "/" + filePath;
+        return macHolder.get().doFinal((path + ":" + expires).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 一个时间片内的签名缓存
+     */
+    private static class SignatureBucket {
+        private final long expires;
+        private final ConcurrentMap<String, String> urls = new ConcurrentHashMap<>();
+
+        SignatureBucket(long expires) {
+            this.expires = expires;
+        }
+    }
+}
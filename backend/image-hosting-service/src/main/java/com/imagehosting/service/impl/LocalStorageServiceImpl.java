@@ -0,0 +1,346 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.exception.BusinessException;
+import com.imagehosting.common.result.ResultCode;
+import com.imagehosting.model.vo.PresignedUploadVO;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 本地磁盘存储服务实现类
+ * 通过storage.type=local启用，文件按文件名前缀分两级目录存放，
+ * 写入先落临时文件再原子重命名，读取通过FileChannel.transferTo零拷贝。
+ * 预签名上传作为对象存储的本地替代：上传地址为 {域名}/{路径}?expires={过期时间戳}&sign={签名}，
+ * 由Web层把该路径的PUT请求交给receivePresignedUpload处理
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+public class LocalStorageServiceImpl extends AbstractStorageService {
+
+    /**
+     * 预签名上传的签名算法
+     */
+    private static final String SIGN_ALGORITHM = "HmacSHA256";
+
+    /**
+     * 写入分片时的缓冲区大小
+     */
+    private static final int PART_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 存储根目录
+     */
+    @Value("${storage.local.root:./data/storage}")
+    private String rootDir;
+
+    /**
+     * 文件访问域名（或静态资源路径前缀）
+     */
+    @Value("${storage.local.domain:/files}")
+    private String domain;
+
+    /**
+     * 预签名上传的签名密钥，为空时启动时随机生成（仅适用于单实例部署）
+     */
+    @Value("${storage.local.uploadSignKey:}")
+    private String uploadSignKey;
+
+    /**
+     * 规范化后的根目录
+     */
+    private Path root;
+
+    /**
+     * 初始化存储根目录
+     *
+     * @throws IOException 创建目录失败时抛出
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(rootDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        log.info("本地存储根目录: {}", root);
+        if (uploadSignKey == null || uploadSignKey.isBlank()) {
+            uploadSignKey = UUID.randomUUID().toString();
+            log.warn("未配置storage.local.uploadSignKey，使用随机密钥，多实例部署时预签名上传地址只在签发实例有效");
+        }
+    }
+
+    @Override
+    public String uploadFile(InputStream inputStream, long size, String originalFilename, String directory) throws IOException {
+        String filePath = generateFilePath(originalFilename, directory);
+        try {
+            writeFile(filePath, inputStream, size, null);
+            log.info("文件上传成功: {}", filePath);
+            return filePath;
+        } catch (IOException e) {
+            log.error("文件上传失败", e);
+            throw new BusinessException(ResultCode.SYSTEM_ERROR, "文件上传失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected String initiateMultipart(String filePath) throws IOException {
+        // 分片按位置写入同目录下的临时文件，合并时原子重命名
+        Path target = resolve(filePath);
+        Files.createDirectories(target.getParent());
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Files.createFile(multipartTempFile(target, uploadId));
+        return uploadId;
+    }
+
+    @Override
+    protected String uploadPart(String filePath, String uploadId, int partNumber, long offset,
+                                InputStream inputStream, long partSize) throws IOException {
+        Path temp = multipartTempFile(resolve(filePath), uploadId);
+        // transferFrom不能写到文件末尾之后，分片可能先于前面的分片写入，改用按位置写入
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[PART_BUFFER_SIZE];
+            long written = 0;
+            while (written < partSize) {
+                int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, partSize - written));
+                if (read == -1) {
+                    throw new IOException("分片长度不一致，期望 " + partSize + " 字节，实际 " + written + " 字节");
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    written += channel.write(chunk, offset + written);
+                }
+            }
+        }
+        return String.valueOf(partNumber);
+    }
+
+    @Override
+    protected void completeMultipart(String filePath, String uploadId, List<String> partTags) throws IOException {
+        Path target = resolve(filePath);
+        Path temp = multipartTempFile(target, uploadId);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(false);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    protected void abortMultipart(String filePath, String uploadId) {
+        try {
+            Files.deleteIfExists(multipartTempFile(resolve(filePath), uploadId));
+        } catch (IOException e) {
+            log.warn("清理分片临时文件失败: {}, {}", filePath, e.getMessage());
+        }
+    }
+
+    /**
+     * 分片上传的临时文件，与目标文件同目录，以点开头
+     */
+    private Path multipartTempFile(Path target, String uploadId) {
+        return target.resolveSibling("." + target.getFileName() + "." + uploadId + ".multipart");
+    }
+
+    @Override
+    public String generateFilePath(String originalFilename, String directory) {
+        // 按文件名前四个字符分两级目录，避免单个目录下文件过多
+        String newFileName = generateFileName(originalFilename);
+        return directory + "/" + newFileName.substring(0, 2) + "/" + newFileName.substring(2, 4) + "/" + newFileName;
+    }
+
+    @Override
+    public PresignedUploadVO presignUpload(String filePath, String contentType, String contentMd5, LocalDateTime expireTime) {
+        long expires = expireTime.atZone(ZoneId.systemDefault()).toEpochSecond();
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", contentType);
+        headers.put("Content-MD5", contentMd5);
+        return PresignedUploadVO.builder()
+                .method("PUT")
+                .uploadUrl(domain + "/" + filePath + "?expires=" + expires + "&sign=" + signUpload(filePath, contentType, contentMd5, expires))
+                .headers(headers)
+                .expireTime(expireTime)
+                .build();
+    }
+
+    /**
+     * 接收预签名上传
+     * 校验签名和有效期后写入文件，内容MD5与签名时不一致则拒绝；已存在的文件不会被覆盖
+     *
+     * @param filePath    文件路径
+     * @param expires     过期时间戳（秒）
+     * @param sign        签名
+     * @param contentType 请求的Content-Type
+     * @param contentMd5  请求的Content-MD5
+     * @param inputStream 请求体
+     * @param size        请求体长度（字节）
+     * @throws com.imagehosting.common.exception.BusinessException 当签名无效、已过期或内容校验失败时抛出业务异常
+     */
+    public void receivePresignedUpload(String filePath, long expires, String sign, String contentType, String contentMd5,
+                                       InputStream inputStream, long size) {
+        byte[] expected = signUpload(filePath, contentType, contentMd5, expires).getBytes(StandardCharsets.UTF_8);
+        if (sign == null || !MessageDigest.isEqual(expected, sign.getBytes(StandardCharsets.UTF_8))) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "上传签名无效");
+        }
+        if (Instant.now().getEpochSecond() > expires) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "上传地址已过期");
+        }
+        if (Files.exists(resolve(filePath))) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "文件已上传");
+        }
+        try {
+            writeFile(filePath, inputStream, size, contentMd5);
+            log.info("预签名上传成功: {}", filePath);
+        } catch (IOException e) {
+            log.warn("预签名上传失败: {}, {}", filePath, e.getMessage());
+            throw new BusinessException(ResultCode.PARAM_ERROR, "上传失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteFile(String filePath) {
+        try {
+            Files.deleteIfExists(resolve(filePath));
+            log.info("文件删除成功: {}", filePath);
+        } catch (IOException e) {
+            // 删除失败只会留下孤立文件，不影响业务流程
+            log.warn("文件删除失败: {}, {}", filePath, e.getMessage());
+        }
+    }
+
+    @Override
+    public long getFileLength(String filePath) throws IOException {
+        return Files.size(resolve(filePath));
+    }
+
+    @Override
+    public InputStream getFileStream(String filePath) throws IOException {
+        return Files.newInputStream(resolve(filePath));
+    }
+
+    @Override
+    public long transferTo(String filePath, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(filePath), StandardOpenOption.READ)) {
+            long end = Math.min(position + count, channel.size());
+            long current = position;
+            // transferTo单次可能只传输部分数据，需要循环
+            while (current < end) {
+                long transferred = channel.transferTo(current, end - current, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                current += transferred;
+            }
+            return current - position;
+        }
+    }
+
+    @Override
+    public String getFileUrl(String filePath) {
+        return domain + "/" + filePath;
+    }
+
+    /**
+     * 写入文件
+     * 先写入同目录下的临时文件，长度和MD5校验通过后原子重命名，读取方不会看到写了一半的文件
+     *
+     * @param filePath    文件路径
+     * @param inputStream 输入流
+     * @param size        文件大小（字节）
+     * @param contentMd5  内容MD5的Base64编码，为空时不校验
+     * @throws IOException 写入失败或校验不通过时抛出
+     */
+    private void writeFile(String filePath, InputStream inputStream, long size, String contentMd5) throws IOException {
+        Path target = resolve(filePath);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            MessageDigest md5Digest = newMd5Digest();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ReadableByteChannel source = Channels.newChannel(new DigestInputStream(inputStream, md5Digest));
+                long written = 0;
+                while (written < size) {
+                    long transferred = channel.transferFrom(source, written, size - written);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    written += transferred;
+                }
+                if (written != size) {
+                    throw new IOException("文件长度不一致，期望 " + size + " 字节，实际 " + written + " 字节");
+                }
+                channel.force(false);
+            }
+            if (contentMd5 != null && !contentMd5.equals(Base64.getEncoder().encodeToString(md5Digest.digest()))) {
+                throw new IOException("文件内容与Content-MD5不一致");
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * 计算预签名上传的签名：HMAC-SHA256("PUT\n" + 路径 + "\n" + 媒体类型 + "\n" + 内容MD5 + "\n" + 过期时间戳)的URL安全Base64编码
+     */
+    private String signUpload(String filePath, String contentType, String contentMd5, long expires) {
+        try {
+            Mac mac = Mac.getInstance(SIGN_ALGORITHM);
+            mac.init(new SecretKeySpec(uploadSignKey.getBytes(StandardCharsets.UTF_8), SIGN_ALGORITHM));
+            String content = "PUT\n" + filePath + "\n" + contentType + "\n" + contentMd5 + "\n" + expires;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("计算上传签名失败", e);
+        }
+    }
+
+    private static MessageDigest newMd5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 将相对路径解析为根目录下的绝对路径，拒绝越出根目录的路径
+     *
+     * @param filePath 文件相对路径
+     * @return 绝对路径
+     */
+    private Path resolve(String filePath) {
+        Path path = root.resolve(filePath).normalize();
+        if (!path.startsWith(root)) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "非法的文件路径");
+        }
+        return path;
+    }
+}
@@ -0,0 +1,92 @@
+package com.imagehosting.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 感知哈希计算器
+ * 使用dHash：把图片缩放为9×8的灰度图，每行比较相邻两个像素的亮度得到8位，共64位。
+ * 重新编码、缩放、轻微调色后的图片哈希基本不变，内容不同的图片哈希距离约为32
+ */
+@Component
+@RequiredArgsConstructor
+public class PerceptualHasher {
+
+    /**
+     * 缩放后的宽度，比每行的位数多1
+     */
+    private static final int HASH_WIDTH = 9;
+
+    /**
+     * 缩放后的高度
+     */
+    private static final int HASH_HEIGHT = 8;
+
+    private final ImageResizer imageResizer;
+
+    /**
+     * 计算图片的dHash
+     *
+     * @param inputStream 图片输入流，由调用方关闭
+     * @return 64位感知哈希
+     * @throws IOException 无法解码时抛出
+     */
+    public long dHash(InputStream inputStream) throws IOException {
+        // 降采样解码并逐级缩小，缩小过程本身即为平滑处理
+        return dHash(imageResizer.decode(inputStream, HASH_WIDTH, HASH_HEIGHT, ImageResizer.FIT_FILL));
+    }
+
+    /**
+     * 计算已解码图片的dHash
+     *
+     * @param image 图片
+     * @return 64位感知哈希
+     */
+    public long dHash(BufferedImage image) {
+        BufferedImage small = image;
+        if (image.getWidth() != HASH_WIDTH || image.getHeight() != HASH_HEIGHT) {
+            // 原图小于9×8时不会被缩小到目标尺寸，这里统一拉伸
+            small = new BufferedImage(HASH_WIDTH, HASH_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = small.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(image, 0, 0, HASH_WIDTH, HASH_HEIGHT, null);
+            } finally {
+                g.dispose();
+            }
+        }
+
+        double[] luminance = new double[HASH_WIDTH * HASH_HEIGHT];
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH; x++) {
+                luminance[y * HASH_WIDTH + x] = luminance(small.getRGB(x, y));
+            }
+        }
+        long hash = 0;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                hash = (hash << 1) | (luminance[y * HASH_WIDTH + x] > luminance[y * HASH_WIDTH + x + 1] ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 计算像素亮度，透明像素按白色背景混合
+     */
+    private static double luminance(int argb) {
+        Color color = new Color(argb, true);
+        double alpha = color.getAlpha() / 255.0;
+        double r = color.getRed() * alpha + 255 * (1 - alpha);
+        double g = color.getGreen() * alpha + 255 * (1 - alpha);
+        double b = color.getBlue() * alpha + 255 * (1 - alpha);
+        return 0.299 * r + 0.587 * g + 0.114 * b;
+    }
+}
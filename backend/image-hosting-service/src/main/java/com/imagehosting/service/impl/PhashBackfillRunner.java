@@ -0,0 +1,31 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.service.SimilarImageService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * 感知哈希回填命令
+ * 启动参数带 --backfill-phash 时，为功能上线前上传、尚未计算感知哈希的图片计算哈希
+ */
+@Component
+@RequiredArgsConstructor
+public class PhashBackfillRunner implements ApplicationRunner {
+
+    /**
+     * 启动参数名
+     */
+    private static final String OPTION_NAME = "backfill-phash";
+
+    private final SimilarImageService similarImageService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION_NAME)) {
+            return;
+        }
+        similarImageService.backfill();
+    }
+}
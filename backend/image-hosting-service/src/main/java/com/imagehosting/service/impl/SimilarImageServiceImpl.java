@@ -0,0 +1,416 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.exception.BusinessException;
+import com.imagehosting.common.result.ResultCode;
+import com.imagehosting.common.util.MultiIndexHashTable;
+import com.imagehosting.common.util.SecurityUtil;
+import com.imagehosting.dao.ImageDao;
+import com.imagehosting.dao.ProjectImageDao;
+import com.imagehosting.model.entity.Image;
+import com.imagehosting.model.entity.ProjectImage;
+import com.imagehosting.model.vo.ImageVO;
+import com.imagehosting.model.vo.SimilarImageGroupVO;
+import com.imagehosting.model.vo.SimilarImageVO;
+import com.imagehosting.service.AccessCountService;
+import com.imagehosting.service.AnnotationProjectService;
+import com.imagehosting.service.ImageUrlService;
+import com.imagehosting.service.SimilarImageService;
+import com.imagehosting.service.StorageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 相似图片服务实现类
+ * 所有图片共用一张多索引哈希表，以用户ID作为分组，按用户查询时在表内过滤；按项目查询时用项目的图片ID集合过滤。
+ * 重建期间的增量更新直接写入新表并记下图片ID，重建读到这些图片时跳过
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SimilarImageServiceImpl implements SimilarImageService {
+
+    /**
+     * 按ID批量读取时每批的数量
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    private final ImageDao imageDao;
+    private final ProjectImageDao projectImageDao;
+    private final StorageService storageService;
+    private final AnnotationProjectService annotationProjectService;
+    private final ImageUrlService imageUrlService;
+    private final AccessCountService accessCountService;
+    private final PerceptualHasher perceptualHasher;
+
+    /**
+     * 默认的最大汉明距离
+     */
+    @Value("${image.similar.defaultDistance:10}")
+    private int defaultDistance;
+
+    /**
+     * 单次查询最多返回的相似图片数
+     */
+    @Value("${image.similar.maxResults:100}")
+    private int maxResults;
+
+    /**
+     * 重建索引时每批读取的图片数
+     */
+    @Value("${image.similar.rebuildBatchSize:10000}")
+    private int rebuildBatchSize;
+
+    /**
+     * 感知哈希索引
+     */
+    private volatile MultiIndexHashTable table = new MultiIndexHashTable();
+
+    /**
+     * 重建期间发生增量更新的图片ID
+     */
+    private final Set<Long> touchedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 索引是否已就绪
+     */
+    private volatile boolean ready;
+
+    /**
+     * 是否正在重建
+     */
+    private volatile boolean rebuilding;
+
+    /**
+     * 重建线程
+     */
+    private ExecutorService rebuildExecutor;
+
+    /**
+     * 启动后台重建
+     */
+    @PostConstruct
+    public void init() {
+        rebuildExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("similar-index-"));
+        rebuildExecutor.submit(this::rebuild);
+    }
+
+    /**
+     * 停止重建线程
+     */
+    @PreDestroy
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @Override
+    public void hashImage(Image image, byte[] data) {
+        computeAndStore(image, data);
+    }
+
+    @Override
+    public void remove(Image image) {
+        if (image.getPhash() == null) {
+            return;
+        }
+        Runnable action = () -> {
+            if (rebuilding) {
+                touchedDuringRebuild.add(image.getId());
+            }
+            table.remove(image.getId(), image.getPhash());
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @Override
+    public List<SimilarImageVO> findSimilar(Long imageId, Integer maxDistance) {
+        Long userId = SecurityUtil.getCurrentUserId();
+        Image image = imageDao.findById(imageId);
+        if (image == null || image.getDeleted() == 1) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "图片不存在");
+        }
+        if (!image.getUserId().equals(userId)) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "无权访问该图片");
+        }
+
+        List<MultiIndexHashTable.Neighbor> neighbors = search(image, maxDistance,
+                (id, group) -> group == userId && id != imageId);
+        return toSimilarVOs(neighbors);
+    }
+
+    @Override
+    public List<SimilarImageVO> findSimilarInProject(Long projectId, Long imageId, Integer maxDistance) {
+        annotationProjectService.checkProjectMember(projectId);
+        Set<Long> projectImageIds = findProjectImageIds(projectId);
+        if (!projectImageIds.contains(imageId)) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "项目中不存在该图片");
+        }
+        Image image = imageDao.findById(imageId);
+        if (image == null || image.getDeleted() == 1) {
+            throw new BusinessException(ResultCode.DATA_NOT_FOUND, "图片不存在");
+        }
+
+        List<MultiIndexHashTable.Neighbor> neighbors = search(image, maxDistance,
+                (id, group) -> id != imageId && projectImageIds.contains(id));
+        return toSimilarVOs(neighbors);
+    }
+
+    @Override
+    public List<SimilarImageGroupVO> findDuplicateGroups(Long projectId, Integer maxDistance) {
+        annotationProjectService.checkProjectMember(projectId);
+        int distance = resolveDistance(maxDistance);
+        checkReady();
+        Set<Long> projectImageIds = findProjectImageIds(projectId);
+        Map<Long, Image> images = loadImages(new ArrayList<>(projectImageIds));
+
+        // 并查集：相似关系可传递地把图片连成一组，组的代表为ID最小的图片
+        Map<Long, Long> parent = new HashMap<>();
+        for (Image image : images.values()) {
+            if (image.getPhash() == null) {
+                continue;
+            }
+            long imageId = image.getId();
+            List<MultiIndexHashTable.Neighbor> neighbors = table.search(image.getPhash(), distance,
+                    (id, group) -> id > imageId && images.containsKey(id) && images.get(id).getPhash() != null,
+                    Integer.MAX_VALUE);
+            for (MultiIndexHashTable.Neighbor neighbor : neighbors) {
+                union(parent, imageId, neighbor.getId());
+            }
+        }
+
+        Map<Long, List<Long>> members = new HashMap<>();
+        for (Long id : parent.keySet()) {
+            members.computeIfAbsent(find(parent, id), key -> new ArrayList<>()).add(id);
+        }
+        List<SimilarImageGroupVO> groups = new ArrayList<>();
+        for (Map.Entry<Long, List<Long>> entry : members.entrySet()) {
+            Image representative = images.get(entry.getKey());
+            List<SimilarImageVO> groupImages = entry.getValue().stream()
+                    .sorted()
+                    .map(images::get)
+                    .map(member -> SimilarImageVO.builder()
+                            .image(convertToVO(member))
+                            .distance(Long.bitCount(member.getPhash() ^ representative.getPhash()))
+                            .build())
+                    .collect(Collectors.toList());
+            groups.add(SimilarImageGroupVO.builder().images(groupImages).build());
+        }
+        groups.sort(Comparator.comparingInt((SimilarImageGroupVO group) -> group.getImages().size()).reversed());
+        return groups;
+    }
+
+    @Override
+    public long backfill() {
+        long lastId = 0;
+        long hashed = 0;
+        long start = System.currentTimeMillis();
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Long> imageIds = imageDao.findIdsWithoutPhash(lastId, BATCH_SIZE);
+            if (imageIds.isEmpty()) {
+                break;
+            }
+            for (Long imageId : imageIds) {
+                Image image = imageDao.findById(imageId);
+                if (image == null || image.getPhash() != null) {
+                    continue;
+                }
+                try (InputStream inputStream = storageService.getFileStream(image.getPath())) {
+                    if (computeAndStore(image, inputStream.readAllBytes())) {
+                        hashed++;
+                    }
+                } catch (IOException e) {
+                    log.warn("读取原图失败，跳过感知哈希回填: imageId={}, {}", imageId, e.getMessage());
+                }
+            }
+            lastId = imageIds.get(imageIds.size() - 1);
+            log.info("感知哈希回填进度: lastId={}, 已计算{}张", lastId, hashed);
+        }
+        log.info("感知哈希回填完成: 计算{}张, 耗时{}ms", hashed, System.currentTimeMillis() - start);
+        return hashed;
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        ready = false;
+        rebuilding = true;
+        long start = System.currentTimeMillis();
+        MultiIndexHashTable rebuilt = new MultiIndexHashTable();
+        table = rebuilt;
+        try {
+            long afterId = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Image> batch = imageDao.findPhashEntries(afterId, rebuildBatchSize);
+                for (Image image : batch) {
+                    if (!touchedDuringRebuild.contains(image.getId())) {
+                        rebuilt.put(image.getId(), image.getUserId(), image.getPhash());
+                    }
+                }
+                if (batch.size() < rebuildBatchSize) {
+                    break;
+                }
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+            ready = !Thread.currentThread().isInterrupted();
+            log.info("相似图片索引重建完成: 图片{}张, 耗时{}ms", rebuilt.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("相似图片索引重建失败", e);
+        } finally {
+            rebuilding = false;
+            touchedDuringRebuild.clear();
+        }
+    }
+
+    /**
+     * 计算并保存感知哈希
+     *
+     * @return 是否成功
+     */
+    private boolean computeAndStore(Image image, byte[] data) {
+        long phash;
+        try {
+            phash = perceptualHasher.dHash(new ByteArrayInputStream(data));
+        } catch (IOException | RuntimeException e) {
+            log.warn("计算感知哈希失败: imageId={}, {}", image.getId(), e.getMessage());
+            return false;
+        }
+        if (imageDao.updatePhash(image.getId(), phash) == 0) {
+            // 计算期间图片被删除
+            return false;
+        }
+        if (rebuilding) {
+            touchedDuringRebuild.add(image.getId());
+        }
+        image.setPhash(phash);
+        table.put(image.getId(), image.getUserId(), phash);
+        return true;
+    }
+
+    /**
+     * 在索引中查询相似图片
+     */
+    private List<MultiIndexHashTable.Neighbor> search(Image image, Integer maxDistance, MultiIndexHashTable.EntryFilter filter) {
+        int distance = resolveDistance(maxDistance);
+        if (image.getPhash() == null) {
+            throw new BusinessException(ResultCode.FAILED, "图片的感知哈希尚未计算，请稍后再试");
+        }
+        checkReady();
+        return table.search(image.getPhash(), distance, filter, maxResults);
+    }
+
+    private int resolveDistance(Integer maxDistance) {
+        int distance = maxDistance != null ? maxDistance : defaultDistance;
+        if (distance < 0 || distance > MultiIndexHashTable.MAX_DISTANCE) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "汉明距离必须在0到" + MultiIndexHashTable.MAX_DISTANCE + "之间");
+        }
+        return distance;
+    }
+
+    private void checkReady() {
+        if (!ready) {
+            throw new BusinessException(ResultCode.FAILED, "相似图片索引正在加载，请稍后再试");
+        }
+    }
+
+    private Set<Long> findProjectImageIds(Long projectId) {
+        return projectImageDao.findByProjectId(projectId).stream()
+                .map(ProjectImage::getImageId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 分批按ID查询图片
+     */
+    private Map<Long, Image> loadImages(List<Long> ids) {
+        Map<Long, Image> images = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            for (Image image : imageDao.findByIds(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())))) {
+                images.put(image.getId(), image);
+            }
+        }
+        return images;
+    }
+
+    /**
+     * 把索引查询结果转为VO，保持距离顺序，跳过索引中尚未移除的已删除图片
+     */
+    private List<SimilarImageVO> toSimilarVOs(List<MultiIndexHashTable.Neighbor> neighbors) {
+        if (neighbors.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = neighbors.stream().map(MultiIndexHashTable.Neighbor::getId).collect(Collectors.toList());
+        Map<Long, Image> images = imageDao.findByIds(ids).stream()
+                .collect(Collectors.toMap(Image::getId, Function.identity()));
+        List<SimilarImageVO> result = new ArrayList<>(neighbors.size());
+        for (MultiIndexHashTable.Neighbor neighbor : neighbors) {
+            Image image = images.get(neighbor.getId());
+            if (image != null) {
+                result.add(SimilarImageVO.builder().image(convertToVO(image)).distance(neighbor.getDistance()).build());
+            }
+        }
+        return result;
+    }
+
+    private ImageVO convertToVO(Image image) {
+        ImageVO vo = new ImageVO();
+        BeanUtils.copyProperties(image, vo);
+        imageUrlService.fillUrls(image, vo);
+        vo.setAccessCount(image.getAccessCount() + accessCountService.getPendingCount(image.getId()));
+        return vo;
+    }
+
+    private static long find(Map<Long, Long> parent, long id) {
+        long root = id;
+        while (parent.getOrDefault(root, root) != root) {
+            root = parent.get(root);
+        }
+        // 路径压缩
+        long current = id;
+        while (current != root) {
+            long next = parent.get(current);
+            parent.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+    private static void union(Map<Long, Long> parent, long a, long b) {
+        parent.putIfAbsent(a, a);
+        parent.putIfAbsent(b, b);
+        long rootA = find(parent, a);
+        long rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent.put(Math.max(rootA, rootB), Math.min(rootA, rootB));
+        }
+    }
+}
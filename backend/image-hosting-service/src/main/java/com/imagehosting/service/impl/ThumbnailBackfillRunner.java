@@ -0,0 +1,35 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.service.ThumbnailService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 缩略图回填命令
+ * 启动参数带 --backfill-thumbnails 时执行回填，--backfill-thumbnails=restart 忽略已保存的进度从头开始
+ */
+@Component
+@RequiredArgsConstructor
+public class ThumbnailBackfillRunner implements ApplicationRunner {
+
+    /**
+     * 启动参数名
+     */
+    private static final String OPTION_NAME = "backfill-thumbnails";
+
+    private final ThumbnailService thumbnailService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION_NAME)) {
+            return;
+        }
+        List<String> values = args.getOptionValues(OPTION_NAME);
+        boolean restart = values != null && values.contains("restart");
+        thumbnailService.backfill(restart);
+    }
+}
@@ -0,0 +1,34 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.model.entity.ImageJob;
+import com.imagehosting.service.ImageJobHandler;
+import com.imagehosting.service.ThumbnailService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 缩略图生成任务处理器
+ * 处理缩略图线程池已满或首次生成失败后转入后台任务队列的图片，
+ * 重试用尽后图片保持无缩略图状态，可由回填任务补齐
+ */
+@Component
+@RequiredArgsConstructor
+public class ThumbnailJobHandler implements ImageJobHandler {
+
+    /**
+     * 任务类型
+     */
+    public static final String JOB_TYPE = "GENERATE_THUMBNAILS";
+
+    private final ThumbnailService thumbnailService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void handle(ImageJob job) throws Exception {
+        thumbnailService.generateThumbnails(job.getImageId());
+    }
+}
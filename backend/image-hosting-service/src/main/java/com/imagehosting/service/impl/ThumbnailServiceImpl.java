@@ -0,0 +1,326 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.dao.BackfillCheckpointDao;
+import com.imagehosting.dao.ImageDao;
+import com.imagehosting.dao.ImageJobDao;
+import com.imagehosting.model.entity.Image;
+import com.imagehosting.model.entity.ImageJob;
+import com.imagehosting.model.vo.DerivativeImageVO;
+import com.imagehosting.service.SimilarImageService;
+import com.imagehosting.service.StorageService;
+import com.imagehosting.service.ThumbnailService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 缩略图服务实现类
+ * 缩略图生成是CPU密集型工作，使用与请求线程隔离、线程数等于CPU核数的有界线程池；
+ * 队列满时不阻塞请求线程，而是写入后台任务队列延后处理
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+    /**
+     * 回填任务名称
+     */
+    private static final String BACKFILL_TASK = "thumbnail";
+
+    /**
+     * 回填时每批处理的图片数量
+     */
+    private static final int BACKFILL_BATCH_SIZE = 200;
+
+    /**
+     * 缩略图在存储中的目录
+     */
+    private static final String THUMBNAIL_DIRECTORY = "thumbnails";
+
+    private final ImageDao imageDao;
+    private final ImageJobDao imageJobDao;
+    private final BackfillCheckpointDao backfillCheckpointDao;
+    private final StorageService storageService;
+    private final ImageResizer imageResizer;
+    private final SimilarImageService similarImageService;
+
+    /**
+     * 缩略图边长，按cover方式裁剪为正方形
+     */
+    @Value("${image.thumbnail.size:200}")
+    private int thumbnailSize;
+
+    /**
+     * 预览图最大边长，按contain方式等比缩放
+     */
+    @Value("${image.thumbnail.previewSize:800}")
+    private int previewSize;
+
+    /**
+     * JPEG输出质量
+     */
+    @Value("${image.thumbnail.quality:80}")
+    private int quality;
+
+    /**
+     * 生成线程数，0表示使用CPU核数
+     */
+    @Value("${image.thumbnail.threads:0}")
+    private int threads;
+
+    /**
+     * 线程池等待队列容量
+     */
+    @Value("${image.thumbnail.queueCapacity:256}")
+    private int queueCapacity;
+
+    /**
+     * 转入后台任务队列时的最大执行次数
+     */
+    @Value("${image.job.maxAttempts:5}")
+    private int jobMaxAttempts;
+
+    /**
+     * 缩略图生成线程池
+     */
+    private ThreadPoolExecutor thumbnailExecutor;
+
+    /**
+     * 初始化缩略图生成线程池
+     */
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        thumbnailExecutor = new ThreadPoolExecutor(poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("image-thumbnail-"),
+                // 队列满时拒绝提交，由调用方转入后台任务队列
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 关闭线程池，未完成的图片由回填任务补齐
+     */
+    @PreDestroy
+    public void destroy() {
+        thumbnailExecutor.shutdown();
+    }
+
+    @Override
+    public void scheduleGeneration(Long imageId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(imageId);
+            return;
+        }
+        // 图片记录提交后才对生成线程可见
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(imageId);
+            }
+        });
+    }
+
+    /**
+     * 提交到缩略图线程池，线程池已满或生成失败时转入后台任务队列
+     */
+    private void submit(Long imageId) {
+        try {
+            thumbnailExecutor.execute(() -> {
+                try {
+                    generateThumbnails(imageId);
+                } catch (Exception e) {
+                    log.warn("生成缩略图失败，转入后台任务重试: imageId={}, {}", imageId, e.getMessage());
+                    enqueueJob(imageId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("缩略图线程池已满，转入后台任务队列: imageId={}", imageId);
+            enqueueJob(imageId);
+        }
+    }
+
+    /**
+     * 写入缩略图生成任务，写入失败时只能由回填任务补齐
+     */
+    private void enqueueJob(Long imageId) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            imageJobDao.insert(ImageJob.builder()
+                    .imageId(imageId)
+                    .jobType(ThumbnailJobHandler.JOB_TYPE)
+                    .status(0)
+                    .attempts(0)
+                    .maxAttempts(jobMaxAttempts)
+                    .nextRunTime(now)
+                    .createTime(now)
+                    .updateTime(now)
+                    .build());
+        } catch (RuntimeException e) {
+            log.error("写入缩略图任务失败: imageId={}", imageId, e);
+        }
+    }
+
+    @Override
+    public boolean generateThumbnails(Long imageId) throws IOException {
+        Image image = imageDao.findById(imageId);
+        if (image == null || image.getDeleted() == 1 || image.getStatus() != 1 || image.getThumbnailPath() != null) {
+            return false;
+        }
+
+        // 原图不超过10MB，读入内存后两种尺寸共用一份数据，只访问一次存储
+        byte[] original;
+        try (InputStream inputStream = storageService.getFileStream(image.getPath())) {
+            original = inputStream.readAllBytes();
+        }
+        DerivativeImageVO thumbnail = imageResizer.resize(new ByteArrayInputStream(original),
+                thumbnailSize, thumbnailSize, ImageResizer.FIT_COVER, quality, null, image.getMimeType());
+        DerivativeImageVO preview = imageResizer.resize(new ByteArrayInputStream(original),
+                previewSize, previewSize, ImageResizer.FIT_CONTAIN, quality, null, image.getMimeType());
+
+        String thumbnailPath = upload(thumbnail);
+        String previewPath;
+        try {
+            previewPath = upload(preview);
+        } catch (IOException | RuntimeException e) {
+            storageService.deleteFile(thumbnailPath);
+            throw e;
+        }
+
+        if (imageDao.updateThumbnails(imageId, thumbnailPath, previewPath) == 0) {
+            // 生成期间图片被删除，或已由其他线程生成
+            storageService.deleteFile(thumbnailPath);
+            storageService.deleteFile(previewPath);
+            return false;
+        }
+
+        // 原图已在内存中，顺带计算感知哈希，不再单独读取一次
+        if (image.getPhash() == null) {
+            similarImageService.hashImage(image, original);
+        }
+        log.debug("缩略图生成完成: imageId={}", imageId);
+        return true;
+    }
+
+    /**
+     * 上传缩略图到存储
+     */
+    private String upload(DerivativeImageVO derivative) throws IOException {
+        String fileName = ImageTranscoder.MIME_PNG.equals(derivative.getContentType()) ? "thumbnail.png" : "thumbnail.jpg";
+        byte[] data = derivative.getData();
+        return storageService.uploadFile(new ByteArrayInputStream(data), data.length, fileName, THUMBNAIL_DIRECTORY);
+    }
+
+    @Override
+    public void deleteThumbnails(Image image) {
+        List<String> paths = new ArrayList<>(2);
+        if (image.getThumbnailPath() != null) {
+            paths.add(image.getThumbnailPath());
+        }
+        if (image.getPreviewPath() != null) {
+            paths.add(image.getPreviewPath());
+        }
+        if (paths.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            paths.forEach(storageService::deleteFile);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                paths.forEach(storageService::deleteFile);
+            }
+        });
+    }
+
+    @Override
+    public long backfill(boolean restart) {
+        Long savedId = restart ? null : backfillCheckpointDao.findLastId(BACKFILL_TASK);
+        long lastId = savedId != null ? savedId : 0L;
+        log.info("开始回填缩略图: 起始ID={}", lastId);
+
+        // 回填占用的线程池名额不超过线程数，为新上传的图片保留队列空间
+        Semaphore permits = new Semaphore(thumbnailExecutor.getMaximumPoolSize());
+        long generated = 0;
+        long failed = 0;
+        while (true) {
+            List<Long> imageIds = imageDao.findIdsWithoutThumbnails(lastId, BACKFILL_BATCH_SIZE);
+            if (imageIds.isEmpty()) {
+                break;
+            }
+
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>(imageIds.size());
+            for (Long imageId : imageIds) {
+                permits.acquireUninterruptibly();
+                futures.add(submitBackfill(imageId).whenComplete((result, error) -> permits.release()));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    if (futures.get(i).join()) {
+                        generated++;
+                    }
+                } catch (CompletionException e) {
+                    failed++;
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    log.warn("回填缩略图失败: imageId={}, {}", imageIds.get(i), cause.getMessage());
+                }
+            }
+
+            // 整批完成后才保存进度，中断时最多重做一批，已生成的图片会被跳过
+            lastId = imageIds.get(imageIds.size() - 1);
+            backfillCheckpointDao.saveLastId(BACKFILL_TASK, lastId);
+            log.info("回填缩略图进度: 已处理到ID={}, 生成{}张, 失败{}张", lastId, generated, failed);
+        }
+
+        log.info("回填缩略图完成: 生成{}张, 失败{}张", generated, failed);
+        return generated;
+    }
+
+    /**
+     * 提交回填任务，线程池队列已满时在当前线程执行
+     */
+    private CompletableFuture<Boolean> submitBackfill(Long imageId) {
+        Supplier<Boolean> task = () -> {
+            try {
+                return generateThumbnails(imageId);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        try {
+            return CompletableFuture.supplyAsync(task, thumbnailExecutor);
+        } catch (RejectedExecutionException e) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (RuntimeException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+    }
+}
@@ -15,6 +15,7 @@ import com.imagehosting.model.entity.User;
 import com.imagehosting.model.vo.LoginVO;
 import com.imagehosting.model.vo.UserStatsVO;
 import com.imagehosting.model.vo.UserVO;
+import com.imagehosting.service.CountCacheService;
 import com.imagehosting.service.StorageService;
 import com.imagehosting.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -46,6 +47,8 @@ public class UserServiceImpl implements UserService {
     private final StorageService storageService;
     // 依赖注入 - JWT工具类
     private final JwtUtil jwtUtil;
+    // 依赖注入 - 分页总数缓存服务
+    private final CountCacheService countCacheService;
 
     /**
      * 注册功能 - 处理用户注册
@@ -72,6 +75,7 @@ public class UserServiceImpl implements UserService {
 
         // 保存用户到数据库
         userDao.insert(user);
+        countCacheService.invalidate(CountCacheService.NAMESPACE_USER, null);
     }
 
     /**
@@ -240,6 +244,8 @@ public class UserServiceImpl implements UserService {
 
         // 保存更新到数据库
         userDao.update(user);
+        // 昵称和邮箱参与用户列表的关键字查询
+        countCacheService.invalidate(CountCacheService.NAMESPACE_USER, null);
     }
 
     /**
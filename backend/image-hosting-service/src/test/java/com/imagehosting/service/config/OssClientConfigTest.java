@@ -0,0 +1,279 @@
+package com.imagehosting.service.config;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.model.ObjectMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * OSS客户端复用测试
+ * 用本地HTTP替身服务代替OSS，每个新连接先等待固定时间模拟TCP和TLS握手，
+ * 比较每次上传新建并关闭客户端（原做法）与共享 OssClientConfig 客户端的建连次数
+ */
+class OssClientConfigTest {
+
+    /**
+     * 模拟的建连耗时（毫秒）
+     */
+    private static final long HANDSHAKE_MILLIS = 20;
+
+    /**
+     * 统计建连次数的上传次数
+     */
+    private static final int UPLOADS = 30;
+
+    /**
+     * 预热的上传次数
+     */
+    private static final int WARMUP_UPLOADS = 5;
+
+    private static final String BUCKET = "test-bucket";
+
+    private final byte[] content = new byte[64 * 1024];
+
+    private StandInOssServer server;
+
+    private String endpoint;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        new Random(42).nextBytes(content);
+        server = new StandInOssServer(HANDSHAKE_MILLIS);
+        endpoint = "http://127.0.0.1:" + server.getPort();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void sharedClientReusesConnections() {
+        // 原做法：每次上传新建客户端，上传后关闭
+        for (int i = 0; i < WARMUP_UPLOADS; i++) {
+            uploadWithNewClient(i);
+        }
+        server.resetConnectionCount();
+        for (int i = 0; i < UPLOADS; i++) {
+            uploadWithNewClient(i);
+        }
+        int perRequestConnections = server.getConnectionCount();
+
+        // 现做法：整个应用共享一个客户端
+        OSS sharedClient = sharedClient();
+        try {
+            for (int i = 0; i < WARMUP_UPLOADS; i++) {
+                upload(sharedClient, i);
+            }
+            server.resetConnectionCount();
+            for (int i = 0; i < UPLOADS; i++) {
+                upload(sharedClient, i);
+            }
+            int sharedConnections = server.getConnectionCount();
+
+            assertEquals(UPLOADS, perRequestConnections, "每次新建客户端时每次上传都应新建连接");
+            assertEquals(0, sharedConnections, "预热后共享客户端应复用已有连接");
+        } finally {
+            sharedClient.shutdown();
+        }
+    }
+
+    private void uploadWithNewClient(int index) {
+        OSS client = new OSSClientBuilder().build(endpoint, "test-key", "test-secret", new ClientBuilderConfiguration());
+        try {
+            upload(client, index);
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    private void upload(OSS client, int index) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(content.length);
+        client.putObject(BUCKET, "images/test-" + index + ".jpg", new ByteArrayInputStream(content), metadata);
+    }
+
+    /**
+     * 按默认配置创建 OssClientConfig 管理的共享客户端
+     */
+    private OSS sharedClient() {
+        OssClientConfig config = new OssClientConfig();
+        ReflectionTestUtils.setField(config, "endpoint", endpoint);
+        ReflectionTestUtils.setField(config, "accessKeyId", "test-key");
+        ReflectionTestUtils.setField(config, "accessKeySecret", "test-secret");
+        ReflectionTestUtils.setField(config, "maxConnections", 256);
+        ReflectionTestUtils.setField(config, "socketTimeout", 30000);
+        ReflectionTestUtils.setField(config, "connectionTimeout", 5000);
+        ReflectionTestUtils.setField(config, "connectionRequestTimeout", 5000);
+        ReflectionTestUtils.setField(config, "idleConnectionTime", 60000L);
+        ReflectionTestUtils.setField(config, "maxErrorRetry", 3);
+        return config.ossClient();
+    }
+
+    /**
+     * OSS替身服务：接受任意请求并读完请求体，返回带ETag的200响应，支持长连接
+     */
+    private static final class StandInOssServer implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+
+        private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "oss-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+
+        private final AtomicInteger connectionCount = new AtomicInteger();
+
+        private final long handshakeMillis;
+
+        StandInOssServer(long handshakeMillis) throws IOException {
+            this.handshakeMillis = handshakeMillis;
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            executor.execute(this::acceptLoop);
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        int getConnectionCount() {
+            return connectionCount.get();
+        }
+
+        void resetConnectionCount() {
+            connectionCount.set(0);
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connectionCount.incrementAndGet();
+                    sockets.add(socket);
+                    executor.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (socket) {
+                // 模拟新连接的握手耗时，复用的连接不再产生这部分开销
+                Thread.sleep(handshakeMillis);
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                while (true) {
+                    String requestLine = readLine(in);
+                    if (requestLine == null || requestLine.isEmpty()) {
+                        return;
+                    }
+                    long contentLength = 0;
+                    boolean chunked = false;
+                    boolean expectContinue = false;
+                    String line;
+                    while ((line = readLine(in)) != null && !line.isEmpty()) {
+                        String header = line.toLowerCase(Locale.ROOT);
+                        if (header.startsWith("content-length:")) {
+                            contentLength = Long.parseLong(header.substring(15).trim());
+                        } else if (header.startsWith("transfer-encoding:") && header.contains("chunked")) {
+                            chunked = true;
+                        } else if (header.startsWith("expect:") && header.contains("100-continue")) {
+                            expectContinue = true;
+                        }
+                    }
+                    if (expectContinue) {
+                        out.write("HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                        out.flush();
+                    }
+                    if (chunked) {
+                        skipChunkedBody(in);
+                    } else {
+                        in.skipNBytes(contentLength);
+                    }
+                    out.write(("HTTP/1.1 200 OK\r\n"
+                            + "ETag: \"D41D8CD98F00B204E9800998ECF8427E\"\r\n"
+                            + "x-oss-request-id: stand-in\r\n"
+                            + "Content-Length: 0\r\n"
+                            + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // 客户端关闭连接
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                sockets.remove(socket);
+            }
+        }
+
+        private void skipChunkedBody(InputStream in) throws IOException {
+            while (true) {
+                String sizeLine = readLine(in);
+                if (sizeLine == null) {
+                    return;
+                }
+                int semicolon = sizeLine.indexOf(';');
+                long size = Long.parseLong((semicolon >= 0 ? sizeLine.substring(0, semicolon) : sizeLine).trim(), 16);
+                if (size == 0) {
+                    // 跳过尾部字段直到空行
+                    String trailer;
+                    while ((trailer = readLine(in)) != null && !trailer.isEmpty()) {
+                        // 忽略
+                    }
+                    return;
+                }
+                in.skipNBytes(size);
+                readLine(in);
+            }
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '\n') {
+                    int length = line.length();
+                    return length > 0 && line.charAt(length - 1) == '\r' ? line.substring(0, length - 1) : line.toString();
+                }
+                line.append((char) c);
+            }
+            return line.length() > 0 ? line.toString() : null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+            executor.shutdownNow();
+        }
+    }
+}
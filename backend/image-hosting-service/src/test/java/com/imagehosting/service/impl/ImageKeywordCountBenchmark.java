@@ -0,0 +1,217 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.util.TrigramIndex;
+import com.imagehosting.dao.ImageDao;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 关键字计数数据库基准测试
+ * 在MySQL中为基准用户灌入与 TrigramIndexBenchmark 相同的100万条模拟名称，
+ * 对比 ImageDao.countByUserId 的 LIKE 计数与三元组索引查询的耗时，两者输出在同一份报告中。
+ * 需要一个按 tc_database.sql 建好表的库，默认不运行，通过系统属性开启：
+ * -Dbenchmark.jdbc.url=jdbc:mysql://localhost:3306/image_hosting?rewriteBatchedStatements=true
+ * -Dbenchmark.jdbc.username=... -Dbenchmark.jdbc.password=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ImageKeywordCountBenchmark {
+
+    private static final String URL_PROPERTY = "benchmark.jdbc.url";
+
+    private static final String USERNAME_PROPERTY = "benchmark.jdbc.username";
+
+    private static final String PASSWORD_PROPERTY = "benchmark.jdbc.password";
+
+    private static final String MAPPER_RESOURCE = "mapper/ImageMapper.xml";
+
+    /**
+     * 灌入数据使用的基准用户名，重复运行时复用已灌入的数据
+     */
+    private static final String BENCHMARK_USERNAME = "benchmark_keyword_count";
+
+    /**
+     * 每批插入的行数
+     */
+    private static final int BATCH_SIZE = 5000;
+
+    /**
+     * 基准用户的图片数量
+     */
+    @Param({"1000000"})
+    private int rowCount;
+
+    /**
+     * 搜索关键字，与 TrigramIndexBenchmark 相同
+     */
+    @Param({"img", "2023", "screenshot_1", "风景", "猫咪照片", "no-such-name", "a"})
+    private String keyword;
+
+    private SqlSession sqlSession;
+
+    private ImageDao imageDao;
+
+    private TrigramIndex index;
+
+    private Long userId;
+
+    /**
+     * 连接数据库、按需灌入数据并建立索引，输出两种方式的计数
+     * LIKE 会把关键字中的 _ 和 % 当作通配符，这类关键字的计数可能多于索引结果
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        String url = System.getProperty(URL_PROPERTY);
+        if (url == null || url.isEmpty()) {
+            throw new IllegalStateException("未配置 -D" + URL_PROPERTY + "，跳过数据库基准测试");
+        }
+        UnpooledDataSource dataSource = new UnpooledDataSource("com.mysql.cj.jdbc.Driver", url,
+                System.getProperty(USERNAME_PROPERTY), System.getProperty(PASSWORD_PROPERTY));
+        Configuration configuration = new Configuration(new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+        try (InputStream in = Resources.getResourceAsStream(MAPPER_RESOURCE)) {
+            new XMLMapperBuilder(in, configuration, MAPPER_RESOURCE, configuration.getSqlFragments()).parse();
+        }
+        sqlSession = new SqlSessionFactoryBuilder().build(configuration).openSession(true);
+        imageDao = sqlSession.getMapper(ImageDao.class);
+
+        String[][] generated = TrigramIndexBenchmark.generateNames(rowCount);
+        userId = seed(sqlSession.getConnection(), generated[0], generated[1]);
+
+        index = new TrigramIndex();
+        for (int i = 0; i < rowCount; i++) {
+            index.put(i + 1, generated[0][i], generated[1][i]);
+        }
+        System.out.printf("%n关键字[%s]: 索引匹配%d张, LIKE计数%d张%n", keyword, index.search(keyword).length, likeCount());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (sqlSession != null) {
+            sqlSession.close();
+        }
+    }
+
+    /**
+     * 三元组索引查询
+     */
+    @Benchmark
+    public int indexSearch() {
+        return index.search(keyword).length;
+    }
+
+    /**
+     * 数据库 LIKE 计数，即 ImageDao.countByUserId
+     */
+    @Benchmark
+    public long likeCount() {
+        return imageDao.countByUserId(userId, keyword);
+    }
+
+    /**
+     * 创建基准用户并灌入模拟图片，已有数量与目标一致时直接复用
+     *
+     * @return 基准用户ID
+     */
+    private Long seed(Connection connection, String[] names, String[] originalNames) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT IGNORE INTO `user` (username, password) VALUES (?, '')")) {
+            statement.setString(1, BENCHMARK_USERNAME);
+            statement.executeUpdate();
+        }
+        long id = queryLong(connection, "SELECT id FROM `user` WHERE username = ?", BENCHMARK_USERNAME);
+        if (queryLong(connection, "SELECT COUNT(*) FROM image WHERE user_id = ? AND deleted = 0", id) == names.length) {
+            return id;
+        }
+
+        long start = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM image WHERE user_id = ?")) {
+            statement.setLong(1, id);
+            statement.executeUpdate();
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO image (user_id, name, original_name, path, url, md5, size, width, height, mime_type) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < names.length; i++) {
+                String path = "benchmark/" + i;
+                statement.setLong(1, id);
+                statement.setString(2, names[i]);
+                statement.setString(3, originalNames[i]);
+                statement.setString(4, path);
+                statement.setString(5, "/" + path);
+                statement.setString(6, String.format("%032x", i));
+                statement.setLong(7, 1024L + i % 4096);
+                statement.setInt(8, 1920);
+                statement.setInt(9, 1080);
+                statement.setString(10, "image/jpeg");
+                statement.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0 || i == names.length - 1) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        System.out.printf("%n为基准用户灌入图片%d张, 耗时%ds%n", names.length, (System.nanoTime() - start) / 1_000_000_000);
+        return id;
+    }
+
+    private static long queryLong(Connection connection, String sql, Object parameter) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setObject(1, parameter);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String url = System.getProperty(URL_PROPERTY);
+        if (url == null || url.isEmpty()) {
+            System.out.println("未配置 -D" + URL_PROPERTY + "，跳过数据库基准测试");
+            return;
+        }
+        new Runner(new OptionsBuilder()
+                .include(ImageKeywordCountBenchmark.class.getSimpleName())
+                .jvmArgsAppend("-D" + URL_PROPERTY + "=" + url,
+                        "-D" + USERNAME_PROPERTY + "=" + System.getProperty(USERNAME_PROPERTY, ""),
+                        "-D" + PASSWORD_PROPERTY + "=" + System.getProperty(PASSWORD_PROPERTY, ""))
+                .build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.model.dto.ImageMetadataDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片元数据探测基准测试
+ * 比较只解析头部的探测与 ImageIO.read 完整解码获取宽高的耗时，运行 main 方法或通过JMH插件执行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageProbeBenchmark {
+
+    /**
+     * 上传流程探测头部时读取的字节数，与 ImageServiceImpl 保持一致
+     */
+    private static final int HEADER_SNIFF_BYTES = 128 * 1024;
+
+    /**
+     * 图片格式
+     */
+    @Param({"jpg", "png"})
+    private String format;
+
+    /**
+     * 图片边长（像素），宽为边长，高为边长的3/4
+     */
+    @Param({"1024", "4000"})
+    private int side;
+
+    private final ImageProbeServiceImpl imageProbeService = new ImageProbeServiceImpl();
+
+    private byte[] data;
+
+    private byte[] header;
+
+    /**
+     * 生成带噪声的测试图片，避免高度可压缩的纯色图片低估解码耗时
+     *
+     * @throws IOException 编码失败时抛出
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int width = side;
+        int height = side * 3 / 4;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int base = (x * 255 / width) << 16 | (y * 255 / height) << 8;
+                image.setRGB(x, y, base | random.nextInt(64));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        data = out.toByteArray();
+        header = Arrays.copyOf(data, Math.min(data.length, HEADER_SNIFF_BYTES));
+
+        ImageMetadataDTO metadata = imageProbeService.probe(header, header.length);
+        if (metadata == null || metadata.getWidth() != width || metadata.getHeight() != height) {
+            throw new IllegalStateException("探测结果不正确: " + metadata);
+        }
+    }
+
+    /**
+     * 解析头部获取宽高
+     */
+    @Benchmark
+    public int probeHeader() {
+        ImageMetadataDTO metadata = imageProbeService.probe(header, header.length);
+        return metadata.getWidth() + metadata.getHeight();
+    }
+
+    /**
+     * 完整解码后获取宽高（原上传流程的做法）
+     *
+     * @throws IOException 解码失败时抛出
+     */
+    @Benchmark
+    public int imageIoRead() throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+        return image.getWidth() + image.getHeight();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ImageProbeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,138 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.model.vo.DerivativeImageVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 衍生图片转码基准测试
+ * 比较按Accept和原图格式选定一种格式编码与逐一编码所有候选格式取最小结果的耗时，
+ * 并在准备阶段输出两种方式的体积，运行 main 方法或通过JMH插件执行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageTranscoderBenchmark {
+
+    /**
+     * 有损格式的输出质量，与衍生图片默认质量一致
+     */
+    private static final int QUALITY = 80;
+
+    /**
+     * 图片内容：photo为带噪声的渐变（照片类，原图为JPEG），graphic为纯色块和文字（图形类，原图为PNG）
+     */
+    @Param({"photo", "graphic"})
+    private String content;
+
+    /**
+     * 客户端的Accept请求头
+     */
+    @Param({"image/webp,image/*", "image/*"})
+    private String accept;
+
+    private final ImageTranscoder imageTranscoder = new ImageTranscoder();
+
+    private BufferedImage image;
+
+    private String sourceType;
+
+    /**
+     * 生成测试图片并输出两种方式的编码体积
+     *
+     * @throws IOException 编码失败时抛出
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int width = 1600;
+        int height = 1200;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        if ("photo".equals(content)) {
+            sourceType = ImageTranscoder.MIME_JPEG;
+            Random random = new Random(42);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int base = (x * 255 / width) << 16 | (y * 255 / height) << 8;
+                    image.setRGB(x, y, base | random.nextInt(64));
+                }
+            }
+        } else {
+            sourceType = ImageTranscoder.MIME_PNG;
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+                Random random = new Random(42);
+                for (int i = 0; i < 40; i++) {
+                    g.setColor(new Color(random.nextInt(0xFFFFFF)));
+                    g.fillRect(random.nextInt(width), random.nextInt(height), 40 + random.nextInt(300), 20 + random.nextInt(200));
+                }
+                g.setColor(Color.BLACK);
+                for (int y = 40; y < height; y += 40) {
+                    g.drawString("image hosting transcode benchmark " + y, 20, y);
+                }
+            } finally {
+                g.dispose();
+            }
+        }
+
+        DerivativeImageVO chosen = chooseAndEncode();
+        DerivativeImageVO smallest = encodeAllCandidates();
+        System.out.printf("%n%s, Accept=%s: 选定 %s %d字节, 最小 %s %d字节%n", content, accept,
+                chosen.getContentType(), chosen.getData().length, smallest.getContentType(), smallest.getData().length);
+    }
+
+    /**
+     * 按Accept和原图格式选定一种格式编码（当前做法）
+     *
+     * @throws IOException 编码失败时抛出
+     */
+    @Benchmark
+    public DerivativeImageVO chooseAndEncode() throws IOException {
+        return imageTranscoder.encode(image, accept, QUALITY, sourceType);
+    }
+
+    /**
+     * 逐一编码所有候选格式并取体积最小的结果（原先的做法）
+     *
+     * @throws IOException 编码失败时抛出
+     */
+    @Benchmark
+    public DerivativeImageVO encodeAllCandidates() throws IOException {
+        DerivativeImageVO best = null;
+        for (String mimeType : imageTranscoder.negotiate(accept, false)) {
+            DerivativeImageVO encoded = imageTranscoder.encodeAs(image, mimeType, QUALITY);
+            if (best == null || encoded.getData().length < best.getData().length) {
+                best = encoded;
+            }
+        }
+        return best;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ImageTranscoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
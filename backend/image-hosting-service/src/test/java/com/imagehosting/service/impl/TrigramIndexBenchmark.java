@@ -0,0 +1,134 @@
+package com.imagehosting.service.impl;
+
+import com.imagehosting.common.util.TrigramIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 名称搜索基准测试
+ * 用模拟的图片名称比较三元组索引查询与逐行模糊匹配（LIKE '%关键字%' 的执行方式）的耗时，
+ * 关键字覆盖高频、低频、无匹配和短关键字，运行 main 方法或通过JMH插件执行。
+ * 与数据库中 LIKE 计数的对比见 ImageKeywordCountBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class TrigramIndexBenchmark {
+
+    /**
+     * 模拟名称使用的词
+     */
+    private static final String[] WORDS = {"IMG", "DSC", "Screenshot", "photo", "wallpaper", "avatar", "风景", "猫咪", "照片", "截图", "设计稿"};
+
+    /**
+     * 模拟名称使用的扩展名
+     */
+    private static final String[] EXTENSIONS = {".jpg", ".png", ".webp", ".gif"};
+
+    /**
+     * 模拟的图片数量
+     */
+    @Param({"100000", "1000000"})
+    private int rowCount;
+
+    /**
+     * 搜索关键字
+     */
+    @Param({"img", "2023", "screenshot_1", "风景", "猫咪照片", "no-such-name", "a"})
+    private String keyword;
+
+    private String[] names;
+
+    private String[] originalNames;
+
+    private TrigramIndex index;
+
+    /**
+     * 生成模拟名称并建立索引，输出建索引耗时和倒排条目数
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[][] generated = generateNames(rowCount);
+        names = generated[0];
+        originalNames = generated[1];
+
+        long start = System.nanoTime();
+        index = new TrigramIndex();
+        for (int i = 0; i < rowCount; i++) {
+            index.put(i + 1, names[i], originalNames[i]);
+        }
+        long postings = index.postingCount();
+        System.out.printf("%n图片%d张, 建索引%dms, 倒排条目%d个(约%dMB)%n", rowCount,
+                (System.nanoTime() - start) / 1_000_000, postings, postings * Integer.BYTES / 1024 / 1024);
+
+        if (index.search(keyword).length != scan()) {
+            throw new IllegalStateException("索引查询与逐行匹配的结果数不一致: " + keyword);
+        }
+    }
+
+    /**
+     * 三元组索引查询
+     */
+    @Benchmark
+    public int indexSearch() {
+        return index.search(keyword).length;
+    }
+
+    /**
+     * 逐行模糊匹配
+     */
+    @Benchmark
+    public int scan() {
+        String key = keyword.toLowerCase(Locale.ROOT);
+        int matches = 0;
+        for (int i = 0; i < rowCount; i++) {
+            if (names[i].toLowerCase(Locale.ROOT).contains(key) || originalNames[i].toLowerCase(Locale.ROOT).contains(key)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * 生成模拟的图片名称，固定随机种子，保证每次生成的数据相同
+     *
+     * @param rowCount 图片数量
+     * @return 两个数组，依次为名称和原始文件名
+     */
+    static String[][] generateNames(int rowCount) {
+        Random random = new Random(42);
+        String[] names = new String[rowCount];
+        String[] originalNames = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            originalNames[i] = WORDS[random.nextInt(WORDS.length)] + "_" + (2015 + random.nextInt(10))
+                    + String.format("%04d", random.nextInt(10000)) + "_" + random.nextInt(1000)
+                    + EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            names[i] = random.nextInt(4) == 0 ? WORDS[random.nextInt(WORDS.length)] + random.nextInt(100) : originalNames[i];
+        }
+        return new String[][]{names, originalNames};
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TrigramIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -30,19 +30,31 @@ CREATE TABLE IF NOT EXISTS `image` (
   `name` varchar(100) NOT NULL COMMENT '图片名称',
   `original_name` varchar(255) NOT NULL COMMENT '原始文件名',
   `path` varchar(255) NOT NULL COMMENT '存储路径',
+  `blob_id` bigint DEFAULT NULL COMMENT '内容块ID',
   `url` varchar(255) NOT NULL COMMENT '访问URL',
+  `thumbnail_path` varchar(255) DEFAULT NULL COMMENT '缩略图存储路径',
+  `preview_path` varchar(255) DEFAULT NULL COMMENT '预览图存储路径',
   `md5` varchar(32) NOT NULL COMMENT 'MD5值',
   `size` bigint NOT NULL COMMENT '图片大小（字节）',
   `width` int DEFAULT NULL COMMENT '图片宽度',
   `height` int DEFAULT NULL COMMENT '图片高度',
+  `aspect_ratio` decimal(10,4) GENERATED ALWAYS AS (IF(`height` > 0, `width` / `height`, NULL)) VIRTUAL COMMENT '宽高比（宽/高），由宽高生成，仅用于索引',
   `mime_type` varchar(50) NOT NULL COMMENT '媒体类型',
   `access_count` bigint NOT NULL DEFAULT '0' COMMENT '访问次数',
+  `phash` bigint DEFAULT NULL COMMENT '感知哈希（64位dHash），用于查找相似图片',
+  `status` tinyint NOT NULL DEFAULT '1' COMMENT '处理状态（0处理中，1可用，2处理失败）',
   `deleted` tinyint NOT NULL DEFAULT '0' COMMENT '删除标志（0未删除，1已删除）',
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`),
-  KEY `idx_user_id` (`user_id`),
+  KEY `idx_user_deleted_time` (`user_id`, `deleted`, `create_time`, `id`),
+  KEY `idx_user_deleted_size` (`user_id`, `deleted`, `size`),
+  KEY `idx_user_deleted_access` (`user_id`, `deleted`, `access_count`),
+  KEY `idx_user_deleted_mime_time` (`user_id`, `deleted`, `mime_type`, `create_time`),
+  KEY `idx_user_deleted_dimension` (`user_id`, `deleted`, `width`, `height`),
+  KEY `idx_user_deleted_ratio` (`user_id`, `deleted`, `aspect_ratio`),
   KEY `idx_md5` (`md5`),
+  KEY `idx_blob_id` (`blob_id`),
   KEY `idx_create_time` (`create_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='图片表';
 
@@ -119,9 +131,79 @@ CREATE TABLE IF NOT EXISTS `annotation_category` (
   KEY `idx_project_id` (`project_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='标注类别表';
 
+-- 上传会话表（分片上传）
+CREATE TABLE IF NOT EXISTS `upload_session` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `upload_id` varchar(64) NOT NULL COMMENT '上传会话标识',
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `file_name` varchar(255) NOT NULL COMMENT '原始文件名',
+  `content_type` varchar(50) NOT NULL COMMENT '媒体类型',
+  `file_size` bigint NOT NULL COMMENT '文件总大小（字节）',
+  `chunk_size` int NOT NULL COMMENT '分片大小（字节）',
+  `total_chunks` int NOT NULL COMMENT '分片总数',
+  `upload_type` tinyint NOT NULL DEFAULT '0' COMMENT '上传方式（0分片上传，1预签名直传）',
+  `object_path` varchar(255) DEFAULT NULL COMMENT '预签名直传的存储路径',
+  `file_md5` varchar(32) DEFAULT NULL COMMENT '客户端声明的文件MD5',
+  `status` tinyint NOT NULL DEFAULT '0' COMMENT '状态（0上传中，1已完成，2处理中）',
+  `image_id` bigint DEFAULT NULL COMMENT '完成后生成的图片ID',
+  `expire_time` datetime NOT NULL COMMENT '过期时间',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_upload_id` (`upload_id`),
+  KEY `idx_user_id` (`user_id`),
+  KEY `idx_expire_time` (`expire_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='上传会话表';
+
+-- 图片内容块表（按内容寻址去重，相同内容只存储一份）
+CREATE TABLE IF NOT EXISTS `image_blob` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `sha256` char(64) NOT NULL COMMENT 'SHA-256值',
+  `md5` varchar(32) NOT NULL COMMENT 'MD5值',
+  `path` varchar(255) NOT NULL COMMENT '存储路径',
+  `size` bigint NOT NULL COMMENT '文件大小（字节）',
+  `width` int DEFAULT NULL COMMENT '图片宽度',
+  `height` int DEFAULT NULL COMMENT '图片高度',
+  `mime_type` varchar(50) NOT NULL COMMENT '媒体类型',
+  `ref_count` int NOT NULL DEFAULT '0' COMMENT '引用计数（未删除的图片数）',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_sha256` (`sha256`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='图片内容块表';
+
+-- 图片后台任务表（上传后处理队列）
+CREATE TABLE IF NOT EXISTS `image_job` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `image_id` bigint NOT NULL COMMENT '图片ID',
+  `job_type` varchar(32) NOT NULL COMMENT '任务类型',
+  `payload` varchar(512) DEFAULT NULL COMMENT '任务参数',
+  `status` tinyint NOT NULL DEFAULT '0' COMMENT '状态（0待执行，1执行中，2成功，3失败）',
+  `attempts` int NOT NULL DEFAULT '0' COMMENT '已执行次数',
+  `max_attempts` int NOT NULL DEFAULT '5' COMMENT '最大执行次数',
+  `next_run_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '下次执行时间',
+  `locked_by` varchar(64) DEFAULT NULL COMMENT '执行节点',
+  `locked_until` datetime DEFAULT NULL COMMENT '执行租约到期时间',
+  `last_error` varchar(500) DEFAULT NULL COMMENT '最近一次错误信息',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_image_id` (`image_id`),
+  KEY `idx_status_next_run` (`status`, `next_run_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='图片后台任务表';
+
+-- 回填任务进度表（记录按ID顺序处理到的位置，中断后从该位置继续）
+CREATE TABLE IF NOT EXISTS `backfill_checkpoint` (
+  `task_name` varchar(64) NOT NULL COMMENT '任务名称',
+  `last_id` bigint NOT NULL DEFAULT '0' COMMENT '已处理的最大ID',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`task_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='回填任务进度表';
+
 -- 添加外键约束
 ALTER TABLE `image` 
-  ADD CONSTRAINT `fk_image_user` FOREIGN KEY (`user_id`) REFERENCES `user` (`id`) ON DELETE CASCADE;
+  ADD CONSTRAINT `fk_image_user` FOREIGN KEY (`user_id`) REFERENCES `user` (`id`) ON DELETE CASCADE,
+  ADD CONSTRAINT `fk_image_blob` FOREIGN KEY (`blob_id`) REFERENCES `image_blob` (`id`) ON DELETE SET NULL;
 
 ALTER TABLE `annotation_project` 
   ADD CONSTRAINT `fk_project_creator` FOREIGN KEY (`creator_id`) REFERENCES `user` (`id`) ON DELETE CASCADE;
@@ -142,6 +224,12 @@ ALTER TABLE `annotation_data`
 ALTER TABLE `annotation_category` 
   ADD CONSTRAINT `fk_ac_project` FOREIGN KEY (`project_id`) REFERENCES `annotation_project` (`id`) ON DELETE CASCADE;
 
+ALTER TABLE `upload_session` 
+  ADD CONSTRAINT `fk_us_user` FOREIGN KEY (`user_id`) REFERENCES `user` (`id`) ON DELETE CASCADE;
+
+ALTER TABLE `image_job` 
+  ADD CONSTRAINT `fk_ij_image` FOREIGN KEY (`image_id`) REFERENCES `image` (`id`) ON DELETE CASCADE;
+
 -- 插入初始管理员用户 (用户名: admin, 密码: admin123)
 INSERT INTO `user` (`username`, `password`, `nickname`, `role_type`) 
 VALUES ('admin', '$2a$10$Q27KFPPJ0IOTHE0iyTDOBOk7WBPRorI.uh6wHhQMIcMDa.FP4kRIe', '管理员', 1); 
\ No newline at end of file
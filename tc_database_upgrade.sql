@@ -0,0 +1,99 @@
+-- 已有数据库升级脚本
+-- 适用于按最初版本 tc_database.sql 建立的数据库，按顺序执行一次即可；新建数据库直接使用 tc_database.sql
+
+USE image_hosting;
+
+-- 分片上传和预签名直传的上传会话
+CREATE TABLE IF NOT EXISTS `upload_session` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `upload_id` varchar(64) NOT NULL COMMENT '上传会话标识',
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `file_name` varchar(255) NOT NULL COMMENT '原始文件名',
+  `content_type` varchar(50) NOT NULL COMMENT '媒体类型',
+  `file_size` bigint NOT NULL COMMENT '文件总大小（字节）',
+  `chunk_size` int NOT NULL COMMENT '分片大小（字节）',
+  `total_chunks` int NOT NULL COMMENT '分片总数',
+  `upload_type` tinyint NOT NULL DEFAULT '0' COMMENT '上传方式（0分片上传，1预签名直传）',
+  `object_path` varchar(255) DEFAULT NULL COMMENT '预签名直传的存储路径',
+  `file_md5` varchar(32) DEFAULT NULL COMMENT '客户端声明的文件MD5',
+  `status` tinyint NOT NULL DEFAULT '0' COMMENT '状态（0上传中，1已完成，2处理中）',
+  `image_id` bigint DEFAULT NULL COMMENT '完成后生成的图片ID',
+  `expire_time` datetime NOT NULL COMMENT '过期时间',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_upload_id` (`upload_id`),
+  KEY `idx_user_id` (`user_id`),
+  KEY `idx_expire_time` (`expire_time`),
+  CONSTRAINT `fk_us_user` FOREIGN KEY (`user_id`) REFERENCES `user` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='上传会话表';
+
+-- 按内容寻址去重的内容块；已有图片的blob_id为空，删除时不涉及引用计数
+CREATE TABLE IF NOT EXISTS `image_blob` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `sha256` char(64) NOT NULL COMMENT 'SHA-256值',
+  `md5` varchar(32) NOT NULL COMMENT 'MD5值',
+  `path` varchar(255) NOT NULL COMMENT '存储路径',
+  `size` bigint NOT NULL COMMENT '文件大小（字节）',
+  `width` int DEFAULT NULL COMMENT '图片宽度',
+  `height` int DEFAULT NULL COMMENT '图片高度',
+  `mime_type` varchar(50) NOT NULL COMMENT '媒体类型',
+  `ref_count` int NOT NULL DEFAULT '0' COMMENT '引用计数（未删除的图片数）',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_sha256` (`sha256`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='图片内容块表';
+
+-- 图片表新增列：内容块、处理状态（已有图片均为可用）、缩略图和预览图路径、感知哈希、宽高比
+ALTER TABLE `image`
+  ADD COLUMN `blob_id` bigint DEFAULT NULL COMMENT '内容块ID' AFTER `path`,
+  ADD COLUMN `thumbnail_path` varchar(255) DEFAULT NULL COMMENT '缩略图存储路径' AFTER `url`,
+  ADD COLUMN `preview_path` varchar(255) DEFAULT NULL COMMENT '预览图存储路径' AFTER `thumbnail_path`,
+  ADD COLUMN `aspect_ratio` decimal(10,4) GENERATED ALWAYS AS (IF(`height` > 0, `width` / `height`, NULL)) VIRTUAL COMMENT '宽高比（宽/高），由宽高生成，仅用于索引' AFTER `height`,
+  ADD COLUMN `phash` bigint DEFAULT NULL COMMENT '感知哈希（64位dHash），用于查找相似图片' AFTER `access_count`,
+  ADD COLUMN `status` tinyint NOT NULL DEFAULT '1' COMMENT '处理状态（0处理中，1可用，2处理失败）' AFTER `phash`;
+
+-- 图片表索引：列表排序、游标分页和元数据筛选均以(user_id, deleted)开头，
+-- 新索引以user_id开头，可以替代原有的idx_user_id支撑外键
+ALTER TABLE `image`
+  ADD KEY `idx_user_deleted_time` (`user_id`, `deleted`, `create_time`, `id`),
+  ADD KEY `idx_user_deleted_size` (`user_id`, `deleted`, `size`),
+  ADD KEY `idx_user_deleted_access` (`user_id`, `deleted`, `access_count`),
+  ADD KEY `idx_user_deleted_mime_time` (`user_id`, `deleted`, `mime_type`, `create_time`),
+  ADD KEY `idx_user_deleted_dimension` (`user_id`, `deleted`, `width`, `height`),
+  ADD KEY `idx_user_deleted_ratio` (`user_id`, `deleted`, `aspect_ratio`),
+  ADD KEY `idx_blob_id` (`blob_id`),
+  ADD CONSTRAINT `fk_image_blob` FOREIGN KEY (`blob_id`) REFERENCES `image_blob` (`id`) ON DELETE SET NULL;
+
+ALTER TABLE `image`
+  DROP KEY `idx_user_id`;
+
+-- 上传后处理的后台任务队列
+CREATE TABLE IF NOT EXISTS `image_job` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT 'ID',
+  `image_id` bigint NOT NULL COMMENT '图片ID',
+  `job_type` varchar(32) NOT NULL COMMENT '任务类型',
+  `payload` varchar(512) DEFAULT NULL COMMENT '任务参数',
+  `status` tinyint NOT NULL DEFAULT '0' COMMENT '状态（0待执行，1执行中，2成功，3失败）',
+  `attempts` int NOT NULL DEFAULT '0' COMMENT '已执行次数',
+  `max_attempts` int NOT NULL DEFAULT '5' COMMENT '最大执行次数',
+  `next_run_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '下次执行时间',
+  `locked_by` varchar(64) DEFAULT NULL COMMENT '执行节点',
+  `locked_until` datetime DEFAULT NULL COMMENT '执行租约到期时间',
+  `last_error` varchar(500) DEFAULT NULL COMMENT '最近一次错误信息',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_image_id` (`image_id`),
+  KEY `idx_status_next_run` (`status`, `next_run_time`),
+  CONSTRAINT `fk_ij_image` FOREIGN KEY (`image_id`) REFERENCES `image` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='图片后台任务表';
+
+-- 缩略图和感知哈希回填的进度，升级后由回填命令为已有图片补齐
+CREATE TABLE IF NOT EXISTS `backfill_checkpoint` (
+  `task_name` varchar(64) NOT NULL COMMENT '任务名称',
+  `last_id` bigint NOT NULL DEFAULT '0' COMMENT '已处理的最大ID',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`task_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='回填任务进度表';